@@ -0,0 +1,61 @@
+package benchmark;
+
+import augmentation.AugmentingGenerator;
+import graph.model.IntGraph;
+import hybrid.EdgeOrbitGenerator;
+import hybrid.HybridGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The augmenting generators : AugmentingGenerator.scan, with and without a degree
+ * limit, the HybridGenerator, and the EdgeOrbitGenerator that replaces its per-pair orbit
+ * tests with one representative per orbit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AugmentingBenchmark {
+    
+    @Param({"6", "7", "8"})
+    public int n;
+    
+    /**
+     * The largest vertex degree, where 0 means no limit.
+     */
+    @Param({"0", "3", "4"})
+    public int maxDegree;
+    
+    @Benchmark
+    public void scan(GraphCounter counter) {
+        AugmentingGenerator generator = 
+            new AugmentingGenerator((maxDegree == 0)? -1 : maxDegree, counter);
+        generator.scan(new IntGraph("0:1"), n);
+    }
+    
+    @Benchmark
+    public void hybrid(GraphCounter counter) {
+        HybridGenerator generator = new HybridGenerator(counter);
+        generator.generate(new IntGraph("0:1"), n);
+    }
+    
+    @Benchmark
+    public void edgeOrbit(GraphCounter counter) {
+        new EdgeOrbitGenerator(counter, maxDegree).generate(n);
+    }
+    
+}
@@ -0,0 +1,25 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks with the GC profiler, so that the allocation rate is reported along
+ * with graphs per second. An optional argument is a regular expression for the benchmarks
+ * to include, for example "Tree" or "Scheme3Benchmark.extend".
+ */
+public class Benchmarks {
+    
+    public static void main(String[] args) throws RunnerException {
+        String include = (args.length > 0)? args[0] : "benchmark\\..*";
+        Options options = new OptionsBuilder()
+                                .include(include)
+                                .addProfiler(GCProfiler.class)
+                                .build();
+        new Runner(options).run();
+    }
+    
+}
@@ -0,0 +1,37 @@
+package benchmark;
+
+import cpa.graph.GraphGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The canonical path augmentation generator in cpa.graph, which has no degree limit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CPAGraphBenchmark {
+    
+    @Param({"6", "7", "8"})
+    public int n;
+    
+    @Benchmark
+    public void generate(GraphCounter counter) {
+        new GraphGenerator(counter, n).generate();
+    }
+    
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import degreeseq.KiralyHHGenerator;
+import degreeseq.OrbitSaturatingGenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The degree sequence generators, on the sequence with n vertices of degree maxDegree
+ * (one less for the last vertex if the degree sum would be odd).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DegreeSequenceBenchmark {
+    
+    @Param({"6", "8", "10"})
+    public int n;
+    
+    @Param({"2", "3", "4"})
+    public int maxDegree;
+    
+    private int[] degreeSequence;
+    
+    @Setup
+    public void makeSequence() {
+        degreeSequence = new int[n];
+        Arrays.fill(degreeSequence, maxDegree);
+        if ((n * maxDegree) % 2 == 1) {
+            degreeSequence[n - 1]--;
+        }
+    }
+    
+    @Benchmark
+    public void kiraly(GraphCounter counter) {
+        new KiralyHHGenerator(counter).generate(degreeSequence.clone());
+    }
+    
+    @Benchmark
+    public void orbitSaturating(GraphCounter counter) {
+        new OrbitSaturatingGenerator(counter).generate(degreeSequence.clone());
+    }
+    
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import cpa.handler.GenerationHandler;
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the graphs made by a benchmark, so that JMH reports graphs per second alongside
+ * the operations (whole generation runs) per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class GraphCounter implements GeneratorHandler, GenerationHandler {
+    
+    public long graphs;
+    
+    @Setup(Level.Iteration)
+    public void reset() {
+        graphs = 0;
+    }
+    
+    public void handle(IntGraph parent, IntGraph graph) {
+        graphs++;
+    }
+    
+    public void handle(IntGraph graph) {
+        graphs++;
+    }
+    
+    public void finish() {
+        // nothing to do
+    }
+    
+    /**
+     * Count graphs already collected into a list, for the generators that return them.
+     */
+    public void add(int count) {
+        graphs += count;
+    }
+    
+}
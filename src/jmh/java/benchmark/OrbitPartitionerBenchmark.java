@@ -0,0 +1,101 @@
+package benchmark;
+
+import degreeseq.EquitableOrbitPartitioner;
+import degreeseq.GraphicalSequenceLister;
+import degreeseq.MorganNumberPartitioner;
+import degreeseq.OrbitPartitioner;
+import degreeseq.OrbitSaturatingGenerator;
+import degreeseq.SignatureOrbitPartitioner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The orbit saturating generator with each of the orbit partitioners, run over all the
+ * degree sequences of connected graphs on n vertices - the sequences of the McKay files
+ * in the OrbitSaturatingCoverageTest. The "equitable" partitioner refines the orbits of
+ * each parent, while the others start again for every child. Before a run, every sequence
+ * is checked to give the same number of graphs as with the signature partitioner, so a
+ * partitioner is only timed if it makes the same graphs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrbitPartitionerBenchmark {
+    
+    @Param({"5", "6", "7", "8"})
+    public int n;
+    
+    @Param({"signature", "morgan", "equitable"})
+    public String partitioner;
+    
+    private List<int[]> sequences;
+    
+    @Setup
+    public void listSequences() {
+        sequences = new ArrayList<int[]>();
+        for (int[] sequence : new GraphicalSequenceLister().list(n, 1)) {
+            int sum = 0;
+            for (int d : sequence) {
+                sum += d;
+            }
+            // too few edges for a connected graph
+            if (sum >= 2 * (n - 1)) {
+                sequences.add(sequence);
+            }
+        }
+        for (int[] sequence : sequences) {
+            long expected = count(sequence, new SignatureOrbitPartitioner());
+            long actual = count(sequence, makePartitioner());
+            if (actual != expected) {
+                throw new IllegalStateException(partitioner + " makes " + actual 
+                        + " graphs for " + Arrays.toString(sequence) + ", not " + expected);
+            }
+        }
+    }
+    
+    private long count(int[] sequence, OrbitPartitioner orbitPartitioner) {
+        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator(new LongAdder());
+        generator.setPartitioner(orbitPartitioner);
+        generator.generate(sequence.clone());
+        return generator.getCount();
+    }
+    
+    private OrbitPartitioner makePartitioner() {
+        if (partitioner.equals("morgan")) {
+            return new MorganNumberPartitioner();
+        } else if (partitioner.equals("equitable")) {
+            return new EquitableOrbitPartitioner();
+        } else {
+            return new SignatureOrbitPartitioner();
+        }
+    }
+    
+    @Benchmark
+    public void allSequences(GraphCounter counter) {
+        for (int[] sequence : sequences) {
+            OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator(counter);
+            generator.setPartitioner(makePartitioner());
+            generator.generate(sequence.clone());
+        }
+    }
+    
+}
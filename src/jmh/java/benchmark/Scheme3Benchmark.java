@@ -0,0 +1,52 @@
+package benchmark;
+
+import graph.model.IntGraph;
+import scheme3.GraphGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The scheme3 generator with each of its child listers (by vertex or by edge) and 
+ * signature handlers (filtering or symmetry).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Scheme3Benchmark {
+    
+    @Param({"6", "7", "8"})
+    public int n;
+    
+    /**
+     * The largest vertex degree, where 0 means no limit.
+     */
+    @Param({"0", "3", "4"})
+    public int maxDegree;
+    
+    @Param({"true", "false"})
+    public boolean byVertex;
+    
+    @Param({"true", "false"})
+    public boolean doFilter;
+    
+    @Benchmark
+    public void extend(GraphCounter counter) {
+        GraphGenerator generator = new GraphGenerator(counter, byVertex, false, doFilter, maxDegree);
+        generator.extend(new IntGraph("0:1"), n);
+    }
+    
+}
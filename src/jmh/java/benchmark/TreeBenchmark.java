@@ -0,0 +1,65 @@
+package benchmark;
+
+import graph.model.IntGraph;
+import scheme3.TreeGenerator;
+import tree.OrderlyTreeGenerator;
+import tree.RootedTreeGenerator;
+import tree.UnlabelledTreeGenerator;
+import tree.WROMTreeGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The tree generators; most of these return a list of trees rather than using a handler,
+ * so the counter is given the size of the list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBenchmark {
+    
+    @Param({"8", "10", "12"})
+    public int n;
+    
+    @Benchmark
+    public void wrom(GraphCounter counter) {
+        counter.add(WROMTreeGenerator.generate(n).size());
+    }
+    
+    @Benchmark
+    public void rooted(GraphCounter counter) {
+        counter.add(RootedTreeGenerator.generate(n).size());
+    }
+    
+    @Benchmark
+    public void orderly(GraphCounter counter) {
+        counter.add(OrderlyTreeGenerator.generate(n).size());
+    }
+    
+    @Benchmark
+    public void unlabelled(GraphCounter counter) {
+        counter.add(UnlabelledTreeGenerator.generate(n).size());
+    }
+    
+    @Benchmark
+    public void mcKay(GraphCounter counter) {
+        TreeGenerator generator = new TreeGenerator();
+        generator.orderlyGenerationMcKay(new IntGraph("0:1"), n);
+        counter.add(generator.getCount());
+    }
+    
+}
@@ -1,8 +1,10 @@
 package augmentation;
 
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import canon.StabiliserChain;
 import generate.handler.GeneratorHandler;
 import generate.handler.SystemOutHandler;
-import graph.group.GraphDiscretePartitionRefiner;
 import graph.model.IntGraph;
 import group.Permutation;
 import group.PermutationGroup;
@@ -10,7 +12,6 @@ import group.PermutationGroup;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
-import java.util.TreeSet;
 
 public class AugmentingGenerator {
 	
@@ -36,22 +37,12 @@ public class AugmentingGenerator {
 	}
 	
 	public PermutationGroup getGroup(IntGraph g) {
-		GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
 //		System.out.println("getting group for " + g.toStringIncludingSize());
-		return refiner.getAutomorphismGroup(g);
+		return CanonicalLabellers.get(g.getVertexCount()).label(g).getAutomorphismGroup();
 	}
 	
 	public SortedSet<Integer> getOrbit(int element, PermutationGroup autG) {
-		SortedSet<Integer> orbit = new TreeSet<Integer>();
-		orbit.add(element);
-		for (Permutation p : autG.all()) {
-			SortedSet<Integer> newElements = new TreeSet<Integer>();
-			for (int orbitElement : orbit) {
-				newElements.add(p.get(orbitElement));
-			}
-			orbit.addAll(newElements);
-		}
-		return orbit;
+		return StabiliserChain.fromGroup(autG).getOrbit(element);
 	}
 	
 	public List<SortedSet<Integer>> getOrbitCombinations(IntGraph g) {
@@ -66,23 +57,34 @@ public class AugmentingGenerator {
 	
 	public List<UpperObject> getUpperObjects(IntGraph g, PermutationGroup autG) {
 		List<UpperObject> upperObjects = new ArrayList<UpperObject>();
-		representativeGenerator.setGraph(g);
-		for (SortedSet<Integer> combination : representativeGenerator.getOrbitCombinations(autG, g.getVertexCount())) {
-			upperObjects.add(new UpperObject(g, combination));
+		OrbitSubsetIterator subsets = getOrbitSubsets(g, StabiliserChain.fromGroup(autG));
+		while (subsets.hasNext()) {
+			upperObjects.add(new UpperObject(g, subsets.next()));
 		}
 		return upperObjects;
 	}
 	
+	private OrbitSubsetIterator getOrbitSubsets(IntGraph g, StabiliserChain chain) {
+		representativeGenerator.setGraph(g);
+		return representativeGenerator.getOrbitSubsets(chain, g.getVertexCount());
+	}
+	
 	public void scan(IntGraph g, int n) {
 		recursive_scan(null, g, n);
 		handler.finish();
 	}
 
+	/**
+	 * The upper objects are made one at a time from the subset iterator, so only the
+	 * current one is held at each level.
+	 */
 	private void recursive_scan(IntGraph parent, IntGraph g, int n) {
 		output(parent, g);
 		if (g.getVertexCount() == n) return;
-		PermutationGroup autG = getGroup(g);
-		for (UpperObject orbitRep : getUpperObjects(g, autG)) {
+		StabiliserChain chain = CanonicalLabellers.get(g.getVertexCount()).label(g).getStabiliserChain();
+		OrbitSubsetIterator subsets = getOrbitSubsets(g, chain);
+		while (subsets.hasNext()) {
+			UpperObject orbitRep = new UpperObject(g, subsets.next());
 			List<LowerObject> lowerObjects = invF(orbitRep);
 			if (!lowerObjects.isEmpty()) {
 				LowerObject y = lowerObjects.get(0);
@@ -96,14 +98,12 @@ public class AugmentingGenerator {
 	public boolean isCanonical(LowerObject y) {
 		IntGraph g = y.getGraph();
 		int n = g.getVertexCount();
-		GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-		PermutationGroup autG = refiner.getAutomorphismGroup(g);
-		Permutation minPerm = refiner.getBest();
+		Labelling labelling = CanonicalLabellers.get(g.getVertexCount()).label(g);
+		Permutation minPerm = labelling.getBest();
 		if (minPerm.get(n - 1) == n - 1) {
 			return true;
 		} else {
-			SortedSet<Integer> orbit = getOrbit(minPerm.get(n - 1), autG);
-			return orbit.contains(n - 1);
+			return labelling.inSameOrbit(minPerm.get(n - 1), n - 1);
 		}
 	}
 
@@ -113,12 +113,13 @@ public class AugmentingGenerator {
 		IntGraph IntGraph = new IntGraph(orbitRep.getGraph());
 		int n = IntGraph.getVertexCount();
 		// special case
-		if (orbitRep.getVertices().isEmpty()) {
+		long vertices = orbitRep.getVertexMask();
+		if (vertices == 0) {
 //			IntGraph.makeEdge(n, n);
 			IntGraph.makeIsolatedVertex();	// note that this only works if we only add to the end...
 		}
-		for (int connectionPoint : orbitRep.getVertices()) {
-			IntGraph.makeEdge(connectionPoint, n);
+		for (long rest = vertices; rest != 0; rest &= rest - 1) {
+			IntGraph.makeEdge(Long.numberOfTrailingZeros(rest), n);
 		}
 		lowerObjects.add(new LowerObject(IntGraph, n));
 		return lowerObjects;
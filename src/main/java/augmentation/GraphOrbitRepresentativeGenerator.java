@@ -3,8 +3,6 @@ package augmentation;
 import graph.model.Graph;
 import graph.model.IntGraph;
 
-import java.util.SortedSet;
-
 public class GraphOrbitRepresentativeGenerator extends OrbitRepresentativeGenerator<Graph> {
 
 	private IntGraph graph;
@@ -29,8 +27,8 @@ public class GraphOrbitRepresentativeGenerator extends OrbitRepresentativeGenera
 	}
 	
 	@Override
-	public boolean combinationIsValid(SortedSet<Integer> combination) {
-		return maxDegree < 0 || combination.size() <= maxDegree;
+	public int getMaxSize() {
+		return maxDegree;
 	}
 
 }
@@ -1,8 +1,6 @@
 package augmentation;
 
-import group.AutomorphismPartitioner;
-import group.Partition;
-import group.Permutation;
+import canon.StabiliserChain;
 import group.PermutationGroup;
 
 import java.util.ArrayList;
@@ -11,7 +9,10 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
- * Generates all k-subsets representatives given an automorphism group.
+ * Generates all k-subsets representatives given an automorphism group. Subsets are 
+ * bitmasks over the points, listed lazily by an {@link OrbitSubsetIterator}, and 
+ * minimality is tested against a {@link StabiliserChain} for the group rather than every
+ * element of it.
  * 
  * @author maclean
  *
@@ -19,104 +20,63 @@ import java.util.TreeSet;
 public abstract class OrbitRepresentativeGenerator<T> {
 	
 	public List<SortedSet<Integer>> getOrbitCombinations(PermutationGroup autG, int n) {
-	    Partition orbitPartition = AutomorphismPartitioner.getAutomorphismPartition(autG);
-		SortedSet<Integer> singletonSet = new TreeSet<Integer>();
-		SortedSet<Integer> candidateSet = new TreeSet<Integer>();
-		for (int i = 0; i < orbitPartition.size(); i++) {
-			SortedSet<Integer> cell = orbitPartition.getCell(i);
-			int first = cell.first();
-			if (representativeIsCandidate(first)) {
-				singletonSet.add(first);
-				for (int element : cell) {
-					candidateSet.add(element);
+		return getOrbitCombinations(StabiliserChain.fromGroup(autG), n);
+	}
+	
+	public List<SortedSet<Integer>> getOrbitCombinations(StabiliserChain chain, int n) {
+		List<SortedSet<Integer>> combinations = new ArrayList<SortedSet<Integer>>();
+		OrbitSubsetIterator iterator = getOrbitSubsets(chain, n);
+		while (iterator.hasNext()) {
+			long subset = iterator.next();
+			SortedSet<Integer> combination = new TreeSet<Integer>();
+			for (int element = 0; element < n; element++) {
+				if ((subset & (1L << element)) != 0) {
+					combination.add(element);
 				}
 			}
+			combinations.add(combination);
 		}
-		
-		List<SortedSet<Integer>> combinations = new ArrayList<SortedSet<Integer>>();
-		
-		// add the empty set
-		combinations.add(new TreeSet<Integer>());
-		
-		List<SortedSet<Integer>> emptySet = new ArrayList<SortedSet<Integer>>();
-		emptySet.add(new TreeSet<Integer>());
-		combine(candidateSet, autG, n, emptySet, combinations);
 		return combinations;
 	}
 	
 	/**
-	 * Checks that the representative element in an orbit is a potential candidate.
+	 * List the representative subsets one at a time, starting with the empty set.
 	 * 
-	 * @param orbitRep the minimal element in an orbit
-	 * @return true if this rep (and the members of its orbit) should be considered
+	 * @param chain the group
+	 * @param n the number of points, at most 64
+	 * @return an iterator over the subsets as bitmasks
 	 */
-	public abstract boolean representativeIsCandidate(int orbitRep);
-	
-	private void combine(
-			SortedSet<Integer> candidateSet,
-			PermutationGroup autG,
-			int n,
-			List<SortedSet<Integer>> parents,
-			List<SortedSet<Integer>> combinations) {
-		List<SortedSet<Integer>> children = new ArrayList<SortedSet<Integer>>();
-		for (SortedSet<Integer> parent : parents) {
-			int first;
-			if (parent.size() == 0) {
-				first = -1;
-			} else {
-				first = parent.last() + 1;
-			}
-			for (int element : candidateSet.tailSet(first)) {
-				SortedSet<Integer> child = new TreeSet<Integer>(parent);
-				child.add(element);
-				if (combinationIsValid(child) && isMinimalInOrbit(child, autG)) {
-					children.add(child);
-					combinations.add(child);
-				}
-			}
+	public OrbitSubsetIterator getOrbitSubsets(StabiliserChain chain, int n) {
+		if (n > 64) {
+			throw new IllegalArgumentException("Subsets of at most 64 points, not " + n);
 		}
-		if (children.size() > 0) {
-			combine(candidateSet, autG, n, children, combinations);
+		int[] orbits = chain.getOrbits();
+		int[] candidates = new int[n];
+		int candidateCount = 0;
+		for (int element = 0; element < orbits.length; element++) {
+			if (representativeIsCandidate(orbits[element])) {
+				candidates[candidateCount] = element;
+				candidateCount++;
+			}
 		}
+		int[] trimmed = new int[candidateCount];
+		System.arraycopy(candidates, 0, trimmed, 0, candidateCount);
+		return new OrbitSubsetIterator(chain, trimmed, getMaxSize());
 	}
 	
 	/**
-	 * Check a combination to see if it fulfills some particular criteria.
+	 * Checks that the representative element in an orbit is a potential candidate.
 	 * 
-	 * @param combination
-	 * @return
+	 * @param orbitRep the minimal element in an orbit
+	 * @return true if this rep (and the members of its orbit) should be considered
 	 */
-	public abstract boolean combinationIsValid(SortedSet<Integer> combination);
-	
-	private boolean isMinimalInOrbit(SortedSet<Integer> set, PermutationGroup autG) {
-		String original = setToString(set);
-		for (Permutation permutation : autG.all()) {
-			if (setToString(apply(permutation, set)).compareTo(original) < 0) {
-				return false;
-			}
-		}
-		return true;
-	}
-	
-	private String setToString(SortedSet<Integer> set) {
-		StringBuffer buffer = new StringBuffer();
-		int count = set.size();
-		for (int element : set) {
-			buffer.append(element);
-			count--;
-			if (count > 0) {
-				buffer.append(',');
-			}
-		}
-		return buffer.toString();
-	}
+	public abstract boolean representativeIsCandidate(int orbitRep);
 	
-	private SortedSet<Integer> apply(Permutation permutation, SortedSet<Integer> set) {
-		SortedSet<Integer> permutedSet = new TreeSet<Integer>();
-		for (int element : set) {
-			permutedSet.add(permutation.get(element));
-		}
-		return permutedSet;
-	}
+	/**
+	 * The largest size of combination to consider.
+	 * 
+	 * @return the size, or -1 for no limit
+	 */
+	public abstract int getMaxSize();
 
 }
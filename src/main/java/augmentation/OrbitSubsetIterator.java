@@ -0,0 +1,92 @@
+package augmentation;
+
+import canon.StabiliserChain;
+
+/**
+ * Lists the subsets of a set of candidate points that are the smallest in their orbit
+ * under a group, as bitmasks, one at a time. The subsets are made depth-first by adding a
+ * point larger than any already in the set, and a subset that is not minimal is not
+ * extended, so at most one set for each size is held at a time.
+ * 
+ * The empty set comes first.
+ */
+public class OrbitSubsetIterator {
+    
+    private final StabiliserChain chain;
+    
+    private final int[] candidates;
+    
+    private final int maxSize;
+    
+    /**
+     * The set at each depth of the search, where the set at depth d has d points.
+     */
+    private final long[] sets;
+    
+    /**
+     * The index in the candidates of the next point to try adding at each depth.
+     */
+    private final int[] nextIndex;
+    
+    private int depth;
+    
+    private boolean ready;
+    
+    private boolean hasNext;
+    
+    /**
+     * @param chain the group
+     * @param candidates the points that may be in a subset, in increasing order, all &lt; 64
+     * @param maxSize the largest size of subset, or -1 for no limit
+     */
+    public OrbitSubsetIterator(StabiliserChain chain, int[] candidates, int maxSize) {
+        this.chain = chain;
+        this.candidates = candidates;
+        this.maxSize = (maxSize < 0)? candidates.length : Math.min(maxSize, candidates.length);
+        this.sets = new long[candidates.length + 1];
+        this.nextIndex = new int[candidates.length + 1];
+        this.depth = 0;
+        this.ready = true;
+        this.hasNext = true;
+    }
+    
+    public boolean hasNext() {
+        if (!ready) {
+            advance();
+            ready = true;
+        }
+        return hasNext;
+    }
+    
+    /**
+     * @return the next subset, with bit i set for point i
+     */
+    public long next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more subsets");
+        }
+        ready = false;
+        return sets[depth];
+    }
+    
+    private void advance() {
+        while (depth >= 0) {
+            if (depth < maxSize && nextIndex[depth] < candidates.length) {
+                int index = nextIndex[depth];
+                nextIndex[depth]++;
+                long child = sets[depth] | (1L << candidates[index]);
+                if (chain.isMinimal(child)) {
+                    depth++;
+                    sets[depth] = child;
+                    nextIndex[depth] = index + 1;
+                    hasNext = true;
+                    return;
+                }
+            } else {
+                depth--;
+            }
+        }
+        hasNext = false;
+    }
+
+}
@@ -1,5 +1,6 @@
 package augmentation;
 
+import graph.model.IntEdge;
 import graph.model.IntGraph;
 import group.Permutation;
 
@@ -11,29 +12,42 @@ public class UpperObject {
 	
 	private IntGraph graph;
 	
-	private SortedSet<Integer> vertexSet;
+	/**
+	 * The vertices to connect to, with bit i set for vertex i.
+	 */
+	private long vertexMask;
 	
 	public UpperObject(IntGraph graph, int vertexIndex) {
+		this(graph, 1L << vertexIndex);
+	}
+	
+	public UpperObject(IntGraph graph, long vertexMask) {
 		this.graph = graph;
-		this.vertexSet = new TreeSet<Integer>();
-		vertexSet.add(vertexIndex);
+		this.vertexMask = vertexMask;
 	}
 	
 	public UpperObject(IntGraph graph, SortedSet<Integer> vertexSet) {
-		this.graph = graph;
-		this.vertexSet = vertexSet;
+		this(graph, toMask(vertexSet));
 	}
 	
 	public UpperObject(IntGraph graph, List<Integer> vertexSet) {
-		this(graph, new TreeSet<Integer>(vertexSet));
+		this(graph, toMask(vertexSet));
+	}
+	
+	private static long toMask(Iterable<Integer> vertices) {
+		long mask = 0;
+		for (int vertex : vertices) {
+			mask |= 1L << vertex;
+		}
+		return mask;
 	}
 	
 	public UpperObject permute(Permutation permutation) {
 		int[] p = permutation.getValues();
 		IntGraph permutedGraph = this.graph.getPermutedGraph(p);
-		SortedSet<Integer> permutedVertices = new TreeSet<Integer>();
-		for (int vertex : this.vertexSet) {
-			permutedVertices.add(p[vertex]);
+		long permutedVertices = 0;
+		for (long rest = vertexMask; rest != 0; rest &= rest - 1) {
+			permutedVertices |= 1L << p[Long.numberOfTrailingZeros(rest)];
 		}
 		return new UpperObject(permutedGraph, permutedVertices);
 	}
@@ -42,24 +56,54 @@ public class UpperObject {
 		return this.graph;
 	}
 	
+	public long getVertexMask() {
+		return this.vertexMask;
+	}
+	
 	public SortedSet<Integer> getVertices() {
-		return this.vertexSet;
+		SortedSet<Integer> vertices = new TreeSet<Integer>();
+		for (long rest = vertexMask; rest != 0; rest &= rest - 1) {
+			vertices.add(Long.numberOfTrailingZeros(rest));
+		}
+		return vertices;
 	}
 
+	/**
+	 * The hash of the vertex set and of the edges, taken in any order.
+	 */
 	public int hashCode() {
-		return this.toString().hashCode();
+		long hash = vertexMask;
+		for (IntEdge e : graph.edges) {
+			long a = Math.min(e.a, e.b);
+			long b = Math.max(e.a, e.b);
+			hash += ((a << 32) | b) * 0x9E3779B97F4A7C15L;
+		}
+		return (int) (hash ^ (hash >>> 32));
 	}
 	
 	public boolean equals(Object other) {
 		if (other instanceof UpperObject) {
-			return ((UpperObject)other).toString().equals(this.toString());
+			UpperObject o = (UpperObject) other;
+			return o.vertexMask == vertexMask && (o.graph == graph || sameEdges(o.graph, graph));
 		} else {
 			return false;
 		}
 	}
 	
+	private static boolean sameEdges(IntGraph g, IntGraph h) {
+		if (g.getVertexCount() != h.getVertexCount() || g.edges.size() != h.edges.size()) {
+			return false;
+		}
+		for (IntEdge e : g.edges) {
+			if (!h.isConnected(e.a, e.b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	public String toString() {
-		return "<" + graph.getSortedEdgeString() + ", " + vertexSet + ">";
+		return "<" + graph.getSortedEdgeString() + ", " + getVertices() + ">";
 	}
 
 }
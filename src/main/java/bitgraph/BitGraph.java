@@ -0,0 +1,282 @@
+package bitgraph;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * A mutable simple graph on at most 64 vertices, stored as one adjacency bitset (a long) 
+ * per vertex. Edges are added and removed in constant time, and every change is recorded 
+ * on an undo stack so that a generator can extend a single working graph and backtrack, 
+ * rather than copying a graph for each child.
+ * 
+ * The generators do not use it yet : their handlers, extension steps and canonical checks
+ * all take an IntGraph, so each child would still have to be converted back. For now it is
+ * the input to {@link canon.BitsetLabeller#label(BitGraph)}, which reads its rows directly.
+ */
+public class BitGraph {
+    
+    public static final int MAX_VERTICES = 64;
+    
+    private static final int ADD_EDGE = 0;
+    
+    private static final int REMOVE_EDGE = 1;
+    
+    private static final int ADD_VERTEX = 2;
+    
+    /**
+     * Row i has bit j set if there is an edge i-j.
+     */
+    private final long[] rows;
+    
+    private final int[] degrees;
+    
+    private int vertexCount;
+    
+    private int edgeCount;
+    
+    /**
+     * Each change is packed into an int as (type << 12) | (a << 6) | b.
+     */
+    private int[] undoStack;
+    
+    private int undoSize;
+    
+    public BitGraph() {
+        this(0);
+    }
+    
+    public BitGraph(int vertexCount) {
+        if (vertexCount > MAX_VERTICES) {
+            throw new IllegalArgumentException("At most " + MAX_VERTICES + " vertices");
+        }
+        this.rows = new long[MAX_VERTICES];
+        this.degrees = new int[MAX_VERTICES];
+        this.vertexCount = vertexCount;
+        this.edgeCount = 0;
+        this.undoStack = new int[32];
+        this.undoSize = 0;
+    }
+    
+    /**
+     * Copy the edges of another graph, but not its undo history.
+     */
+    public BitGraph(BitGraph other) {
+        this.rows = Arrays.copyOf(other.rows, MAX_VERTICES);
+        this.degrees = Arrays.copyOf(other.degrees, MAX_VERTICES);
+        this.vertexCount = other.vertexCount;
+        this.edgeCount = other.edgeCount;
+        this.undoStack = new int[32];
+        this.undoSize = 0;
+    }
+    
+    public static BitGraph fromIntGraph(IntGraph g) {
+        BitGraph b = new BitGraph(g.getVertexCount());
+        for (IntEdge e : g.edges) {
+            if (e.a != e.b && !b.hasEdge(e.a, e.b)) {
+                b.setEdge(e.a, e.b);
+            }
+        }
+        return b;
+    }
+    
+    /**
+     * @return an IntGraph with the edges of this graph, in sorted order, and with the 
+     * same number of vertices - including any isolated vertices at the end
+     */
+    public IntGraph toIntGraph() {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < vertexCount; i++) {
+            long higher = rows[i] & (-1L << i);
+            for (long r = higher; r != 0; r &= r - 1) {
+                g.makeEdge(i, Long.numberOfTrailingZeros(r));
+            }
+        }
+        while (g.getVertexCount() < vertexCount) {
+            g.makeIsolatedVertex();
+        }
+        return g;
+    }
+    
+    public int getVertexCount() {
+        return vertexCount;
+    }
+    
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+    
+    public boolean hasEdge(int a, int b) {
+        return (rows[a] & (1L << b)) != 0;
+    }
+    
+    public int degree(int v) {
+        return degrees[v];
+    }
+    
+    /**
+     * @return the neighbours of v, as a bitset
+     */
+    public long getRow(int v) {
+        return rows[v];
+    }
+    
+    /**
+     * @return the bitset with one bit for each vertex of the graph
+     */
+    public long getVertexMask() {
+        return (vertexCount == MAX_VERTICES)? -1L : (1L << vertexCount) - 1;
+    }
+    
+    public void addEdge(int a, int b) {
+        if (a == b || hasEdge(a, b)) {
+            throw new IllegalArgumentException("Cannot add edge " + a + ":" + b);
+        }
+        int max = Math.max(a, b);
+        while (vertexCount <= max) {
+            addVertex();
+        }
+        setEdge(a, b);
+        push(ADD_EDGE, a, b);
+    }
+    
+    public void removeEdge(int a, int b) {
+        if (!hasEdge(a, b)) {
+            throw new IllegalArgumentException("No edge " + a + ":" + b);
+        }
+        clearEdge(a, b);
+        push(REMOVE_EDGE, a, b);
+    }
+    
+    /**
+     * Add an isolated vertex, with the next free index.
+     * 
+     * @return the index of the new vertex
+     */
+    public int addVertex() {
+        if (vertexCount == MAX_VERTICES) {
+            throw new IllegalStateException("At most " + MAX_VERTICES + " vertices");
+        }
+        int v = vertexCount;
+        vertexCount++;
+        push(ADD_VERTEX, v, 0);
+        return v;
+    }
+    
+    /**
+     * @return a mark that can be passed to {@link #undoTo(int)}
+     */
+    public int mark() {
+        return undoSize;
+    }
+    
+    /**
+     * Undo the last change - an added or removed edge, or an added vertex.
+     */
+    public void undo() {
+        undoSize--;
+        int op = undoStack[undoSize];
+        int type = op >>> 12;
+        int a = (op >>> 6) & 63;
+        int b = op & 63;
+        if (type == ADD_EDGE) {
+            clearEdge(a, b);
+        } else if (type == REMOVE_EDGE) {
+            setEdge(a, b);
+        } else {
+            vertexCount--;
+        }
+    }
+    
+    /**
+     * Undo all changes made since the mark was taken.
+     */
+    public void undoTo(int mark) {
+        while (undoSize > mark) {
+            undo();
+        }
+    }
+    
+    public boolean isConnected() {
+        if (vertexCount == 0) {
+            return true;
+        }
+        long all = getVertexMask();
+        long seen = 1L;
+        long frontier = 1L;
+        while (frontier != 0) {
+            long next = 0;
+            for (long f = frontier; f != 0; f &= f - 1) {
+                next |= rows[Long.numberOfTrailingZeros(f)];
+            }
+            frontier = next & ~seen;
+            seen |= frontier;
+        }
+        return seen == all;
+    }
+    
+    private void setEdge(int a, int b) {
+        rows[a] |= 1L << b;
+        rows[b] |= 1L << a;
+        degrees[a]++;
+        degrees[b]++;
+        edgeCount++;
+    }
+    
+    private void clearEdge(int a, int b) {
+        rows[a] &= ~(1L << b);
+        rows[b] &= ~(1L << a);
+        degrees[a]--;
+        degrees[b]--;
+        edgeCount--;
+    }
+    
+    private void push(int type, int a, int b) {
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+        }
+        undoStack[undoSize] = (type << 12) | (a << 6) | b;
+        undoSize++;
+    }
+    
+    public boolean equals(Object o) {
+        if (o instanceof BitGraph) {
+            BitGraph other = (BitGraph) o;
+            if (other.vertexCount != vertexCount) {
+                return false;
+            }
+            for (int i = 0; i < vertexCount; i++) {
+                if (rows[i] != other.rows[i]) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
+    public int hashCode() {
+        long h = vertexCount;
+        for (int i = 0; i < vertexCount; i++) {
+            h = h * 31 + rows[i];
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    public String toString() {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < vertexCount; i++) {
+            long higher = rows[i] & (-1L << i);
+            for (long r = higher; r != 0; r &= r - 1) {
+                if (buffer.length() > 0) {
+                    buffer.append(',');
+                }
+                buffer.append(i).append(':').append(Long.numberOfTrailingZeros(r));
+            }
+        }
+        return "[" + buffer + "]";
+    }
+
+}
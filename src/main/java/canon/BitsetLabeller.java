@@ -0,0 +1,527 @@
+package canon;
+
+import bitgraph.BitGraph;
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A canonical labelling engine in the style of nauty, for graphs with at most 64 vertices.
+ *
+ * The search tree is built by individualizing each vertex of the first non-singleton cell
+ * and refining to an equitable partition, with the adjacency rows held as bitsets so that
+ * the neighbour counts during refinement are popcounts. Leaves are compared by their
+ * permuted adjacency rows; a leaf equal to the first or the best leaf gives an automorphism,
+ * and the search jumps back to the node where the two paths diverged. Children that are
+ * in the same orbit as an explored sibling - under the automorphisms found so far that
+ * fix the path to their parent - are pruned.
+ *
+ * All work arrays are allocated once, so a labeller should be reused, but not shared
+ * between threads.
+ */
+public class BitsetLabeller implements CanonicalLabeller {
+
+    private static final int MAX = BitGraph.MAX_VERTICES;
+
+    private int n;
+
+    private final long[] rows;
+
+    /**
+     * The ordered partition at each level of the search, as a list of vertices and a
+     * flag for each position that ends a cell.
+     */
+    private final int[][] labs;
+
+    private final boolean[][] ends;
+
+    /**
+     * The vertices individualized on the way to the current node.
+     */
+    private final int[] path;
+
+    private final int[] firstPath;
+
+    private int firstDepth;
+
+    private final int[] bestPath;
+
+    private int bestDepth;
+
+    private final int[] firstLeaf;
+
+    private final int[] bestLeaf;
+
+    private final long[] firstCert;
+
+    private final long[] bestCert;
+
+    private final long[] leafCert;
+
+    private boolean hasFirst;
+
+    private final List<int[]> generators;
+
+    /**
+     * The children explored at each level, used for orbit pruning.
+     */
+    private final int[][] explored;
+
+    private final int[] unionFind;
+
+    private final int[] inverse;
+
+    private final int[] queue;
+
+    private final boolean[] inQueue;
+
+    private final int[] counts;
+
+    private final int[] colourOrder;
+
+    public BitsetLabeller() {
+        rows = new long[MAX];
+        labs = new int[MAX + 1][MAX];
+        ends = new boolean[MAX + 1][MAX];
+        path = new int[MAX];
+        firstPath = new int[MAX];
+        bestPath = new int[MAX];
+        firstLeaf = new int[MAX];
+        bestLeaf = new int[MAX];
+        firstCert = new long[MAX];
+        bestCert = new long[MAX];
+        leafCert = new long[MAX];
+        generators = new ArrayList<int[]>();
+        explored = new int[MAX + 1][MAX];
+        unionFind = new int[MAX];
+        inverse = new int[MAX];
+        queue = new int[MAX];
+        inQueue = new boolean[MAX];
+        counts = new int[MAX];
+        colourOrder = new int[MAX];
+    }
+
+    @Override
+    public Labelling label(IntGraph g) {
+        int vertexCount = g.getVertexCount();
+        if (vertexCount > MAX) {
+            throw new IllegalArgumentException("At most " + MAX + " vertices, not " + vertexCount);
+        }
+        setRows(g, vertexCount);
+        return run(null);
+    }
+
+    public Labelling label(BitGraph g) {
+        return label(g, null);
+    }
+
+    /**
+     * Label a vertex-coloured graph; automorphisms and the canonical form respect the colours.
+     *
+     * @param g the graph to label
+     * @param colours the colour of each vertex, or null for an uncoloured graph
+     * @return the canonical labelling of the coloured graph
+     */
+    public Labelling label(BitGraph g, int[] colours) {
+        n = g.getVertexCount();
+        for (int i = 0; i < n; i++) {
+            rows[i] = g.getRow(i);
+        }
+        return run(colours);
+    }
+
+    @Override
+    public boolean isCanonical(IntGraph g) {
+        return label(g).isCanonical();
+    }
+
+    private void setRows(IntGraph g, int vertexCount) {
+        n = vertexCount;
+        Arrays.fill(rows, 0, n, 0L);
+        for (IntEdge e : g.edges) {
+            if (e.a != e.b) {
+                rows[e.a] |= 1L << e.b;
+                rows[e.b] |= 1L << e.a;
+            }
+        }
+    }
+
+    private Labelling run(int[] colours) {
+        hasFirst = false;
+        generators.clear();
+        if (n == 0) {
+            return new Labelling(new int[0], new long[0], new int[0], new ArrayList<int[]>(), true);
+        }
+        setInitialPartition(colours);
+        search(0);
+
+        int[] best = Arrays.copyOf(bestLeaf, n);
+        long[] canonicalRows = Arrays.copyOf(bestCert, n);
+        boolean isCanonical = true;
+        for (int i = 0; i < n; i++) {
+            if (rows[i] != canonicalRows[i]) {
+                isCanonical = false;
+                break;
+            }
+        }
+        if (isCanonical && colours != null) {
+            for (int i = 0; i < n; i++) {
+                if (colours[best[i]] != colours[i]) {
+                    isCanonical = false;
+                    break;
+                }
+            }
+        }
+        return new Labelling(best, canonicalRows, getOrbits(), new ArrayList<int[]>(generators), isCanonical);
+    }
+
+    private void setInitialPartition(int[] colours) {
+        int[] lab = labs[0];
+        boolean[] end = ends[0];
+        for (int i = 0; i < n; i++) {
+            lab[i] = i;
+            end[i] = false;
+        }
+        int head = 0;
+        int tail = 0;
+        if (colours == null) {
+            end[n - 1] = true;
+            queue[tail++] = 0;
+            inQueue[0] = true;
+        } else {
+            // sort by colour, then cut wherever the colour changes
+            for (int i = 0; i < n; i++) {
+                colourOrder[i] = colours[i];
+            }
+            for (int i = 1; i < n; i++) {
+                int v = lab[i];
+                int c = colourOrder[v];
+                int j = i - 1;
+                while (j >= 0 && colourOrder[lab[j]] > c) {
+                    lab[j + 1] = lab[j];
+                    j--;
+                }
+                lab[j + 1] = v;
+            }
+            for (int i = 0; i < n; i++) {
+                if (i == n - 1 || colourOrder[lab[i]] != colourOrder[lab[i + 1]]) {
+                    end[i] = true;
+                }
+                if (i == 0 || end[i - 1]) {
+                    queue[tail++] = i;
+                    inQueue[i] = true;
+                }
+            }
+        }
+        refine(lab, end, head, tail);
+    }
+
+    /**
+     * Search the subtree below the node at this level.
+     *
+     * @return the level of the node to return to
+     */
+    private int search(int level) {
+        int[] lab = labs[level];
+        boolean[] end = ends[level];
+        int target = -1;
+        int targetEnd = -1;
+        for (int i = 0; i < n; i++) {
+            int start = i;
+            while (!end[i]) {
+                i++;
+            }
+            if (i > start) {
+                target = start;
+                targetEnd = i;
+                break;
+            }
+        }
+        if (target == -1) {
+            return leaf(level);
+        }
+
+        int exploredCount = 0;
+        for (int i = target; i <= targetEnd; i++) {
+            int v = lab[i];
+            if (isEquivalentToExplored(v, level, exploredCount)) {
+                continue;
+            }
+            explored[level][exploredCount] = v;
+            exploredCount++;
+            path[level] = v;
+            individualize(level, target, targetEnd, v);
+            int jump = search(level + 1);
+            if (jump < level) {
+                return jump;
+            }
+        }
+        return level;
+    }
+
+    private void individualize(int level, int target, int targetEnd, int v) {
+        int[] lab = labs[level + 1];
+        boolean[] end = ends[level + 1];
+        System.arraycopy(labs[level], 0, lab, 0, n);
+        System.arraycopy(ends[level], 0, end, 0, n);
+        for (int i = target; i <= targetEnd; i++) {
+            if (lab[i] == v) {
+                lab[i] = lab[target];
+                lab[target] = v;
+                break;
+            }
+        }
+        end[target] = true;
+        queue[0] = target;
+        inQueue[target] = true;
+        refine(lab, end, 0, 1);
+    }
+
+    /**
+     * Refine the partition until it is equitable, splitting cells by the number of
+     * neighbours each vertex has in the splitting cells on the queue.
+     */
+    private void refine(int[] lab, boolean[] end, int head, int tail) {
+        while (head < tail) {
+            int splitter = queue[head % MAX];
+            head++;
+            inQueue[splitter] = false;
+            long mask = 0;
+            for (int i = splitter; ; i++) {
+                mask |= 1L << lab[i];
+                if (end[i]) {
+                    break;
+                }
+            }
+            int cellStart = 0;
+            while (cellStart < n) {
+                int cellEnd = cellStart;
+                while (!end[cellEnd]) {
+                    cellEnd++;
+                }
+                if (cellEnd > cellStart) {
+                    tail = split(lab, end, cellStart, cellEnd, mask, tail);
+                }
+                cellStart = cellEnd + 1;
+            }
+        }
+    }
+
+    /**
+     * Split a cell by the number of neighbours in the mask, ordering the fragments by
+     * increasing count. New fragments go on the queue - all of them if the cell was
+     * already waiting to be used as a splitter, otherwise all but the (first) largest.
+     *
+     * @return the new tail of the queue
+     */
+    private int split(int[] lab, boolean[] end, int start, int finish, long mask, int tail) {
+        boolean allSame = true;
+        for (int i = start; i <= finish; i++) {
+            counts[i] = Long.bitCount(rows[lab[i]] & mask);
+            if (counts[i] != counts[start]) {
+                allSame = false;
+            }
+        }
+        if (allSame) {
+            return tail;
+        }
+
+        for (int i = start + 1; i <= finish; i++) {
+            int v = lab[i];
+            int c = counts[i];
+            int j = i - 1;
+            while (j >= start && counts[j] > c) {
+                lab[j + 1] = lab[j];
+                counts[j + 1] = counts[j];
+                j--;
+            }
+            lab[j + 1] = v;
+            counts[j + 1] = c;
+        }
+
+        boolean wasQueued = inQueue[start];
+        int largestStart = start;
+        int largestSize = 0;
+        int fragmentStart = start;
+        for (int i = start; i <= finish; i++) {
+            if (i == finish || counts[i] != counts[i + 1]) {
+                end[i] = true;
+                int size = i - fragmentStart + 1;
+                if (size > largestSize) {
+                    largestSize = size;
+                    largestStart = fragmentStart;
+                }
+                fragmentStart = i + 1;
+            }
+        }
+        fragmentStart = start;
+        for (int i = start; i <= finish; i++) {
+            if (end[i]) {
+                if (!inQueue[fragmentStart] && (wasQueued || fragmentStart != largestStart)) {
+                    queue[tail % MAX] = fragmentStart;
+                    inQueue[fragmentStart] = true;
+                    tail++;
+                }
+                fragmentStart = i + 1;
+            }
+        }
+        return tail;
+    }
+
+    private int leaf(int level) {
+        int[] lab = labs[level];
+        makeCertificate(lab, leafCert);
+        if (!hasFirst) {
+            hasFirst = true;
+            System.arraycopy(lab, 0, firstLeaf, 0, n);
+            System.arraycopy(lab, 0, bestLeaf, 0, n);
+            System.arraycopy(leafCert, 0, firstCert, 0, n);
+            System.arraycopy(leafCert, 0, bestCert, 0, n);
+            System.arraycopy(path, 0, firstPath, 0, level);
+            System.arraycopy(path, 0, bestPath, 0, level);
+            firstDepth = level;
+            bestDepth = level;
+            return level;
+        }
+        if (compare(leafCert, firstCert) == 0) {
+            addAutomorphism(firstLeaf, lab);
+            return commonPrefix(firstPath, firstDepth, level);
+        }
+        int comparison = compare(leafCert, bestCert);
+        if (comparison == 0) {
+            addAutomorphism(bestLeaf, lab);
+            return commonPrefix(bestPath, bestDepth, level);
+        } else if (comparison > 0) {
+            System.arraycopy(lab, 0, bestLeaf, 0, n);
+            System.arraycopy(leafCert, 0, bestCert, 0, n);
+            System.arraycopy(path, 0, bestPath, 0, level);
+            bestDepth = level;
+        }
+        return level;
+    }
+
+    private int commonPrefix(int[] otherPath, int otherDepth, int level) {
+        int max = Math.min(otherDepth, level);
+        int i = 0;
+        while (i < max && otherPath[i] == path[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * The leaves lab and other have the same certificate, so mapping other[i] to lab[i]
+     * is an automorphism.
+     */
+    private void addAutomorphism(int[] other, int[] lab) {
+        int[] generator = new int[n];
+        for (int i = 0; i < n; i++) {
+            generator[other[i]] = lab[i];
+        }
+        generators.add(generator);
+    }
+
+    private void makeCertificate(int[] lab, long[] cert) {
+        for (int i = 0; i < n; i++) {
+            inverse[lab[i]] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            long row = 0;
+            for (long r = rows[lab[i]]; r != 0; r &= r - 1) {
+                row |= 1L << inverse[Long.numberOfTrailingZeros(r)];
+            }
+            cert[i] = row;
+        }
+    }
+
+    private int compare(long[] certA, long[] certB) {
+        for (int i = 0; i < n; i++) {
+            if (certA[i] != certB[i]) {
+                return Long.compareUnsigned(certA[i], certB[i]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Check v against the children already explored at this level, using the
+     * automorphisms found so far that fix every vertex on the path to this node.
+     */
+    private boolean isEquivalentToExplored(int v, int level, int exploredCount) {
+        if (exploredCount == 0 || generators.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            unionFind[i] = i;
+        }
+        boolean anyUsable = false;
+        for (int[] generator : generators) {
+            if (fixesPath(generator, level)) {
+                anyUsable = true;
+                for (int i = 0; i < n; i++) {
+                    union(i, generator[i]);
+                }
+            }
+        }
+        if (!anyUsable) {
+            return false;
+        }
+        int root = find(v);
+        for (int i = 0; i < exploredCount; i++) {
+            if (find(explored[level][i]) == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fixesPath(int[] generator, int level) {
+        for (int i = 0; i < level; i++) {
+            if (generator[path[i]] != path[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] getOrbits() {
+        for (int i = 0; i < n; i++) {
+            unionFind[i] = i;
+        }
+        for (int[] generator : generators) {
+            for (int i = 0; i < n; i++) {
+                union(i, generator[i]);
+            }
+        }
+        int[] orbits = new int[n];
+        for (int i = 0; i < n; i++) {
+            orbits[i] = find(i);
+        }
+        return orbits;
+    }
+
+    /**
+     * Union by keeping the smaller root, so that each root is the minimum of its set.
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            unionFind[rootB] = rootA;
+        } else if (rootB < rootA) {
+            unionFind[rootA] = rootB;
+        }
+    }
+
+    private int find(int a) {
+        while (unionFind[a] != a) {
+            unionFind[a] = unionFind[unionFind[a]];
+            a = unionFind[a];
+        }
+        return a;
+    }
+
+}
@@ -0,0 +1,22 @@
+package canon;
+
+import graph.model.IntGraph;
+
+/**
+ * An engine that computes a canonical labelling and automorphism group of a graph.
+ */
+public interface CanonicalLabeller {
+    
+    /**
+     * @param g the graph to label
+     * @return the canonical labelling, orbits and automorphism group of g
+     */
+    public Labelling label(IntGraph g);
+    
+    /**
+     * @param g the graph to test
+     * @return true if g is already in the canonical form given by this engine
+     */
+    public boolean isCanonical(IntGraph g);
+
+}
@@ -0,0 +1,70 @@
+package canon;
+
+import bitgraph.BitGraph;
+
+/**
+ * Chooses the canonical labelling engine used by the generators. The engine is read from 
+ * the system property <code>canon.engine</code> ("refiner" or "native"), and defaults to 
+ * the refiner; it can also be set for a run with {@link #setEngine(Engine)}.
+ * 
+ * Labellers hold work arrays, so each thread gets its own.
+ */
+public class CanonicalLabellers {
+    
+    public enum Engine { REFINER, NATIVE }
+    
+    public static final String ENGINE_PROPERTY = "canon.engine";
+    
+    private static volatile Engine engine = 
+            Engine.valueOf(System.getProperty(ENGINE_PROPERTY, "refiner").toUpperCase());
+    
+    private static final ThreadLocal<CanonicalLabeller> labellers = new ThreadLocal<CanonicalLabeller>();
+    
+    public static Engine getEngine() {
+        return engine;
+    }
+    
+    public static void setEngine(Engine engine) {
+        CanonicalLabellers.engine = engine;
+    }
+    
+    public static CanonicalLabeller make(Engine engine) {
+        switch (engine) {
+            case NATIVE: return new BitsetLabeller();
+            case REFINER:
+            default: return new RefinerLabeller();
+        }
+    }
+    
+    /**
+     * @return the labeller for the current engine, owned by the calling thread
+     */
+    public static CanonicalLabeller get() {
+        CanonicalLabeller labeller = labellers.get();
+        if (labeller == null || !isEngine(labeller, engine)) {
+            labeller = make(engine);
+            labellers.set(labeller);
+        }
+        return labeller;
+    }
+    
+    /**
+     * @return the labeller for the current engine, or the refiner for graphs too big 
+     * for the native engine
+     */
+    public static CanonicalLabeller get(int vertexCount) {
+        if (vertexCount > BitGraph.MAX_VERTICES && engine == Engine.NATIVE) {
+            return new RefinerLabeller();
+        }
+        return get();
+    }
+    
+    private static boolean isEngine(CanonicalLabeller labeller, Engine engine) {
+        if (engine == Engine.NATIVE) {
+            return labeller instanceof BitsetLabeller;
+        } else {
+            return labeller instanceof RefinerLabeller;
+        }
+    }
+
+}
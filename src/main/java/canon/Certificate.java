@@ -0,0 +1,190 @@
+package canon;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * A canonical form of a simple graph, packed as bits : the pair i &lt; j of the canonical 
+ * labelling is bit j(j - 1)/2 + i, so graphs with the same number of vertices have 
+ * certificates of the same width. Two graphs are isomorphic exactly when their 
+ * certificates are equal, and the hash is worked out once, when the certificate is made.
+ * 
+ * Loops and repeated edges are not part of the certificate.
+ */
+public final class Certificate implements Comparable<Certificate> {
+    
+    private final int vertexCount;
+    
+    private final long[] words;
+    
+    private final long hash;
+    
+    public Certificate(int vertexCount, long[] words) {
+        this.vertexCount = vertexCount;
+        this.words = words;
+        this.hash = makeHash(vertexCount, words);
+    }
+    
+    /**
+     * Label a graph with the current engine, and make its certificate.
+     */
+    public static Certificate of(IntGraph g) {
+        return fromLabelling(g, CanonicalLabellers.get(g.getVertexCount()).label(g));
+    }
+    
+    public static Certificate fromLabelling(IntGraph g, Labelling labelling) {
+        int n = labelling.getVertexCount();
+        long[] rows = labelling.getCanonicalRows();
+        if (rows != null) {
+            return fromRows(n, rows);
+        }
+        int[] labels = labelling.getLabels();
+        long[] words = new long[wordCount(n)];
+        for (IntEdge e : g.edges) {
+            if (e.a != e.b) {
+                setBit(words, labels[e.a], labels[e.b]);
+            }
+        }
+        return new Certificate(n, words);
+    }
+    
+    /**
+     * Pack the rows of a canonical adjacency matrix, for at most 64 vertices.
+     */
+    public static Certificate fromRows(int n, long[] rows) {
+        long[] words = new long[wordCount(n)];
+        for (int j = 1; j < n; j++) {
+            long lower = rows[j] & ((1L << j) - 1);
+            for (long bits = lower; bits != 0; bits &= bits - 1) {
+                setBit(words, Long.numberOfTrailingZeros(bits), j);
+            }
+        }
+        return new Certificate(n, words);
+    }
+    
+    public static int wordCount(int n) {
+        long bits = (long) n * (n - 1) / 2;
+        return (int) ((bits + 63) / 64);
+    }
+    
+    private static long bitIndex(int a, int b) {
+        int i = Math.min(a, b);
+        int j = Math.max(a, b);
+        return (long) j * (j - 1) / 2 + i;
+    }
+    
+    private static void setBit(long[] words, int a, int b) {
+        long index = bitIndex(a, b);
+        words[(int) (index >>> 6)] |= 1L << (index & 63);
+    }
+    
+    private static long makeHash(int n, long[] words) {
+        long h = n * 0x9E3779B97F4A7C15L;
+        for (long word : words) {
+            h = mix(h ^ word);
+        }
+        return mix(h);
+    }
+    
+    /**
+     * The finalizer from MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    public int getVertexCount() {
+        return vertexCount;
+    }
+    
+    public long[] getWords() {
+        return words;
+    }
+    
+    public long longHash() {
+        return hash;
+    }
+    
+    public boolean hasEdge(int a, int b) {
+        if (a == b) {
+            return false;
+        }
+        long index = bitIndex(a, b);
+        return (words[(int) (index >>> 6)] & (1L << (index & 63))) != 0;
+    }
+    
+    /**
+     * @return the canonical form of the graph, with its edges in order
+     */
+    public IntGraph toGraph() {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < vertexCount; i++) {
+            for (int j = i + 1; j < vertexCount; j++) {
+                if (hasEdge(i, j)) {
+                    g.makeEdge(i, j);
+                }
+            }
+        }
+        while (g.getVertexCount() < vertexCount) {
+            g.makeIsolatedVertex();
+        }
+        return g;
+    }
+    
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Certificate)) {
+            return false;
+        }
+        Certificate other = (Certificate) o;
+        return hash == other.hash 
+            && vertexCount == other.vertexCount 
+            && Arrays.equals(words, other.words);
+    }
+    
+    /**
+     * Order by the number of vertices, then by the words taken as unsigned numbers.
+     */
+    @Override
+    public int compareTo(Certificate other) {
+        if (vertexCount != other.vertexCount) {
+            return vertexCount < other.vertexCount? -1 : 1;
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != other.words[i]) {
+                return Long.compareUnsigned(words[i], other.words[i]);
+            }
+        }
+        return 0;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append(vertexCount).append(':');
+        for (long word : words) {
+            String hex = Long.toHexString(word);
+            for (int i = hex.length(); i < 16; i++) {
+                buffer.append('0');
+            }
+            buffer.append(hex);
+        }
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,323 @@
+package canon;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An open-addressing hash table from certificates to counts, kept off the heap.
+ *
+ * Each slot is a run of longs - the hash, the count, then the words of the certificate -
+ * stored in direct buffers or, to spill to disk, in memory-mapped files. All the
+ * certificates in a table have the same number of vertices, so the slots have a fixed
+ * width. When the table is half full a table of twice the size is made, and the entries
+ * are moved across a few slots at a time on each later add, so that no single add has to
+ * pay for the whole resize.
+ */
+public class CertificateTable {
+
+    public interface Visitor {
+
+        public void visit(Certificate certificate, long count);
+
+    }
+
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /**
+     * The number of slots of the old table moved across on each add during a resize.
+     */
+    private static final int MIGRATE_STEP = 8;
+
+    private final int vertexCount;
+
+    private final int wordCount;
+
+    private final int slotLongs;
+
+    private final File spillDirectory;
+
+    private Slots table;
+
+    private Slots old;
+
+    private long migrateIndex;
+
+    private long size;
+
+    private long total;
+
+    public CertificateTable(int vertexCount) {
+        this(vertexCount, DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * @param vertexCount the number of vertices of every certificate in the table
+     * @param initialCapacity the number of slots to start with, rounded up to a power of two
+     * @param spillDirectory a directory for memory-mapped files, or null to use direct memory
+     */
+    public CertificateTable(int vertexCount, long initialCapacity, File spillDirectory) {
+        this.vertexCount = vertexCount;
+        this.wordCount = Certificate.wordCount(vertexCount);
+        this.slotLongs = 2 + wordCount;
+        this.spillDirectory = spillDirectory;
+        long capacity = Long.highestOneBit(Math.max(2, initialCapacity - 1)) << 1;
+        this.table = new Slots(capacity);
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return the number of different certificates
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of certificates added, counting repeats
+     */
+    public long total() {
+        return total;
+    }
+
+    public long capacity() {
+        return table.capacity;
+    }
+
+    /**
+     * Add one to the count for a certificate.
+     *
+     * @return the new count, so 1 the first time a certificate is seen
+     */
+    public long add(Certificate certificate) {
+        if (certificate.getVertexCount() != vertexCount) {
+            throw new IllegalArgumentException(
+                    "Certificate for " + certificate.getVertexCount() + " vertices in table for " + vertexCount);
+        }
+        total++;
+        migrate(MIGRATE_STEP);
+        long hash = storedHash(certificate);
+        long[] words = certificate.getWords();
+        long slot = table.find(hash, words);
+        if (table.getHash(slot) != 0) {
+            return table.increment(slot);
+        }
+        if (old != null) {
+            long oldSlot = old.find(hash, words);
+            if (old.getHash(oldSlot) != 0) {
+                return old.increment(oldSlot);
+            }
+        }
+        if (2 * (size + 1) > table.capacity) {
+            grow();
+            slot = table.find(hash, words);
+        }
+        table.put(slot, hash, 1, words);
+        size++;
+        return 1;
+    }
+
+    public long count(Certificate certificate) {
+        if (certificate.getVertexCount() != vertexCount) {
+            return 0;
+        }
+        long hash = storedHash(certificate);
+        long[] words = certificate.getWords();
+        long slot = table.find(hash, words);
+        if (table.getHash(slot) != 0) {
+            return table.getCount(slot);
+        }
+        if (old != null) {
+            long oldSlot = old.find(hash, words);
+            if (old.getHash(oldSlot) != 0) {
+                return old.getCount(oldSlot);
+            }
+        }
+        return 0;
+    }
+
+    public void visit(Visitor visitor) {
+        migrate(Long.MAX_VALUE);
+        long[] words = new long[wordCount];
+        for (long slot = 0; slot < table.capacity; slot++) {
+            if (table.getHash(slot) != 0) {
+                long[] copy = table.getWords(slot, words).clone();
+                visitor.visit(new Certificate(vertexCount, copy), table.getCount(slot));
+            }
+        }
+    }
+
+    /**
+     * Release the buffers, and delete any files they were mapped from.
+     */
+    public void close() {
+        table.close();
+        if (old != null) {
+            old.close();
+            old = null;
+        }
+    }
+
+    private long storedHash(Certificate certificate) {
+        long hash = certificate.longHash();
+        return (hash == 0)? 1 : hash;
+    }
+
+    private void grow() {
+        // finish any resize still going before starting another
+        migrate(Long.MAX_VALUE);
+        old = table;
+        table = new Slots(old.capacity * 2);
+        migrateIndex = 0;
+    }
+
+    private void migrate(long steps) {
+        if (old == null) {
+            return;
+        }
+        long[] words = new long[wordCount];
+        for (long step = 0; step < steps && migrateIndex < old.capacity; step++) {
+            long hash = old.getHash(migrateIndex);
+            if (hash != 0) {
+                old.getWords(migrateIndex, words);
+                long slot = table.find(hash, words);
+                table.put(slot, hash, old.getCount(migrateIndex), words);
+            }
+            migrateIndex++;
+        }
+        if (migrateIndex == old.capacity) {
+            old.close();
+            old = null;
+        }
+    }
+
+    /**
+     * A power-of-two number of slots, split into segments of at most 2^27 longs.
+     */
+    private class Slots {
+
+        private static final int SEGMENT_SHIFT = 27;
+
+        private final long capacity;
+
+        private final long mask;
+
+        private final List<LongBuffer> segments;
+
+        private final List<File> files;
+
+        Slots(long capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.segments = new ArrayList<LongBuffer>();
+            this.files = new ArrayList<File>();
+            long longs = capacity * slotLongs;
+            long segmentLongs = 1L << SEGMENT_SHIFT;
+            for (long start = 0; start < longs; start += segmentLongs) {
+                int length = (int) Math.min(segmentLongs, longs - start);
+                segments.add(allocate(length));
+            }
+        }
+
+        private LongBuffer allocate(int length) {
+            if (spillDirectory == null) {
+                return ByteBuffer.allocateDirect(length * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+            try {
+                File file = File.createTempFile("certificates", ".table", spillDirectory);
+                file.deleteOnExit();
+                files.add(file);
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                raf.setLength(length * 8L);
+                ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length * 8L);
+                raf.close();
+                return buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map a table file in " + spillDirectory, e);
+            }
+        }
+
+        private long get(long index) {
+            return segments.get((int) (index >>> SEGMENT_SHIFT)).get((int) (index & ((1 << SEGMENT_SHIFT) - 1)));
+        }
+
+        private void set(long index, long value) {
+            segments.get((int) (index >>> SEGMENT_SHIFT)).put((int) (index & ((1 << SEGMENT_SHIFT) - 1)), value);
+        }
+
+        long getHash(long slot) {
+            return get(slot * slotLongs);
+        }
+
+        long getCount(long slot) {
+            return get(slot * slotLongs + 1);
+        }
+
+        long increment(long slot) {
+            long count = getCount(slot) + 1;
+            set(slot * slotLongs + 1, count);
+            return count;
+        }
+
+        long[] getWords(long slot, long[] words) {
+            long base = slot * slotLongs + 2;
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = get(base + i);
+            }
+            return words;
+        }
+
+        void put(long slot, long hash, long count, long[] words) {
+            long base = slot * slotLongs;
+            set(base, hash);
+            set(base + 1, count);
+            for (int i = 0; i < wordCount; i++) {
+                set(base + 2 + i, words[i]);
+            }
+        }
+
+        /**
+         * Linear probing from the hash.
+         *
+         * @return the slot holding the certificate, or the empty slot where it would go
+         */
+        long find(long hash, long[] words) {
+            long slot = hash & mask;
+            while (true) {
+                long slotHash = getHash(slot);
+                if (slotHash == 0 || (slotHash == hash && wordsEqual(slot, words))) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private boolean wordsEqual(long slot, long[] words) {
+            long base = slot * slotLongs + 2;
+            for (int i = 0; i < wordCount; i++) {
+                if (get(base + i) != words[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void close() {
+            segments.clear();
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package canon;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+import group.AutomorphismPartitioner;
+import group.Partition;
+import group.Permutation;
+import group.PermutationGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * The result of canonically labelling a graph : the best permutation, the orbits 
+ * of the vertices under the automorphism group, and the group itself.
+ * 
+ * The best permutation maps canonical positions to vertices, so the canonical form has 
+ * an edge i:j wherever the graph has an edge best[i]:best[j].
+ * 
+ * A labelling made from a permutation group - by the {@link RefinerLabeller} - works out 
+ * the generators, orbits and canonical rows only when they are first asked for, as many 
+ * callers only want the group. The graph must not be changed until they have been.
+ */
+public class Labelling {
+    
+    private final int[] best;
+    
+    /**
+     * The labelled graph, kept until the rows are made for a labelling from a group.
+     */
+    private IntGraph graph;
+    
+    /**
+     * The rows of the adjacency matrix of the canonical form, or null for graphs with 
+     * more than 64 vertices.
+     */
+    private long[] canonicalRows;
+    
+    private boolean isCanonical;
+    
+    /**
+     * For each vertex, the smallest vertex in its orbit.
+     */
+    private int[] orbits;
+    
+    private List<int[]> generators;
+    
+    private PermutationGroup group;
+    
+    private StabiliserChain chain;
+    
+    public Labelling(int[] best, long[] canonicalRows, int[] orbits, List<int[]> generators, boolean isCanonical) {
+        this.best = best;
+        this.canonicalRows = canonicalRows;
+        this.orbits = orbits;
+        this.generators = generators;
+        this.isCanonical = isCanonical;
+    }
+    
+    public Labelling(IntGraph g, int[] best, PermutationGroup group) {
+        this.best = best;
+        this.graph = g;
+        this.group = group;
+    }
+    
+    private void makeRows() {
+        if (graph != null) {
+            if (best.length <= 64) {
+                canonicalRows = makeRows(graph, best);
+                isCanonical = isIdentityEquivalent(graph, canonicalRows);
+            }
+            graph = null;
+        }
+    }
+    
+    private static int[] makeOrbits(int n, Partition orbitPartition) {
+        int[] orbits = new int[n];
+        for (int cellIndex = 0; cellIndex < orbitPartition.size(); cellIndex++) {
+            SortedSet<Integer> cell = orbitPartition.getCell(cellIndex);
+            int first = cell.first();
+            for (int element : cell) {
+                orbits[element] = first;
+            }
+        }
+        return orbits;
+    }
+    
+    private static long[] makeRows(IntGraph g, int[] best) {
+        int n = best.length;
+        int[] labels = invert(best);
+        long[] rows = new long[n];
+        for (IntEdge e : g.edges) {
+            int a = labels[e.a];
+            int b = labels[e.b];
+            rows[a] |= 1L << b;
+            rows[b] |= 1L << a;
+        }
+        return rows;
+    }
+    
+    private static boolean isIdentityEquivalent(IntGraph g, long[] canonicalRows) {
+        long[] rows = new long[canonicalRows.length];
+        for (IntEdge e : g.edges) {
+            rows[e.a] |= 1L << e.b;
+            rows[e.b] |= 1L << e.a;
+        }
+        return Arrays.equals(rows, canonicalRows);
+    }
+    
+    private static int[] invert(int[] p) {
+        int[] inverse = new int[p.length];
+        for (int i = 0; i < p.length; i++) {
+            inverse[p[i]] = i;
+        }
+        return inverse;
+    }
+    
+    public int getVertexCount() {
+        return best.length;
+    }
+    
+    /**
+     * @return the permutation from canonical positions to vertices
+     */
+    public Permutation getBest() {
+        return new Permutation(best);
+    }
+    
+    public int[] getBestValues() {
+        return best;
+    }
+    
+    /**
+     * @return for each vertex, its position in the canonical form
+     */
+    public int[] getLabels() {
+        return invert(best);
+    }
+    
+    public long[] getCanonicalRows() {
+        makeRows();
+        return canonicalRows;
+    }
+    
+    /**
+     * @return true if the labelled graph is identical to its canonical form
+     */
+    public boolean isCanonical() {
+        makeRows();
+        return isCanonical;
+    }
+    
+    public List<int[]> getGenerators() {
+        if (generators == null) {
+            generators = new ArrayList<int[]>();
+            for (Permutation p : group.getGenerators()) {
+                generators.add(p.getValues());
+            }
+        }
+        return generators;
+    }
+    
+    public PermutationGroup getAutomorphismGroup() {
+        if (group == null) {
+            List<Permutation> permutations = new ArrayList<Permutation>();
+            for (int[] generator : getGenerators()) {
+                permutations.add(new Permutation(generator));
+            }
+            group = new PermutationGroup(best.length, permutations);
+        }
+        return group;
+    }
+    
+    public StabiliserChain getStabiliserChain() {
+        if (chain == null) {
+            chain = new StabiliserChain(best.length, getGenerators());
+        }
+        return chain;
+    }
+    
+    public int getOrbitRepresentative(int v) {
+        return getOrbits()[v];
+    }
+    
+    public boolean inSameOrbit(int a, int b) {
+        int[] orbits = getOrbits();
+        return orbits[a] == orbits[b];
+    }
+    
+    public int[] getOrbits() {
+        if (orbits == null) {
+            orbits = makeOrbits(best.length, AutomorphismPartitioner.getAutomorphismPartition(group));
+        }
+        return orbits;
+    }
+    
+    public Partition getOrbitPartition() {
+        int[] orbits = getOrbits();
+        Partition partition = new Partition();
+        int[] cellIndex = new int[orbits.length];
+        int cellCount = 0;
+        for (int v = 0; v < orbits.length; v++) {
+            if (orbits[v] == v) {
+                partition.addSingletonCell(v);
+                cellIndex[v] = cellCount;
+                cellCount++;
+            } else {
+                partition.addToCell(cellIndex[orbits[v]], v);
+            }
+        }
+        return partition;
+    }
+    
+}
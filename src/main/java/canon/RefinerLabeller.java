@@ -0,0 +1,25 @@
+package canon;
+
+import graph.group.GraphDiscretePartitionRefiner;
+import graph.model.IntGraph;
+import group.PermutationGroup;
+
+/**
+ * Labels graphs with the {@link GraphDiscretePartitionRefiner}, as the generators always have. 
+ */
+public class RefinerLabeller implements CanonicalLabeller {
+
+    @Override
+    public Labelling label(IntGraph g) {
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        PermutationGroup autG = refiner.getAutomorphismGroup(g);
+        return new Labelling(g, refiner.getBest().getValues(), autG);
+    }
+
+    @Override
+    public boolean isCanonical(IntGraph g) {
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        return refiner.isCanonical(g);
+    }
+
+}
@@ -0,0 +1,425 @@
+package canon;
+
+import group.Permutation;
+import group.PermutationGroup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Orbits and stabilisers of a permutation group, worked out from its generators without
+ * listing the elements of the group.
+ *
+ * Vertex and pair orbits come straight from the generators. For the subset tests the
+ * generators are extended to a Schreier-Sims table with the base 0, 1, ..., n - 1, so
+ * that the transversal at level i holds, for each point x in the orbit of i under the
+ * stabiliser of 0..i - 1, an element of that stabiliser that maps i to x. Every element
+ * of the group is then a product u<sub>0</sub>u<sub>1</sub>...u<sub>n-1</sub> of one
+ * transversal element from each level, and a backtrack over the levels can stop as soon
+ * as a prefix of the product decides the question.
+ */
+public class StabiliserChain {
+
+    private final int n;
+
+    private final List<int[]> generators;
+
+    /**
+     * The transversals : table[i][x] maps i to x and fixes 0..i - 1, or is null.
+     */
+    private int[][][] table;
+
+    private int[] orbits;
+
+    /**
+     * Scratch space for the minimality search : the set, and a product for each level.
+     */
+    private boolean[] inSet;
+
+    private int[][] prefixes;
+
+    public StabiliserChain(int n, List<int[]> generators) {
+        this.n = n;
+        this.generators = generators;
+    }
+
+    public static StabiliserChain fromGroup(PermutationGroup group) {
+        List<int[]> generators = new ArrayList<int[]>();
+        for (Permutation p : group.getGenerators()) {
+            generators.add(p.getValues());
+        }
+        return new StabiliserChain(group.getSize(), generators);
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    public List<int[]> getGenerators() {
+        return generators;
+    }
+
+    /**
+     * @return for each point, the smallest point in its orbit
+     */
+    public int[] getOrbits() {
+        if (orbits == null) {
+            orbits = new int[n];
+            for (int i = 0; i < n; i++) {
+                orbits[i] = i;
+            }
+            for (int[] generator : generators) {
+                for (int i = 0; i < n; i++) {
+                    union(orbits, i, generator[i]);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                orbits[i] = find(orbits, i);
+            }
+        }
+        return orbits;
+    }
+
+    public int getOrbitRepresentative(int point) {
+        return getOrbits()[point];
+    }
+
+    public boolean isMinimalInOrbit(int point) {
+        return getOrbits()[point] == point;
+    }
+
+    public SortedSet<Integer> getOrbit(int point) {
+        int[] orbits = getOrbits();
+        SortedSet<Integer> orbit = new TreeSet<Integer>();
+        for (int i = 0; i < n; i++) {
+            if (orbits[i] == orbits[point]) {
+                orbit.add(i);
+            }
+        }
+        return orbit;
+    }
+
+    /**
+     * Find the orbits of the unordered pairs {a, b}, each coded as a * n + b with a &lt; b.
+     * Entries for codes that are not pairs are left as -1.
+     *
+     * @return for each pair code, the smallest code in its orbit
+     */
+    public int[] getPairOrbits() {
+        return getPairOrbits(false);
+    }
+
+    /**
+     * Find the orbits of the ordered pairs (a, b) with a &ne; b, each coded as a * n + b.
+     * Entries for codes with a = b are left as -1.
+     *
+     * @return for each pair code, the smallest code in its orbit
+     */
+    public int[] getOrderedPairOrbits() {
+        return getPairOrbits(true);
+    }
+
+    private int[] getPairOrbits(boolean ordered) {
+        int[] pairOrbits = new int[n * n];
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                int code = a * n + b;
+                pairOrbits[code] = (a == b || (!ordered && b < a))? -1 : code;
+            }
+        }
+        for (int[] generator : generators) {
+            for (int a = 0; a < n; a++) {
+                for (int b = ordered? 0 : a + 1; b < n; b++) {
+                    if (a == b) continue;
+                    int pA = generator[a];
+                    int pB = generator[b];
+                    int image = (ordered || pA < pB)? pA * n + pB : pB * n + pA;
+                    union(pairOrbits, a * n + b, image);
+                }
+            }
+        }
+        for (int code = 0; code < pairOrbits.length; code++) {
+            if (pairOrbits[code] != -1) {
+                pairOrbits[code] = find(pairOrbits, code);
+            }
+        }
+        return pairOrbits;
+    }
+
+    public BigInteger getOrder() {
+        ensureTable();
+        BigInteger order = BigInteger.ONE;
+        for (int i = 0; i < n; i++) {
+            int count = 0;
+            for (int x = 0; x < n; x++) {
+                if (table[i][x] != null) {
+                    count++;
+                }
+            }
+            order = order.multiply(BigInteger.valueOf(count));
+        }
+        return order;
+    }
+
+    public boolean contains(int[] permutation) {
+        ensureTable();
+        return sift(permutation.clone()) == n;
+    }
+
+    public boolean isMinimal(SortedSet<Integer> subset) {
+        int[] points = new int[subset.size()];
+        int index = 0;
+        for (int point : subset) {
+            points[index] = point;
+            index++;
+        }
+        return isMinimal(points);
+    }
+
+    /**
+     * Test a set of points for being lexicographically minimal in its orbit, comparing the
+     * sorted images of the set element by element.
+     *
+     * @param subset the points, in increasing order
+     * @return false if some element of the group maps the set to a smaller set
+     */
+    public boolean isMinimal(int[] subset) {
+        if (subset.length == 0) {
+            return true;
+        }
+        if (!isMinimalInOrbit(subset[0])) {
+            return false;
+        }
+        ensureSearchSpace();
+        Arrays.fill(inSet, false);
+        for (int point : subset) {
+            inSet[point] = true;
+        }
+        return !hasSmallerImage(0, subset[subset.length - 1]);
+    }
+
+    /**
+     * Test a set of points, given as the bits of a mask, for being lexicographically minimal
+     * in its orbit. This makes no objects, as the search works in buffers kept by the
+     * chain - so a chain should not be shared between threads.
+     *
+     * @param subset the points, as a mask with bit i set for point i (n &lt;= 64)
+     * @return false if some element of the group maps the set to a smaller set
+     */
+    public boolean isMinimal(long subset) {
+        if (subset == 0) {
+            return true;
+        }
+        if (!isMinimalInOrbit(Long.numberOfTrailingZeros(subset))) {
+            return false;
+        }
+        ensureSearchSpace();
+        for (int i = 0; i < n; i++) {
+            inSet[i] = (subset & (1L << i)) != 0;
+        }
+        return !hasSmallerImage(0, 63 - Long.numberOfLeadingZeros(subset));
+    }
+
+    private void ensureSearchSpace() {
+        ensureTable();
+        if (prefixes == null) {
+            inSet = new boolean[n];
+            prefixes = new int[n + 1][n];
+            for (int i = 0; i < n; i++) {
+                prefixes[0][i] = i;
+            }
+        }
+    }
+
+    /**
+     * Search over h = g^-1, so that y is in g(S) when h(y) is in S; the product of the
+     * transversal elements chosen above this level is in prefixes[level].
+     */
+    private boolean hasSmallerImage(int level, int last) {
+        if (level > last) {
+            return false;
+        }
+        int[][] transversal = table[level];
+        int[] prefix = prefixes[level];
+        int[] next = prefixes[level + 1];
+        for (int x = 0; x < n; x++) {
+            int[] u = transversal[x];
+            if (u == null) continue;
+            int image = prefix[x];
+            if (inSet[image] == inSet[level]) {
+                for (int i = 0; i < n; i++) {
+                    next[i] = prefix[u[i]];
+                }
+                if (hasSmallerImage(level + 1, last)) {
+                    return true;
+                }
+            } else if (inSet[image]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the subgroup that maps a set of points to itself.
+     *
+     * @param set the points to stabilise
+     * @return a chain for the set stabiliser
+     */
+    public StabiliserChain getSetStabiliser(int[] set) {
+        ensureTable();
+        boolean[] inSet = new boolean[n];
+        for (int point : set) {
+            inSet[point] = true;
+        }
+        List<int[]> found = new ArrayList<int[]>();
+        // stabilisers of 0..level - 1 from the bottom of the chain upwards, so that the
+        // generators found so far give all of the stabiliser below the current level
+        for (int level = n - 1; level >= 0; level--) {
+            int[] foundOrbits = new int[n];
+            for (int i = 0; i < n; i++) {
+                foundOrbits[i] = i;
+            }
+            for (int[] generator : found) {
+                for (int i = 0; i < n; i++) {
+                    union(foundOrbits, i, generator[i]);
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                int[] u = table[level][x];
+                if (u == null || x == level || inSet[x] != inSet[level]) continue;
+                if (find(foundOrbits, x) == find(foundOrbits, level)) continue;
+                int[] element = findStabilising(level + 1, u, inSet);
+                if (element != null) {
+                    found.add(element);
+                    for (int i = 0; i < n; i++) {
+                        union(foundOrbits, i, element[i]);
+                    }
+                }
+            }
+        }
+        return new StabiliserChain(n, found);
+    }
+
+    private int[] findStabilising(int level, int[] prefix, boolean[] inSet) {
+        if (level == n) {
+            return prefix;
+        }
+        int[][] transversal = table[level];
+        for (int x = 0; x < n; x++) {
+            if (transversal[x] == null || inSet[prefix[x]] != inSet[level]) continue;
+            int[] element = findStabilising(level + 1, compose(prefix, transversal[x]), inSet);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private void ensureTable() {
+        if (table != null) {
+            return;
+        }
+        table = new int[n][n][];
+        int[] identity = new int[n];
+        for (int i = 0; i < n; i++) {
+            identity[i] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            table[i][i] = identity;
+        }
+        for (int[] generator : generators) {
+            enter(generator);
+        }
+    }
+
+    /**
+     * Add a permutation to the table, along with its products with everything already
+     * there; once all products of pairs of table elements sift through, the table
+     * holds the whole group.
+     */
+    private void enter(int[] g) {
+        int[] residue = g.clone();
+        int level = sift(residue);
+        if (level == n) {
+            return;
+        }
+        table[level][residue[level]] = residue;
+        for (int j = 0; j < n; j++) {
+            for (int x = 0; x < n; x++) {
+                int[] h = table[j][x];
+                if (h != null && h != residue) {
+                    enter(compose(h, residue));
+                    enter(compose(residue, h));
+                }
+            }
+        }
+        enter(compose(residue, residue));
+    }
+
+    /**
+     * Divide out the transversal elements level by level, leaving the residue in g.
+     *
+     * @return the level where there was no transversal element, or n if g is in the group
+     */
+    private int sift(int[] g) {
+        for (int i = 0; i < n; i++) {
+            int[] u = table[i][g[i]];
+            if (u == null) {
+                return i;
+            }
+            if (g[i] != i) {
+                int[] inverse = invert(u);
+                for (int x = 0; x < n; x++) {
+                    g[x] = inverse[g[x]];
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return the permutation x -> a(b(x))
+     */
+    private static int[] compose(int[] a, int[] b) {
+        int[] product = new int[a.length];
+        for (int x = 0; x < a.length; x++) {
+            product[x] = a[b[x]];
+        }
+        return product;
+    }
+
+    private static int[] invert(int[] p) {
+        int[] inverse = new int[p.length];
+        for (int i = 0; i < p.length; i++) {
+            inverse[p[i]] = i;
+        }
+        return inverse;
+    }
+
+    /**
+     * Union by keeping the smaller root, so that each root is the minimum of its set.
+     */
+    private static void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private static int find(int[] parents, int a) {
+        while (parents[a] != a) {
+            parents[a] = parents[parents[a]];
+            a = parents[a];
+        }
+        return a;
+    }
+
+}
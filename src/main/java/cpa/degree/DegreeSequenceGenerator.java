@@ -1,6 +1,12 @@
 package cpa.degree;
 
+import canon.Certificate;
 import graph.model.IntGraph;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
 import cpa.Augmentation;
 import cpa.Augmentor;
 import cpa.handler.AugmentationHandler;
@@ -14,6 +20,29 @@ public class DegreeSequenceGenerator {
     
     private int[] degreeSequence;
     
+    /**
+     * In counting mode, counts the isomorphism classes of the connected graphs made; null 
+     * when the graphs go to a handler.
+     */
+    private final LongAdder counter;
+    
+    /**
+     * The certificates of the classes counted, as the augmentation can make more than 
+     * one graph from a class.
+     */
+    private final Set<Certificate> classes;
+    
+    /**
+     * Make a generator that only counts the non-isomorphic connected graphs.
+     * 
+     * @param counter the counter to add to, which can be shared between generators as
+     *        long as they have different degree sequences
+     * @param degreeSequence the degree sequence
+     */
+    public DegreeSequenceGenerator(LongAdder counter, int[] degreeSequence) {
+        this(null, null, degreeSequence, counter);
+    }
+    
     public DegreeSequenceGenerator(GenerationHandler handler, int[] degreeSequence) {
         this(handler, null, degreeSequence);
     }
@@ -22,12 +51,23 @@ public class DegreeSequenceGenerator {
             GenerationHandler handler, 
             AugmentationHandler<ResidualDegreeGraphPair> augmentationHandler, 
             int[] degreeSequence) {
+        this(handler, augmentationHandler, degreeSequence, null);
+    }
+    
+    private DegreeSequenceGenerator(
+            GenerationHandler handler, 
+            AugmentationHandler<ResidualDegreeGraphPair> augmentationHandler, 
+            int[] degreeSequence,
+            LongAdder counter) {
         this.handler = handler;
         this.partialHandler = augmentationHandler;
         this.degreeSequence = degreeSequence;
+        this.counter = counter;
+        this.classes = new HashSet<Certificate>();
     }
     
     public void generate() {
+        classes.clear();
         augment(new DegreeSequenceAugmentation(degreeSequence));
     }
     
@@ -37,7 +77,13 @@ public class DegreeSequenceGenerator {
 //        System.out.println("at " + graph + " " + java.util.Arrays.toString(residuals));
         if (isFinished(residuals)) {
             if (graph.isConnected()) {
-                handler.handle(graph);
+                if (counter != null) {
+                    if (classes.add(Certificate.of(graph))) {
+                        counter.increment();
+                    }
+                } else if (handler != null) {
+                    handler.handle(graph);
+                }
             }
         } else {
             Augmentor<ResidualDegreeGraphPair> augmentor = new DegreeSequenceAugmentor(residuals);
@@ -56,6 +102,14 @@ public class DegreeSequenceGenerator {
         }
     }
     
+    /**
+     * @return the number of non-isomorphic graphs counted, summed over all the generators
+     *         sharing the counter, or zero for a generator with a handler
+     */
+    public long getCount() {
+        return (counter == null)? 0 : counter.sum();
+    }
+    
     private boolean isFinished(int[] residuals) {
         for (int r : residuals) {
             if (r != 0) return false;
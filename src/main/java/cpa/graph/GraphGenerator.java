@@ -2,6 +2,7 @@ package cpa.graph;
 
 import cpa.Augmentation;
 import cpa.handler.GenerationHandler;
+import cpa.handler.PrintstreamHandler;
 import graph.model.IntGraph;
 
 public class GraphGenerator {
@@ -12,22 +13,75 @@ public class GraphGenerator {
     
     private final GenerationHandler handler;
     
+    /**
+     * The shard of the search to expand : only nodes at the split level whose 
+     * index is congruent to res (modulo mod) are extended further.
+     */
+    private final int res;
+    
+    private final int mod;
+    
+    /**
+     * The number of vertices of the nodes in the augmentation tree that are shared out. 
+     */
+    private final int splitLevel;
+    
+    /**
+     * The number of nodes seen so far at the split level.
+     */
+    private int splitIndex;
+    
     public GraphGenerator(GenerationHandler handler, int max) {
+        this(handler, max, 0, 1);
+    }
+    
+    public GraphGenerator(GenerationHandler handler, int max, int res, int mod) {
+        this(handler, max, res, mod, getDefaultSplitLevel(max));
+    }
+    
+    public GraphGenerator(GenerationHandler handler, int max, int res, int mod, int splitLevel) {
+        if (mod < 1 || res < 0 || res >= mod) {
+            throw new IllegalArgumentException("Need 0 <= res < mod, got " + res + "/" + mod);
+        }
         this.max = max;
         this.handler = handler;
+        this.res = res;
+        this.mod = mod;
+        this.splitLevel = Math.min(splitLevel, max);
         this.graphVertexAugmentor = new GraphVertexAugmentor();
     }
     
+    /**
+     * Split a couple of levels above the leaves, where there are plenty of nodes 
+     * to share out but the work above the split (done by every shard) is still small.
+     */
+    private static int getDefaultSplitLevel(int max) {
+        return Math.max(2, max - 2);
+    }
+    
     public void generate() {
+        splitIndex = 0;
         augment(graphVertexAugmentor.getInitial());
     }
     
+    /**
+     * Generate the descendants of a start graph. If the start graph is already past the 
+     * split level there are no nodes at that level to share out, so the start graph is 
+     * itself the only node of the split, and belongs to the first shard.
+     */
     public void generateFrom(IntGraph start) {
+        splitIndex = 0;
+        if (start.getVertexCount() > splitLevel && !isInShard()) {
+            return;
+        }
         augment(new GraphVertexAugmentation(start));
     }
     
     public void augment(Augmentation<IntGraph> parent) {
         IntGraph graph = parent.getAugmentedObject(); 
+        if (graph.getVertexCount() == splitLevel && !isInShard()) {
+            return;
+        }
         if (graph.getVertexCount() == max) {
             handler.handle(graph);
         } else {
@@ -38,4 +92,47 @@ public class GraphGenerator {
             }
         }
     }
+    
+    /**
+     * The canonical tree is traversed in the same order by every shard, so the 
+     * index of a node at the split level is the same in every one of them.
+     * 
+     * @return true if the current node at the split level belongs to this shard
+     */
+    private boolean isInShard() {
+        int index = splitIndex;
+        splitIndex++;
+        return index % mod == res;
+    }
+    
+    public int getRes() {
+        return res;
+    }
+    
+    public int getMod() {
+        return mod;
+    }
+    
+    public int getSplitLevel() {
+        return splitLevel;
+    }
+    
+    /**
+     * Usage : n [res/mod]
+     * 
+     * @param args the number of vertices, and optionally the shard to generate
+     */
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int res = 0;
+        int mod = 1;
+        if (args.length > 1) {
+            String[] bits = args[1].split("/");
+            res = Integer.parseInt(bits[0]);
+            mod = Integer.parseInt(bits[1]);
+        }
+        GraphGenerator generator = 
+            new GraphGenerator(new PrintstreamHandler(System.out, false), n, res, mod);
+        generator.generate();
+    }
 }
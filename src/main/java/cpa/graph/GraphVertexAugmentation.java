@@ -1,6 +1,7 @@
 package cpa.graph;
 
-import graph.group.GraphDiscretePartitionRefiner;
+import canon.CanonicalLabellers;
+import canon.Labelling;
 import graph.model.IntGraph;
 import group.Permutation;
 import group.PermutationGroup;
@@ -55,9 +56,9 @@ public class GraphVertexAugmentation implements Augmentation<IntGraph> {
 
     @Override
     public boolean isCanonical() {
-        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-        PermutationGroup autH = refiner.getAutomorphismGroup(augmentedGraph);
-        Permutation best = refiner.getBest();
+        Labelling labelling = CanonicalLabellers.get(augmentedGraph.getVertexCount()).label(augmentedGraph);
+        PermutationGroup autH = labelling.getAutomorphismGroup();
+        Permutation best = labelling.getBest();
         int chosen = getChosen(new IntGraph(augmentedGraph), best);
         List<Integer> connected = augmentedGraph.getConnected(chosen);
         boolean isCanonical = connected.size() == verticesToAddTo.size() && 
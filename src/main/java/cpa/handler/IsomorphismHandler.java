@@ -1,6 +1,6 @@
 package cpa.handler;
 
-import graph.model.GraphSignature;
+import canon.Certificate;
 import graph.model.IntGraph;
 
 import java.util.ArrayList;
@@ -10,16 +10,15 @@ import java.util.Map;
 
 public class IsomorphismHandler implements GenerationHandler {
     
-    private Map<String, List<IntGraph>> map;
+    private Map<Certificate, List<IntGraph>> map;
     
     public IsomorphismHandler() {
-        map = new HashMap<String, List<IntGraph>>();
+        map = new HashMap<Certificate, List<IntGraph>>();
     }
 
     @Override
     public void handle(IntGraph graph) {
-        GraphSignature sig = new GraphSignature(graph);
-        String canonicalForm = sig.getGraphSignature();
+        Certificate canonicalForm = Certificate.of(graph);
         List<IntGraph> isoClass;
         if (map.containsKey(canonicalForm)) {
             isoClass = map.get(canonicalForm);
@@ -30,7 +29,7 @@ public class IsomorphismHandler implements GenerationHandler {
         isoClass.add(graph);
     }
     
-    public Map<String, List<IntGraph>> getMap() {
+    public Map<Certificate, List<IntGraph>> getMap() {
         return map;
     }
 
@@ -1,87 +1,496 @@
 package cubic;
 
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import canon.StabiliserChain;
+import cubic.CubicReduction.Step;
 import generate.handler.GeneratorHandler;
+import generate.handler.SynchronizedHandler;
 import generate.handler.SystemOutHandler;
-import graph.group.GraphDiscretePartitionRefiner;
 import graph.model.IntEdge;
 import graph.model.IntGraph;
-import group.Permutation;
-import group.PermutationGroup;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Generates cubic graphs by canonical augmentation, starting from K4. There are three
+ * steps, each the reverse of one of the reductions in {@link CubicReduction} :
+ * <ul>
+ * <li>edge insertion : put a new vertex on each of two edges, and join the new vertices;</li>
+ * <li>diamond insertion : replace an edge x:y by a path x - t - t' - y and join both t and
+ * t' to the ends of a new edge, making a diamond;</li>
+ * <li>adding a K4 component.</li>
+ * </ul>
+ * Edge insertion alone does not reach every cubic graph from K4 - rings of diamonds, for
+ * example, have no edge that can be taken out again - but every cubic graph other than K4
+ * has a reduction of one of these three kinds.
+ *
+ * The steps from a parent are reduced by its automorphism group, to one pair of edges from
+ * each orbit of edge pairs and one edge from each edge orbit, and each child is kept only if
+ * its step is canonical. So every graph is made exactly once. Graphs on the way may be
+ * disconnected, but when only connected graphs are wanted a graph is not extended if it has
+ * too many components to join up in the vertices that are left.
+ */
 public class CubicGenerator {
-    
+
     private GeneratorHandler handler;
-    
+
+    private boolean connectedOnly;
+
+    private CubicReduction reduction;
+
+    /**
+     * Per-thread reduction tests, for parallel generation.
+     */
+    private ThreadLocal<CubicReduction> workerReductions;
+
+    private AtomicInteger count;
+
     public CubicGenerator() {
         this(new SystemOutHandler());
     }
-    
+
     public CubicGenerator(GeneratorHandler handler) {
+        this(handler, true);
+    }
+
+    /**
+     * @param handler the handler for the graphs
+     * @param connectedOnly if true, only output connected graphs
+     */
+    public CubicGenerator(GeneratorHandler handler, boolean connectedOnly) {
         this.handler = handler;
+        this.connectedOnly = connectedOnly;
+        this.reduction = new CubicReduction();
+        this.workerReductions = new ThreadLocal<CubicReduction>() {
+            @Override
+            protected CubicReduction initialValue() {
+                return new CubicReduction();
+            }
+        };
+        this.count = new AtomicInteger();
     }
-    
-    
+
+    /**
+     * Generate the cubic graphs on n vertices.
+     *
+     * @param n the number of vertices, at most 64
+     */
     public void generate(int n) {
-        
-    }
-    
-    public void generate(IntGraph prime, int n) {
-        List<EdgePair> reps = getEdgePairReps(prime);
-        System.out.println(reps);
-        for (EdgePair pair : reps) {
-            extend(prime, pair, n);
-        }
-    }
-    
-    public void extend(IntGraph parent, EdgePair pair, int n) {
-        int m = parent.vsize();
-        IntGraph extended = new IntGraph(parent);
-        extended.edges.remove(pair.f);
-        extended.edges.remove(pair.s);
-        extended.makeEdge(pair.f.a, m);
-        extended.makeEdge(pair.f.b, m);
-        extended.makeEdge(pair.s.a, m + 1);
-        extended.makeEdge(pair.s.b, m + 1);
-        extended.makeEdge(m, m + 1);
-        System.out.println("Extension " + pair + "\t" + extended.getSortedEdgeString());
-        handler.handle(parent, extended);
-    }
-
-    private List<EdgePair> getEdgePairReps(IntGraph prime) {
-        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-        PermutationGroup autGroup = refiner.getAutomorphismGroup(prime);
-        List<EdgePair> edgePairs = new ArrayList<EdgePair>(); 
-        for (int i = 0; i < prime.esize(); i++) {
-            IntEdge f = prime.edges.get(i);
-            for (int j = i + 1; j < prime.esize(); j++) {
-                IntEdge s = prime.edges.get(j);
-                edgePairs.add(new EdgePair(f, s));
+        generate(makeK4(), n);
+    }
+
+    /**
+     * Generate the cubic graphs on n vertices whose canonical construction path passes
+     * through a start graph; for K4, that is all of them.
+     *
+     * @param start the cubic graph to extend
+     * @param n the number of vertices, at most 64
+     */
+    public void generate(IntGraph start, int n) {
+        checkSize(n);
+        count.set(0);
+        if (canReach(start, n)) {
+            extend(null, start, null, n, reduction, handler);
+        }
+        handler.finish();
+    }
+
+    /**
+     * Generate the cubic graphs on n vertices using the common fork-join pool.
+     *
+     * @param n the number of vertices, at most 64
+     * @param splitDepth the depth of the augmentation tree below which subtrees run sequentially
+     */
+    public void generateInParallel(int n, int splitDepth) {
+        generateInParallel(n, splitDepth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generate the cubic graphs on n vertices, forking a task for every canonical child down
+     * to splitDepth; each subtree below that depth is searched depth-first on one worker.
+     * The handler is wrapped so that it only ever sees one graph at a time.
+     *
+     * @param n the number of vertices, at most 64
+     * @param splitDepth the depth of the augmentation tree below which subtrees run sequentially
+     * @param pool the pool to run the tasks in
+     */
+    public void generateInParallel(int n, int splitDepth, ForkJoinPool pool) {
+        checkSize(n);
+        count.set(0);
+        GeneratorHandler safeHandler = new SynchronizedHandler(handler);
+        IntGraph k4 = makeK4();
+        if (canReach(k4, n)) {
+            pool.invoke(new ExtendTask(null, k4, null, n, 0, splitDepth, safeHandler));
+        }
+        safeHandler.finish();
+    }
+
+    /**
+     * @return the number of graphs output by the last call to generate
+     */
+    public int getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the number of labellings made by the reduction test of the sequential generator
+     */
+    public int getLabellingCount() {
+        return reduction.getLabellingCount();
+    }
+
+    private void checkSize(int n) {
+        if (n > 64) {
+            throw new IllegalArgumentException("At most 64 vertices, not " + n);
+        }
+    }
+
+    private boolean canReach(IntGraph start, int n) {
+        int m = start.getVertexCount();
+        return m <= n && (n - m) % 2 == 0;
+    }
+
+    private void extend(IntGraph parent, IntGraph g, Labelling labelling, int n,
+                        CubicReduction test, GeneratorHandler out) {
+        if (g.getVertexCount() == n) {
+            output(parent, g, out);
+            return;
+        }
+        for (Child child : listChildren(g, labelling, n, test)) {
+            extend(g, child.graph, child.labelling, n, test, out);
+        }
+    }
+
+    private void output(IntGraph parent, IntGraph g, GeneratorHandler out) {
+        if (!connectedOnly || componentCount(components(adjacency(g), g.getVertexCount())) == 1) {
+            count.incrementAndGet();
+            out.handle(parent, g);
+        }
+    }
+
+    /**
+     * A canonical child, with the labelling made by its reduction test, if there was one.
+     */
+    private static class Child {
+
+        private final IntGraph graph;
+
+        private final Labelling labelling;
+
+        Child(IntGraph graph, Labelling labelling) {
+            this.graph = graph;
+            this.labelling = labelling;
+        }
+    }
+
+    /**
+     * Make the children of g from one step in each orbit, and keep the canonical ones.
+     *
+     * @param labelling the labelling of g, if the reduction test already made one
+     */
+    private List<Child> listChildren(IntGraph g, Labelling labelling, int n, CubicReduction test) {
+        List<Child> children = new ArrayList<Child>();
+        int m = g.getVertexCount();
+        long[] adjacency = adjacency(g);
+        int[] components = components(adjacency, m);
+        int componentCount = componentCount(components);
+        if (labelling == null) {
+            labelling = CanonicalLabellers.get(m).label(g);
+        }
+        StabiliserChain chain = labelling.getStabiliserChain();
+
+        // edge insertion, on one pair of edges from each orbit
+        int[] pairOrbits = getEdgePairOrbits(g, chain);
+        int e = g.edges.size();
+        for (int i = 0; i < e; i++) {
+            IntEdge f = g.edges.get(i);
+            for (int j = i + 1; j < e; j++) {
+                if (pairOrbits[i * e + j] != i * e + j) continue;
+                IntEdge s = g.edges.get(j);
+                int joined = (components[f.a] == components[s.a])? 0 : 1;
+                if (!isJoinable(componentCount - joined, m + 2, n)) continue;
+                long[] childAdjacency = insertEdge(adjacency, m, new EdgePair(f, s));
+                IntGraph child = makeGraph(childAdjacency, m + 2);
+                if (test.isCanonical(child, childAdjacency, Step.EDGE, m, m + 1)) {
+                    children.add(new Child(child, test.getLabelling()));
+                }
+            }
+        }
+
+        if (m + 4 > n) {
+            return children;
+        }
+
+        // diamond insertion, on one edge from each orbit
+        if (isJoinable(componentCount, m + 4, n)) {
+            int[] edgeOrbits = getEdgeOrbits(g, chain);
+            for (int i = 0; i < e; i++) {
+                if (edgeOrbits[i] != i) continue;
+                long[] childAdjacency = insertDiamond(adjacency, m, g.edges.get(i));
+                IntGraph child = makeGraph(childAdjacency, m + 4);
+                if (test.isCanonical(child, childAdjacency, Step.DIAMOND, m + 1, m + 2)) {
+                    children.add(new Child(child, test.getLabelling()));
+                }
+            }
+        }
+
+        // a K4 component, which is always canonical
+        if (isJoinable(componentCount + 1, m + 4, n)) {
+            long[] childAdjacency = new long[m + 4];
+            System.arraycopy(adjacency, 0, childAdjacency, 0, m);
+            for (int a = m; a < m + 4; a++) {
+                for (int b = a + 1; b < m + 4; b++) {
+                    addEdge(childAdjacency, a, b);
+                }
+            }
+            children.add(new Child(makeGraph(childAdjacency, m + 4), null));
+        }
+        return children;
+    }
+
+    /**
+     * Each edge insertion can join at most two components, so a graph on m vertices with
+     * some number of components needs at least 2 more vertices for each join.
+     */
+    private boolean isJoinable(int componentCount, int m, int n) {
+        return !connectedOnly || 2 * (componentCount - 1) <= n - m;
+    }
+
+    private long[] insertEdge(long[] adjacency, int m, EdgePair pair) {
+        long[] extended = new long[m + 2];
+        System.arraycopy(adjacency, 0, extended, 0, m);
+        removeEdge(extended, pair.f.a, pair.f.b);
+        removeEdge(extended, pair.s.a, pair.s.b);
+        addEdge(extended, pair.f.a, m);
+        addEdge(extended, pair.f.b, m);
+        addEdge(extended, pair.s.a, m + 1);
+        addEdge(extended, pair.s.b, m + 1);
+        addEdge(extended, m, m + 1);
+        return extended;
+    }
+
+    /**
+     * Replace x:y by x - m, the diamond m, m + 1, m + 2, m + 3 with middle edge
+     * (m + 1):(m + 2), then m + 3 - y.
+     */
+    private long[] insertDiamond(long[] adjacency, int m, IntEdge edge) {
+        long[] extended = new long[m + 4];
+        System.arraycopy(adjacency, 0, extended, 0, m);
+        removeEdge(extended, edge.a, edge.b);
+        addEdge(extended, edge.a, m);
+        addEdge(extended, m, m + 1);
+        addEdge(extended, m, m + 2);
+        addEdge(extended, m + 1, m + 2);
+        addEdge(extended, m + 1, m + 3);
+        addEdge(extended, m + 2, m + 3);
+        addEdge(extended, m + 3, edge.b);
+        return extended;
+    }
+
+    private static void addEdge(long[] adjacency, int a, int b) {
+        adjacency[a] |= 1L << b;
+        adjacency[b] |= 1L << a;
+    }
+
+    private static void removeEdge(long[] adjacency, int a, int b) {
+        adjacency[a] &= ~(1L << b);
+        adjacency[b] &= ~(1L << a);
+    }
+
+    private static long[] adjacency(IntGraph g) {
+        long[] adjacency = new long[g.getVertexCount()];
+        for (IntEdge e : g.edges) {
+            addEdge(adjacency, e.a, e.b);
+        }
+        return adjacency;
+    }
+
+    private static IntGraph makeGraph(long[] adjacency, int n) {
+        IntGraph g = new IntGraph();
+        for (int a = 0; a < n; a++) {
+            for (long rest = adjacency[a] >>> (a + 1); rest != 0; rest &= rest - 1) {
+                g.makeEdge(a, a + 1 + Long.numberOfTrailingZeros(rest));
             }
         }
-//        System.out.println(edgePairs);
-        
-        List<EdgePair> reps = new ArrayList<EdgePair>();
-        for (int i = 0; i < edgePairs.size(); i++) {
-            EdgePair p = edgePairs.get(i);
-            if (isRep(p, reps, autGroup)) {
-                reps.add(p);
+        return g;
+    }
+
+    private static IntGraph makeK4() {
+        return new IntGraph("0:1,0:2,0:3,1:2,1:3,2:3");
+    }
+
+    /**
+     * @return for each vertex, the index of its component
+     */
+    private static int[] components(long[] adjacency, int n) {
+        int[] components = new int[n];
+        long unseen = (n == 64)? -1L : (1L << n) - 1;
+        int index = 0;
+        while (unseen != 0) {
+            long seen = Long.lowestOneBit(unseen);
+            long frontier = seen;
+            while (frontier != 0) {
+                long next = 0;
+                for (long rest = frontier; rest != 0; rest &= rest - 1) {
+                    next |= adjacency[Long.numberOfTrailingZeros(rest)];
+                }
+                frontier = next & ~seen;
+                seen |= frontier;
             }
+            for (long rest = seen; rest != 0; rest &= rest - 1) {
+                components[Long.numberOfTrailingZeros(rest)] = index;
+            }
+            unseen &= ~seen;
+            index++;
         }
-        
-        return reps;
+        return components;
     }
-    
-    private boolean isRep(EdgePair p, List<EdgePair> reps, PermutationGroup autGroup) {
-        for (Permutation pi : autGroup.all()) {
-            EdgePair permutedPair = p.permute(pi);
-            if (reps.contains(permutedPair)) {
-                return false;
+
+    private static int componentCount(int[] components) {
+        int count = 0;
+        for (int component : components) {
+            count = Math.max(count, component + 1);
+        }
+        return count;
+    }
+
+    /**
+     * @return for each edge index, the smallest edge index in its orbit
+     */
+    private int[] getEdgeOrbits(IntGraph g, StabiliserChain chain) {
+        int m = g.esize();
+        int[] edgeIndex = getEdgeIndex(g, chain.getSize());
+        int[] edgeOrbits = new int[m];
+        for (int i = 0; i < m; i++) {
+            edgeOrbits[i] = i;
+        }
+        int n = chain.getSize();
+        for (int[] generator : chain.getGenerators()) {
+            for (int i = 0; i < m; i++) {
+                IntEdge e = g.edges.get(i);
+                union(edgeOrbits, i, edgeIndex[generator[e.a] * n + generator[e.b]]);
             }
         }
-        return true;
+        for (int i = 0; i < m; i++) {
+            edgeOrbits[i] = find(edgeOrbits, i);
+        }
+        return edgeOrbits;
     }
-    
+
+    private int[] getEdgeIndex(IntGraph g, int n) {
+        int[] edgeIndex = new int[n * n];
+        for (int i = 0; i < g.esize(); i++) {
+            IntEdge e = g.edges.get(i);
+            edgeIndex[e.a * n + e.b] = i;
+            edgeIndex[e.b * n + e.a] = i;
+        }
+        return edgeIndex;
+    }
+
+    /**
+     * Find the orbits of the pairs of edges {e<sub>i</sub>, e<sub>j</sub>} by letting the
+     * generators of the group act on the edge indices.
+     *
+     * @return for each pair code i * m + j (i &lt; j), the smallest code in its orbit
+     */
+    private int[] getEdgePairOrbits(IntGraph g, StabiliserChain chain) {
+        int n = chain.getSize();
+        int m = g.esize();
+        int[] edgeIndex = getEdgeIndex(g, n);
+        int[] pairOrbits = new int[m * m];
+        for (int code = 0; code < pairOrbits.length; code++) {
+            pairOrbits[code] = code;
+        }
+        int[] edgeImage = new int[m];
+        for (int[] generator : chain.getGenerators()) {
+            for (int i = 0; i < m; i++) {
+                IntEdge e = g.edges.get(i);
+                edgeImage[i] = edgeIndex[generator[e.a] * n + generator[e.b]];
+            }
+            for (int i = 0; i < m; i++) {
+                for (int j = i + 1; j < m; j++) {
+                    int pI = edgeImage[i];
+                    int pJ = edgeImage[j];
+                    int image = (pI < pJ)? pI * m + pJ : pJ * m + pI;
+                    union(pairOrbits, i * m + j, image);
+                }
+            }
+        }
+        for (int code = 0; code < pairOrbits.length; code++) {
+            pairOrbits[code] = find(pairOrbits, code);
+        }
+        return pairOrbits;
+    }
+
+    private void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private int find(int[] parents, int a) {
+        while (parents[a] != a) {
+            parents[a] = parents[parents[a]];
+            a = parents[a];
+        }
+        return a;
+    }
+
+    /**
+     * A subtree of the augmentation tree. The reduction tests are not thread-safe, so each
+     * worker thread gets its own.
+     */
+    private class ExtendTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IntGraph parent;
+
+        private final IntGraph g;
+
+        private final Labelling labelling;
+
+        private final int n;
+
+        private final int depth;
+
+        private final int splitDepth;
+
+        private final GeneratorHandler out;
+
+        public ExtendTask(IntGraph parent, IntGraph g, Labelling labelling,
+                          int n, int depth, int splitDepth, GeneratorHandler out) {
+            this.parent = parent;
+            this.g = g;
+            this.labelling = labelling;
+            this.n = n;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            CubicReduction test = workerReductions.get();
+            if (depth >= splitDepth || g.getVertexCount() == n) {
+                extend(parent, g, labelling, n, test, out);
+                return;
+            }
+            List<ExtendTask> subtasks = new ArrayList<ExtendTask>();
+            for (Child child : listChildren(g, labelling, n, test)) {
+                subtasks.add(new ExtendTask(g, child.graph, child.labelling, n, depth + 1, splitDepth, out));
+            }
+            invokeAll(subtasks);
+        }
+    }
+
 }
@@ -0,0 +1,269 @@
+package cubic;
+
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import graph.model.IntGraph;
+
+/**
+ * The canonical reduction test for the cubic graphs made by {@link CubicGenerator}.
+ *
+ * Every cubic graph other than K4 can be made smaller by one of three steps :
+ * <ul>
+ * <li>removing a K4 component;</li>
+ * <li>removing a diamond (K4 less an edge) whose tips are joined to two different,
+ * non-adjacent vertices x and y, and then joining x to y;</li>
+ * <li>removing an edge pq and smoothing away p and q, when the other two neighbours of p
+ * are not adjacent, nor are those of q, and they are not the same two vertices.</li>
+ * </ul>
+ * The first kind in this list that a graph has is its canonical kind. Among the steps of
+ * that kind, the canonical one has the largest invariant, with ties broken by the canonical
+ * labelling. A child is accepted if it was made by a step of the canonical kind whose edge -
+ * the new edge, or the middle edge of the new diamond - is in the orbit of the canonical one.
+ *
+ * Graphs have at most 64 vertices, and are given as rows of an adjacency matrix as well as
+ * the graph itself.
+ */
+public class CubicReduction {
+
+    public enum Step { EDGE, DIAMOND, COMPONENT }
+
+    /**
+     * The labelling made by the last test, or null if the invariants were enough.
+     */
+    private Labelling labelling;
+
+    private int labellingCount;
+
+    private int testCount;
+
+    /**
+     * The edges of the canonical kind of step, as ends u &lt; v, with their invariants.
+     */
+    private int[] candidateU;
+
+    private int[] candidateV;
+
+    private long[] invariants;
+
+    /**
+     * Test the step that made g, given by its edge a:b, for being the canonical reduction of
+     * g up to automorphism.
+     *
+     * @param g a cubic graph
+     * @param adjacency the rows of the adjacency matrix of g
+     * @param step the kind of step that made g
+     * @param a one end of the new edge, or of the middle edge of the new diamond
+     * @param b the other end of the edge
+     * @return true if the step is in the orbit of the canonical reduction
+     */
+    public boolean isCanonical(IntGraph g, long[] adjacency, Step step, int a, int b) {
+        testCount++;
+        labelling = null;
+        int n = g.getVertexCount();
+        if (hasK4Component(adjacency, n)) {
+            // all the K4 components are in one orbit
+            return step == Step.COMPONENT;
+        }
+        if (step == Step.COMPONENT) {
+            return false;
+        }
+        ensureSpace(n);
+        int count = findDiamonds(adjacency, n);
+        if (count > 0) {
+            if (step != Step.DIAMOND) {
+                return false;
+            }
+        } else {
+            if (step != Step.EDGE) {
+                return false;
+            }
+            count = findEdges(adjacency, n);
+        }
+
+        int u = Math.min(a, b);
+        int v = Math.max(a, b);
+        int added = -1;
+        for (int index = 0; index < count; index++) {
+            if (candidateU[index] == u && candidateV[index] == v) {
+                added = index;
+                break;
+            }
+        }
+        if (added == -1) {
+            return false;
+        }
+
+        long best = invariants[added];
+        int ties = 0;
+        for (int index = 0; index < count; index++) {
+            if (invariants[index] > best) {
+                return false;
+            } else if (invariants[index] == best) {
+                ties++;
+            }
+        }
+        if (ties == 1) {
+            return true;
+        }
+
+        // the invariants tie, so pick the tied edge with the largest canonical image
+        labellingCount++;
+        labelling = CanonicalLabellers.get(n).label(g);
+        int[] labels = labelling.getLabels();
+        int canonical = -1;
+        int canonicalCode = -1;
+        for (int index = 0; index < count; index++) {
+            if (invariants[index] != best) continue;
+            int code = pairCode(labels[candidateU[index]], labels[candidateV[index]], n);
+            if (code > canonicalCode) {
+                canonicalCode = code;
+                canonical = index;
+            }
+        }
+        if (canonical == added) {
+            return true;
+        }
+        int[] pairOrbits = labelling.getStabiliserChain().getPairOrbits();
+        return pairOrbits[pairCode(u, v, n)]
+                == pairOrbits[pairCode(candidateU[canonical], candidateV[canonical], n)];
+    }
+
+    /**
+     * @return the labelling of the graph in the last test, if it needed one
+     */
+    public Labelling getLabelling() {
+        return labelling;
+    }
+
+    public int getLabellingCount() {
+        return labellingCount;
+    }
+
+    public int getTestCount() {
+        return testCount;
+    }
+
+    /**
+     * @return true if the edge u:v can be removed, smoothing away both ends
+     */
+    public static boolean isReducibleEdge(long[] adjacency, int u, int v) {
+        long uOthers = adjacency[u] & ~(1L << v);
+        long vOthers = adjacency[v] & ~(1L << u);
+        if (uOthers == vOthers || isPairAdjacent(adjacency, uOthers)) {
+            return false;
+        }
+        return !isPairAdjacent(adjacency, vOthers);
+    }
+
+    /**
+     * @return true if u:v is the middle edge of a diamond that can be removed
+     */
+    public static boolean isReducibleDiamond(long[] adjacency, int u, int v) {
+        long tips = adjacency[u] & ~(1L << v);
+        if (tips != (adjacency[v] & ~(1L << u)) || isPairAdjacent(adjacency, tips)) {
+            return false;
+        }
+        long middle = (1L << u) | (1L << v);
+        int x = Long.numberOfTrailingZeros(adjacency[Long.numberOfTrailingZeros(tips)] & ~middle);
+        int y = Long.numberOfTrailingZeros(adjacency[63 - Long.numberOfLeadingZeros(tips)] & ~middle);
+        return x != y && (adjacency[x] & (1L << y)) == 0;
+    }
+
+    private static boolean isPairAdjacent(long[] adjacency, long pair) {
+        int first = Long.numberOfTrailingZeros(pair);
+        int second = 63 - Long.numberOfLeadingZeros(pair);
+        return (adjacency[first] & (1L << second)) != 0;
+    }
+
+    private static boolean hasK4Component(long[] adjacency, int n) {
+        for (int v = 0; v < n; v++) {
+            long closed = adjacency[v] | (1L << v);
+            boolean complete = true;
+            for (long rest = adjacency[v]; rest != 0 && complete; rest &= rest - 1) {
+                int w = Long.numberOfTrailingZeros(rest);
+                complete = (adjacency[w] | (1L << w)) == closed;
+            }
+            if (complete) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Diamonds are ranked by their outer vertices x and y : the number of common
+     * neighbours, then the larger and smaller number of vertices at distance two.
+     */
+    private int findDiamonds(long[] adjacency, int n) {
+        int count = 0;
+        for (int u = 0; u < n; u++) {
+            for (long rest = adjacency[u] >>> (u + 1); rest != 0; rest &= rest - 1) {
+                int v = u + 1 + Long.numberOfTrailingZeros(rest);
+                if (!isReducibleDiamond(adjacency, u, v)) continue;
+                long tips = adjacency[u] & ~(1L << v);
+                long middle = (1L << u) | (1L << v);
+                int x = Long.numberOfTrailingZeros(adjacency[Long.numberOfTrailingZeros(tips)] & ~middle);
+                int y = Long.numberOfTrailingZeros(adjacency[63 - Long.numberOfLeadingZeros(tips)] & ~middle);
+                int common = Long.bitCount(adjacency[x] & adjacency[y]);
+                int dX = distanceTwoCount(adjacency, x);
+                int dY = distanceTwoCount(adjacency, y);
+                candidateU[count] = u;
+                candidateV[count] = v;
+                invariants[count] = ((common * 8L + Math.max(dX, dY)) * 8L) + Math.min(dX, dY);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Edges are ranked by the number of squares and then triangles on them, then the
+     * larger and smaller number of vertices at distance two from their ends.
+     */
+    private int findEdges(long[] adjacency, int n) {
+        int count = 0;
+        for (int u = 0; u < n; u++) {
+            for (long rest = adjacency[u] >>> (u + 1); rest != 0; rest &= rest - 1) {
+                int v = u + 1 + Long.numberOfTrailingZeros(rest);
+                if (!isReducibleEdge(adjacency, u, v)) continue;
+                long vOthers = adjacency[v] & ~(1L << u);
+                int squares = 0;
+                for (long others = adjacency[u] & ~(1L << v); others != 0; others &= others - 1) {
+                    squares += Long.bitCount(adjacency[Long.numberOfTrailingZeros(others)] & vOthers);
+                }
+                int triangles = Long.bitCount(adjacency[u] & adjacency[v]);
+                int dU = distanceTwoCount(adjacency, u);
+                int dV = distanceTwoCount(adjacency, v);
+                candidateU[count] = u;
+                candidateV[count] = v;
+                invariants[count] = ((((squares * 8L) + triangles) * 8L + Math.max(dU, dV)) * 8L)
+                        + Math.min(dU, dV);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int distanceTwoCount(long[] adjacency, int v) {
+        long reached = 0;
+        for (long rest = adjacency[v]; rest != 0; rest &= rest - 1) {
+            reached |= adjacency[Long.numberOfTrailingZeros(rest)];
+        }
+        return Long.bitCount(reached & ~(adjacency[v] | (1L << v)));
+    }
+
+    private static int pairCode(int a, int b, int n) {
+        return (a < b)? a * n + b : b * n + a;
+    }
+
+    private void ensureSpace(int n) {
+        // a cubic graph on n vertices has 3n / 2 edges
+        int size = (3 * n) / 2;
+        if (invariants == null || invariants.length < size) {
+            candidateU = new int[size];
+            candidateV = new int[size];
+            invariants = new long[size];
+        }
+    }
+
+}
@@ -8,15 +8,42 @@ import java.util.List;
 
 public class BaseHHGenerator {
     
+    protected GraphicalityOracle oracle = new GraphicalityOracle();
+    
     protected boolean isGraphicalWithConstraint(int[] degSeq, int i, List<Integer> X) {
+        oracle.set(degSeq);
+        return isGraphicalWithConstraintInOracle(degSeq, i, X);
+    }
+    
+    /**
+     * Test a sequence, already held by the oracle, for having a realisation where i is not
+     * joined to any vertex in X. By the theorem of Kim, Toroczkai, Mikl&oacute;s, Erd&#337;s and
+     * Sz&eacute;kely, it does if joining i to the vertices of largest degree outside X leaves
+     * a graphical sequence. The oracle holds the same sequence again afterwards.
+     */
+    protected boolean isGraphicalWithConstraintInOracle(int[] degSeq, int i, List<Integer> X) {
         int d = degSeq[i];
+        oracle.remove(d);
+        for (int x : X) {
+            if (x != i) oracle.remove(degSeq[x]);
+        }
+        boolean isGraphical = oracle.joinLargest(d) == d;
+        for (int x : X) {
+            if (x != i) oracle.add(degSeq[x]);
+        }
+        oracle.add(0);
+        isGraphical = isGraphical && oracle.isGraphical();
         
-        // get the leftmost adjacency set
-        List<Integer> L = getL(i, d, degSeq.length, X);
-        
-        // this could be done in one step, rather than iterating twice through
-        // degseq
-        return isGraphical(reduce(degSeq, i, L));
+        oracle.remove(0);
+        for (int x : X) {
+            if (x != i) oracle.remove(degSeq[x]);
+        }
+        oracle.unjoinLargest();
+        for (int x : X) {
+            if (x != i) oracle.add(degSeq[x]);
+        }
+        oracle.add(d);
+        return isGraphical;
     }
     
     protected List<Integer> getL(int i, int d, int n, List<Integer> X) {
@@ -79,6 +106,7 @@ public class BaseHHGenerator {
     }
     
     protected boolean isGraphical(int[] degSeq) {
-        return HakimiHavelGenerator.isGraphical(degSeq);
+        oracle.set(degSeq);
+        return oracle.isGraphical();
     }
 }
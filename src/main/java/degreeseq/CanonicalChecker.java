@@ -55,7 +55,6 @@ public class CanonicalChecker {
 //            return false;
 //        }
         GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-        System.out.println("Checking " + g + " " + p);
         return refiner.isCanonical(g, p);
     }
     
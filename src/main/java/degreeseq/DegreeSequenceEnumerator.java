@@ -0,0 +1,219 @@
+package degreeseq;
+
+import canon.Certificate;
+import cpa.degree.DegreeSequenceGenerator;
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates the graphs on n vertices one degree sequence at a time : every graphical
+ * sequence of length n is listed, and the chosen generator is run on each one as a task
+ * in a fork-join pool, so idle workers steal the sequences that are left.
+ *
+ * Graphs with different degree sequences are never isomorphic, so each task counts the
+ * isomorphism classes among the graphs for its own sequence, and the counts add up to the
+ * number of graphs on n vertices. The graphs of every method are told apart by
+ * certificate, so a generator that makes more than one graph from a class is still
+ * counted right; the connected-only generators do this in their counting mode, so
+ * no graphs are handed out. Each count is passed to the listener when its sequence is finished.
+ */
+public class DegreeSequenceEnumerator {
+    
+    public enum Method {
+        /**
+         * The {@link KiralyHHGenerator}, which makes every labelled realization.
+         */
+        KIRALY,
+        
+        /**
+         * The {@link OrbitSaturatingGenerator}, for connected graphs only.
+         */
+        ORBIT_SATURATING,
+        
+        /**
+         * The canonical path augmentation of {@link DegreeSequenceGenerator}, for
+         * connected graphs only.
+         */
+        CANONICAL_PATH
+    }
+    
+    private final Method method;
+    
+    private final boolean connectedOnly;
+    
+    private SequenceCountListener listener;
+    
+    private AtomicLong total;
+    
+    public DegreeSequenceEnumerator(Method method) {
+        this(method, true);
+    }
+    
+    /**
+     * @param method the generator to run on each sequence
+     * @param connectedOnly if true, only count connected graphs
+     */
+    public DegreeSequenceEnumerator(Method method, boolean connectedOnly) {
+        if (!connectedOnly && method != Method.KIRALY) {
+            throw new IllegalArgumentException(method + " only makes connected graphs");
+        }
+        this.method = method;
+        this.connectedOnly = connectedOnly;
+    }
+    
+    /**
+     * @return the degree sequences of the graphs to be counted on n vertices
+     */
+    public List<int[]> getSequences(int n) {
+        int minDegree = (connectedOnly && n > 1)? 1 : 0;
+        return new GraphicalSequenceLister().list(n, minDegree);
+    }
+    
+    /**
+     * Count the graphs on n vertices using the common fork-join pool.
+     */
+    public long enumerate(int n, SequenceCountListener listener) {
+        return enumerate(n, listener, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Count the graphs on n vertices, one task per degree sequence.
+     * 
+     * @param n the number of vertices, at least 3
+     * @param listener told the count for each sequence, from the worker threads but never
+     *        by two at once
+     * @param pool the pool to run the tasks in
+     * @return the total number of graphs
+     */
+    public long enumerate(int n, SequenceCountListener listener, ForkJoinPool pool) {
+        if (n < 3) {
+            throw new IllegalArgumentException("At least 3 vertices, not " + n);
+        }
+        this.listener = listener;
+        this.total = new AtomicLong();
+        List<SequenceTask> tasks = new ArrayList<SequenceTask>();
+        for (int[] sequence : getSequences(n)) {
+            tasks.add(new SequenceTask(sequence));
+        }
+        pool.invoke(new AllSequencesTask(tasks));
+        return total.get();
+    }
+    
+    /**
+     * @return the number of non-isomorphic graphs with this degree sequence
+     */
+    public int count(int[] degreeSequence) {
+        Set<Certificate> certificates = new HashSet<Certificate>();
+        if (isZero(degreeSequence)) {
+            // the empty graph, which the generators do not make
+            return (connectedOnly && degreeSequence.length > 1)? 0 : 1;
+        }
+        switch (method) {
+            case KIRALY:
+                new KiralyHHGenerator(new CertificateHandler(certificates)).generate(degreeSequence);
+                break;
+            case ORBIT_SATURATING:
+                OrbitSaturatingGenerator orbitSaturating = new OrbitSaturatingGenerator(new LongAdder());
+                orbitSaturating.generate(degreeSequence);
+                return (int) orbitSaturating.getCount();
+            case CANONICAL_PATH:
+                DegreeSequenceGenerator canonicalPath = 
+                        new DegreeSequenceGenerator(new LongAdder(), degreeSequence);
+                canonicalPath.generate();
+                return (int) canonicalPath.getCount();
+        }
+        return certificates.size();
+    }
+    
+    private boolean isZero(int[] degreeSequence) {
+        for (int d : degreeSequence) {
+            if (d != 0) return false;
+        }
+        return true;
+    }
+    
+    private class CertificateHandler implements GeneratorHandler {
+        
+        private final Set<Certificate> certificates;
+        
+        public CertificateHandler(Set<Certificate> certificates) {
+            this.certificates = certificates;
+        }
+        
+        @Override
+        public void handle(IntGraph parent, IntGraph graph) {
+            if (!connectedOnly || graph.isConnected()) {
+                certificates.add(Certificate.of(graph));
+            }
+        }
+        
+        @Override
+        public void finish() {}
+        
+    }
+    
+    private class AllSequencesTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final List<SequenceTask> tasks;
+        
+        public AllSequencesTask(List<SequenceTask> tasks) {
+            this.tasks = tasks;
+        }
+        
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+        
+    }
+    
+    private class SequenceTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] degreeSequence;
+        
+        public SequenceTask(int[] degreeSequence) {
+            this.degreeSequence = degreeSequence;
+        }
+        
+        @Override
+        protected void compute() {
+            int count = count(degreeSequence);
+            total.addAndGet(count);
+            synchronized (listener) {
+                listener.handle(degreeSequence, count);
+            }
+        }
+        
+    }
+    
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        Method method = (args.length > 1)? Method.valueOf(args[1]) : Method.KIRALY;
+        boolean connectedOnly = args.length <= 2 || Boolean.parseBoolean(args[2]);
+        DegreeSequenceEnumerator enumerator = new DegreeSequenceEnumerator(method, connectedOnly);
+        long total = enumerator.enumerate(n, new SequenceCountListener() {
+            
+            @Override
+            public void handle(int[] degreeSequence, int count) {
+                System.out.println(Arrays.toString(degreeSequence) + "\t" + count);
+            }
+            
+        });
+        System.out.println("Total\t" + total);
+    }
+
+}
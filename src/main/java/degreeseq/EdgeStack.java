@@ -0,0 +1,70 @@
+package degreeseq;
+
+import graph.model.IntGraph;
+
+/**
+ * The edges of a graph under construction, as a stack of vertex pairs. A generator that
+ * adds an edge, recurses, and then takes the edge away again can share one stack down the
+ * whole recursion, as taking away the last edge is O(1); a graph is only made from the
+ * stack when one is needed.
+ */
+public class EdgeStack {
+
+    private int[] a;
+
+    private int[] b;
+
+    private int size;
+
+    public EdgeStack() {
+        this(16);
+    }
+
+    public EdgeStack(int capacity) {
+        a = new int[Math.max(1, capacity)];
+        b = new int[a.length];
+        size = 0;
+    }
+
+    public void push(int v0, int v1) {
+        if (size == a.length) {
+            int[] oldA = a;
+            int[] oldB = b;
+            a = new int[2 * size];
+            b = new int[2 * size];
+            System.arraycopy(oldA, 0, a, 0, size);
+            System.arraycopy(oldB, 0, b, 0, size);
+        }
+        a[size] = v0;
+        b[size] = v1;
+        size++;
+    }
+
+    public void pop() {
+        size--;
+    }
+
+    public void pop(int count) {
+        size -= count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a new graph with the edges on the stack, in the order they were pushed
+     */
+    public IntGraph toGraph() {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < size; i++) {
+            g.makeEdge(a[i], b[i]);
+        }
+        return g;
+    }
+
+}
@@ -0,0 +1,348 @@
+package degreeseq;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+import group.Partition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Approximates the orbits of a graph by its coarsest equitable partition that respects
+ * the target degrees : the cells are split until every vertex of a cell has the same
+ * number of neighbours in each cell. Vertices in the same orbit always end up in the same
+ * cell, and every vertex of a cell has the same current degree.
+ *
+ * The partition can be made from scratch, or from the partition of a parent graph that
+ * was equitable for the parent. Then only the cells holding an end of a new edge can have
+ * changed their neighbour counts, so only those cells are used to split the others to
+ * start with. The result is equitable, but can be finer than the partition made from
+ * scratch, as the new edges may make alike two vertices that the parent kept apart. Either
+ * way, a cell can be coarser than an orbit, so this is not the default partitioner of the
+ * {@link OrbitSaturatingGenerator}.
+ * Cells are arrays of vertices, in order, and the cells are in order of their first vertex.
+ */
+public class EquitableOrbitPartitioner implements OrbitPartitioner {
+
+    /**
+     * The cell of each vertex, and the cells as runs of the vertex array.
+     */
+    private int[] cellOf;
+
+    private int[] vertices;
+
+    private int[] cellStart;
+
+    private int[] cellSize;
+
+    private int cellCount;
+
+    /**
+     * The cells still to split the others with.
+     */
+    private int[] queue;
+
+    private boolean[] inQueue;
+
+    private int queueSize;
+
+    /**
+     * The neighbour lists of the graph being refined.
+     */
+    private int[] offsets;
+
+    private int[] neighbours;
+
+    /**
+     * The number of neighbours of each vertex in the splitter, which is zero for all but
+     * the touched vertices; and the cells holding a touched vertex, which are the only
+     * ones that can split.
+     */
+    private int[] counts;
+
+    private int[] touched;
+
+    private int touchedCount;
+
+    private int[] cellsToSplit;
+
+    private boolean[] marked;
+
+    @Override
+    public Partition getOrbitPartition(IntGraph g, int[] degreeSequence) {
+        return toPartition(getCells(g, degreeSequence));
+    }
+
+    /**
+     * Make the cells from scratch, starting with one cell for each target degree.
+     */
+    public int[][] getCells(IntGraph g, int[] degreeSequence) {
+        return refine(getDegreeCells(degreeSequence), g, 0);
+    }
+
+    /**
+     * Refine the partition of the graph made by the first parentSize edges of g, which
+     * must be equitable for that graph, into one for the whole of g.
+     *
+     * @param parentCells the cells for the parent graph
+     * @param g the graph, which has the parent's edges first
+     * @param parentSize the number of edges in the parent
+     * @return the cells for g
+     */
+    public int[][] refine(int[][] parentCells, IntGraph g, int parentSize) {
+        int n = 0;
+        for (int[] cell : parentCells) {
+            n += cell.length;
+        }
+        setup(n, g);
+        int position = 0;
+        cellCount = 0;
+        for (int[] cell : parentCells) {
+            cellStart[cellCount] = position;
+            cellSize[cellCount] = cell.length;
+            for (int v : cell) {
+                vertices[position] = v;
+                cellOf[v] = cellCount;
+                position++;
+            }
+            cellCount++;
+        }
+
+        queueSize = 0;
+        for (int i = parentSize; i < g.edges.size(); i++) {
+            IntEdge e = g.edges.get(i);
+            enqueue(cellOf[e.a]);
+            enqueue(cellOf[e.b]);
+        }
+        if (parentSize == 0) {
+            // a partition made from scratch is not yet known to be equitable
+            for (int cell = 0; cell < cellCount; cell++) {
+                enqueue(cell);
+            }
+        }
+        while (queueSize > 0) {
+            int splitter = queue[--queueSize];
+            inQueue[splitter] = false;
+            splitAll(splitter);
+        }
+        return getCells();
+    }
+
+    public static Partition toPartition(int[][] cells) {
+        Partition p = new Partition();
+        for (int[] cell : cells) {
+            p.addCell(cell);
+        }
+        return p;
+    }
+
+    /**
+     * @return the cells of a partition, in order
+     */
+    public static int[][] toCells(Partition p) {
+        int[][] cells = new int[p.size()][];
+        for (int index = 0; index < p.size(); index++) {
+            cells[index] = new int[p.getCell(index).size()];
+            int i = 0;
+            for (int v : p.getCell(index)) {
+                cells[index][i] = v;
+                i++;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return one cell for each target degree, in order of first vertex
+     */
+    public static int[][] getDegreeCells(int[] degreeSequence) {
+        int n = degreeSequence.length;
+        int max = 0;
+        for (int d : degreeSequence) {
+            max = Math.max(max, d);
+        }
+        int[] cellOfDegree = new int[max + 1];
+        Arrays.fill(cellOfDegree, -1);
+        int[] sizes = new int[n];
+        int count = 0;
+        for (int d : degreeSequence) {
+            if (cellOfDegree[d] == -1) {
+                cellOfDegree[d] = count;
+                count++;
+            }
+            sizes[cellOfDegree[d]]++;
+        }
+        int[][] cells = new int[count][];
+        for (int index = 0; index < count; index++) {
+            cells[index] = new int[sizes[index]];
+            sizes[index] = 0;
+        }
+        for (int v = 0; v < n; v++) {
+            int index = cellOfDegree[degreeSequence[v]];
+            cells[index][sizes[index]] = v;
+            sizes[index]++;
+        }
+        return cells;
+    }
+
+    private void setup(int n, IntGraph g) {
+        if (cellOf == null || cellOf.length < n) {
+            cellOf = new int[n];
+            vertices = new int[n];
+            cellStart = new int[n];
+            cellSize = new int[n];
+            queue = new int[n];
+            inQueue = new boolean[n];
+            offsets = new int[n + 1];
+            counts = new int[n];
+            touched = new int[n];
+            cellsToSplit = new int[n];
+            marked = new boolean[n];
+        }
+        for (int v = 0; v < n; v++) {
+            inQueue[v] = false;
+            offsets[v] = 0;
+            counts[v] = 0;
+            marked[v] = false;
+        }
+        int m = g.edges.size();
+        if (neighbours == null || neighbours.length < 2 * m) {
+            neighbours = new int[Math.max(2 * m, 16)];
+        }
+        // fill each list from its end, which leaves the offsets at the starts
+        for (IntEdge e : g.edges) {
+            offsets[e.a]++;
+            offsets[e.b]++;
+        }
+        for (int v = 1; v < n; v++) {
+            offsets[v] += offsets[v - 1];
+        }
+        offsets[n] = 2 * m;
+        for (IntEdge e : g.edges) {
+            neighbours[--offsets[e.a]] = e.b;
+            neighbours[--offsets[e.b]] = e.a;
+        }
+    }
+
+    private void enqueue(int cell) {
+        if (!inQueue[cell]) {
+            inQueue[cell] = true;
+            queue[queueSize++] = cell;
+        }
+    }
+
+    /**
+     * Split the cells by the number of neighbours of their vertices in the splitter.
+     * Only cells with a vertex next to the splitter are looked at, and only the counts of
+     * those vertices are cleared afterwards.
+     */
+    private void splitAll(int splitter) {
+        touchedCount = 0;
+        int start = cellStart[splitter];
+        int end = start + cellSize[splitter];
+        for (int i = start; i < end; i++) {
+            int v = vertices[i];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int w = neighbours[k];
+                if (counts[w] == 0) {
+                    touched[touchedCount] = w;
+                    touchedCount++;
+                }
+                counts[w]++;
+            }
+        }
+        int cellCountToSplit = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = cellOf[touched[i]];
+            if (!marked[cell]) {
+                marked[cell] = true;
+                cellsToSplit[cellCountToSplit] = cell;
+                cellCountToSplit++;
+            }
+        }
+        for (int i = 0; i < cellCountToSplit; i++) {
+            marked[cellsToSplit[i]] = false;
+            split(cellsToSplit[i]);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            counts[touched[i]] = 0;
+        }
+    }
+
+    /**
+     * Sort a cell by count, and make each run of equal counts after the first a new cell.
+     */
+    private void split(int cell) {
+        int start = cellStart[cell];
+        int size = cellSize[cell];
+        if (size == 1) {
+            return;
+        }
+        int first = counts[vertices[start]];
+        boolean uniform = true;
+        for (int i = start + 1; i < start + size && uniform; i++) {
+            uniform = counts[vertices[i]] == first;
+        }
+        if (uniform) {
+            return;
+        }
+        // insertion sort by count and then vertex, as cells are small
+        for (int i = start + 1; i < start + size; i++) {
+            int v = vertices[i];
+            int j = i - 1;
+            while (j >= start && isAfter(vertices[j], v)) {
+                vertices[j + 1] = vertices[j];
+                j--;
+            }
+            vertices[j + 1] = v;
+        }
+        int runStart = start;
+        for (int i = start + 1; i <= start + size; i++) {
+            if (i == start + size || counts[vertices[i]] != counts[vertices[runStart]]) {
+                int target;
+                if (runStart == start) {
+                    target = cell;
+                    cellSize[cell] = i - runStart;
+                } else {
+                    target = cellCount++;
+                    cellStart[target] = runStart;
+                    cellSize[target] = i - runStart;
+                    for (int j = runStart; j < i; j++) {
+                        cellOf[vertices[j]] = target;
+                    }
+                }
+                enqueue(target);
+                runStart = i;
+            }
+        }
+    }
+
+    private boolean isAfter(int v, int w) {
+        if (counts[v] != counts[w]) {
+            return counts[v] > counts[w];
+        }
+        return v > w;
+    }
+
+    /**
+     * @return the cells, each in vertex order, in order of first vertex
+     */
+    private int[][] getCells() {
+        int[][] cells = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cells[cell] = Arrays.copyOfRange(
+                    vertices, cellStart[cell], cellStart[cell] + cellSize[cell]);
+            Arrays.sort(cells[cell]);
+        }
+        Arrays.sort(cells, new Comparator<int[]>() {
+
+            @Override
+            public int compare(int[] a, int[] b) {
+                return a[0] - b[0];
+            }
+
+        });
+        return cells;
+    }
+
+}
@@ -0,0 +1,53 @@
+package degreeseq;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the graphical degree sequences of a given length, in non-increasing order, so
+ * that every graph on that many vertices has exactly one of them.
+ *
+ * The sequences are made largest first, a degree at a time, and each complete one is
+ * checked with a {@link GraphicalityOracle}; an odd degree sum is skipped without a check.
+ */
+public class GraphicalSequenceLister {
+
+    private final GraphicalityOracle oracle;
+
+    public GraphicalSequenceLister() {
+        this.oracle = new GraphicalityOracle();
+    }
+
+    /**
+     * @param n the number of vertices
+     * @param minDegree the smallest degree allowed - 1 for the sequences of graphs with no
+     *        isolated vertices
+     * @return the graphical sequences, in reverse lexicographic order
+     */
+    public List<int[]> list(int n, int minDegree) {
+        List<int[]> sequences = new ArrayList<int[]>();
+        if (n > 0) {
+            list(new int[n], 0, n - 1, 0, minDegree, sequences);
+        }
+        return sequences;
+    }
+
+    private void list(int[] sequence, int index, int max, int sum, int minDegree,
+            List<int[]> sequences) {
+        int n = sequence.length;
+        if (index == n) {
+            if (sum % 2 == 0) {
+                oracle.set(sequence);
+                if (oracle.isGraphical()) {
+                    sequences.add(sequence.clone());
+                }
+            }
+            return;
+        }
+        for (int d = max; d >= minDegree; d--) {
+            sequence[index] = d;
+            list(sequence, index + 1, d, sum + d, minDegree, sequences);
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+package degreeseq;
+
+/**
+ * Tests a degree sequence for being graphical while the sequence changes a little at a
+ * time, as it does when a generator uses up the stubs of its vertices one edge at a time.
+ *
+ * The sequence is held as a histogram : the number of vertices with each degree. So it
+ * never needs sorting, and taking one stub from a vertex, or adding or removing a vertex,
+ * is O(1). The Erd&#337;s-Gallai inequalities
+ * <pre>
+ *   d<sub>1</sub> + ... + d<sub>k</sub> &lt;= k(k - 1) + min(d<sub>k+1</sub>, k) + ... + min(d<sub>n</sub>, k)
+ * </pre>
+ * for the sequence in non-increasing order need only be checked for the k at the end of
+ * each run of equal degrees, so one pass down the histogram - with prefix counts and sums
+ * of the degrees below, made in a pass up it - answers the question in O(maximum degree),
+ * without making any objects.
+ */
+public class GraphicalityOracle {
+
+    /**
+     * For each degree, the number of vertices with that degree.
+     */
+    private int[] counts;
+
+    /**
+     * The number of vertices, and the sum of the degrees, with degree less than each index.
+     */
+    private int[] countsBelow;
+
+    private long[] sumsBelow;
+
+    /**
+     * For each degree, the number of vertices taken from it by the last call to joinLargest.
+     */
+    private int[] joined;
+
+    private int joinedTop;
+
+    private int vertexCount;
+
+    private long degreeSum;
+
+    /**
+     * The number of vertices whose degree has gone below zero.
+     */
+    private int invalidCount;
+
+    public GraphicalityOracle() {
+        this(16);
+    }
+
+    /**
+     * @param capacity the largest degree to make room for at first
+     */
+    public GraphicalityOracle(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Start again from a degree sequence, in any order.
+     */
+    public void set(int[] degreeSequence) {
+        set(degreeSequence, degreeSequence.length);
+    }
+
+    /**
+     * Start again from the first length degrees of a sequence.
+     */
+    public void set(int[] degreeSequence, int length) {
+        int max = 0;
+        for (int i = 0; i < length; i++) {
+            max = Math.max(max, degreeSequence[i]);
+        }
+        if (max >= counts.length) {
+            allocate(Math.max(max + 1, 2 * counts.length));
+        } else {
+            for (int d = 0; d < counts.length; d++) {
+                counts[d] = 0;
+            }
+        }
+        vertexCount = 0;
+        degreeSum = 0;
+        invalidCount = 0;
+        for (int i = 0; i < length; i++) {
+            add(degreeSequence[i]);
+        }
+    }
+
+    public void add(int degree) {
+        vertexCount++;
+        degreeSum += degree;
+        if (degree < 0) {
+            invalidCount++;
+        } else {
+            if (degree >= counts.length) {
+                grow(degree);
+            }
+            counts[degree]++;
+        }
+    }
+
+    public void remove(int degree) {
+        vertexCount--;
+        degreeSum -= degree;
+        if (degree < 0) {
+            invalidCount--;
+        } else {
+            counts[degree]--;
+        }
+    }
+
+    /**
+     * Use up one stub of a vertex, so that its degree goes from degree to degree - 1.
+     */
+    public void decrement(int degree) {
+        remove(degree);
+        add(degree - 1);
+    }
+
+    /**
+     * Give back one stub to a vertex, so that its degree goes from degree to degree + 1.
+     */
+    public void increment(int degree) {
+        remove(degree);
+        add(degree + 1);
+    }
+
+    /**
+     * Use up one stub from each of the count vertices of largest degree, as when a new
+     * vertex of degree count is joined to them. Only vertices of positive degree are used.
+     *
+     * @return the number of vertices used, which is less than count if there were not enough
+     */
+    public int joinLargest(int count) {
+        int top = counts.length - 1;
+        while (top > 0 && counts[top] == 0) {
+            top--;
+        }
+        joinedTop = top;
+        int left = count;
+        int movedDown = 0;
+        for (int d = top; d > 0; d--) {
+            // the vertices moved down from d + 1 are already used
+            int take = Math.min(left, counts[d] - movedDown);
+            for (int i = 0; i < take; i++) {
+                decrement(d);
+            }
+            joined[d] = take;
+            left -= take;
+            movedDown = take;
+        }
+        return count - left;
+    }
+
+    /**
+     * Give back the stubs used by the last call to joinLargest.
+     */
+    public void unjoinLargest() {
+        for (int d = 1; d <= joinedTop; d++) {
+            for (int i = 0; i < joined[d]; i++) {
+                increment(d - 1);
+            }
+            joined[d] = 0;
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public long getDegreeSum() {
+        return degreeSum;
+    }
+
+    /**
+     * @return true if some simple graph has the current degree sequence
+     */
+    public boolean isGraphical() {
+        if (invalidCount > 0 || degreeSum % 2 != 0) {
+            return false;
+        }
+        int top = counts.length - 1;
+        while (top > 0 && counts[top] == 0) {
+            top--;
+        }
+        if (top >= vertexCount) {
+            return false;
+        }
+        countsBelow[0] = 0;
+        sumsBelow[0] = 0;
+        for (int d = 0; d < top; d++) {
+            countsBelow[d + 1] = countsBelow[d] + counts[d];
+            sumsBelow[d + 1] = sumsBelow[d] + ((long) d * counts[d]);
+        }
+
+        // k is the number of vertices with degree at least d, and left is their degree sum
+        long k = 0;
+        long left = 0;
+        for (int d = top; d > 0; d--) {
+            if (counts[d] == 0) continue;
+            k += counts[d];
+            left += (long) d * counts[d];
+            long right = k * (k - 1);
+            if (k >= d) {
+                right += sumsBelow[d];
+            } else {
+                // the vertices below d with degree at least k count k each
+                int kIndex = (int) k;
+                right += k * (countsBelow[d] - countsBelow[kIndex]) + sumsBelow[kIndex];
+            }
+            if (left > right) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void allocate(int size) {
+        counts = new int[size];
+        countsBelow = new int[size];
+        sumsBelow = new long[size];
+        joined = new int[size];
+    }
+
+    private void grow(int degree) {
+        int[] oldCounts = counts;
+        allocate(Math.max(degree + 1, 2 * oldCounts.length));
+        System.arraycopy(oldCounts, 0, counts, 0, oldCounts.length);
+    }
+
+}
@@ -1,92 +1,67 @@
 package degreeseq;
 
-import graph.model.Graph;
 import graph.model.IntGraph;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class HakimiHavelGenerator {
     
+    /**
+     * Make one graph with this degree sequence, by joining the vertex with the most stubs
+     * left to the vertices with the next most, until no stubs are left. The vertices keep
+     * their positions in the sequence, so vertex i has degree degSeq[i].
+     * 
+     * @return the graph, which is missing edges if the sequence is not graphical
+     */
     public static IntGraph generate(int[] degSeq) {
         IntGraph g = new IntGraph();
         int n = degSeq.length;
-        List<Integer> currentSeq = asList(degSeq);
-        int i = 0;
-        while (i < n) {
-            currentSeq = reduce(currentSeq, i, g);
-//            System.out.println(i + " ds = " + currentSeq + " g = " + g);
-            if (currentSeq.isEmpty()) {
+        int[] remaining = degSeq.clone();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        while (true) {
+            sortByRemaining(order, remaining);
+            int v = order[0];
+            int k = remaining[v];
+            if (k == 0) {
                 return g;
-            } else {
-                i = getNext(i, g, degSeq);
             }
-        }
-        return g;
-    }
-    
-    private static int getNext(int i, IntGraph g, int[] degSeq) {
-        for (int v = 0; v < degSeq.length; v++) {
-            if (degSeq[v] - g.degree(v) > 0) {
-                return v;
+            remaining[v] = 0;
+            for (int i = 1; i <= k; i++) {
+                if (i == n || remaining[order[i]] == 0) {
+                    return g;   // not graphical
+                }
+                int w = order[i];
+                g.makeEdge(Math.min(v, w), Math.max(v, w));
+                remaining[w]--;
             }
         }
-        return i;
     }
     
-    private static List<Integer> asList(int[] arr) {
-        List<Integer> list = new ArrayList<Integer>();
-        for (int i : arr) {
-            list.add(i);
-        }
-        return list;
-    }
-    
-    private static List<Integer> reduce(List<Integer> degSeq, int v, Graph g) {
-        int k = degSeq.get(0);
-        int n = degSeq.size();
-        List<Integer> redDegSeq = new ArrayList<Integer>();
-        for (int i = 1; i < n; i++) {
-            int dI = degSeq.get(i);
-            if (i <= k) {
-                g.makeEdge(v, v + i);
-                if (dI > 1) {
-                    redDegSeq.add(dI - 1);
+    /**
+     * Sort into order of decreasing stubs left, and then of position.
+     */
+    private static void sortByRemaining(Integer[] order, final int[] remaining) {
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (remaining[a] != remaining[b]) {
+                    return remaining[b] - remaining[a];
                 }
-            } else {
-                redDegSeq.add(dI);
+                return a - b;
             }
-        }
-        Collections.sort(redDegSeq);
-        Collections.reverse(redDegSeq);
-        return redDegSeq;
+            
+        });
     }
     
     public static boolean isGraphical(int[] degSeq) {
-        int sum = 0;
-        int n = degSeq.length;
-        for (int k = 1; k < n + 1; k++) {
-            sum += degSeq[k - 1];
-            int stubCount = k * (k - 1);
-            int remainingDegree = calculateRemainingDegree(degSeq, k);
-//            System.out.println(k + "\t" + sum + "\t" + stubCount + "\t" + remainingDegree);
-            if (sum <= stubCount + remainingDegree) {
-                continue;
-            } else {
-                return false;
-            }
-        }
-        return (sum % 2 == 0);
-    }
-    
-    private static int calculateRemainingDegree(int[] degSeq, int k) {
-        int n = degSeq.length;
-        int sum = 0;
-        for (int i = k; i < n; i++) {
-            sum += Math.min(k, degSeq[i - 1]);
-        }
-        return sum;
+        GraphicalityOracle oracle = new GraphicalityOracle(degSeq.length);
+        oracle.set(degSeq);
+        return oracle.isGraphical();
     }
     
 }
@@ -19,6 +19,11 @@ public class KiralyHHGenerator {
     
     private GeneratorHandler handler;
     
+    /**
+     * The search tree for each number of vertices, from 4 up.
+     */
+    private KiralyTree[] trees;
+    
     public KiralyHHGenerator() {
         this(new SystemOutHandler());
     }
@@ -28,28 +33,40 @@ public class KiralyHHGenerator {
     }
     
     public void generate(int[] degreeSequence) {
-        generate(degreeSequence, degreeSequence.length, new IntGraph());
+        int n = degreeSequence.length;
+        trees = new KiralyTree[n + 1];
+        for (int level = 4; level <= n; level++) {
+            final int next = level - 1;
+            trees[level] = new KiralyTree(level - 1, new KiralyTreeListener() {
+
+                @Override
+                public void handle(int[] degreeSequence, EdgeStack edges) {
+                    generate(degreeSequence, next, edges);
+                }
+                
+            });
+        }
+        if (n >= 3) {
+            generate(degreeSequence, n, new EdgeStack(n * n));
+        }
         handler.finish();
     }
     
-    public void generate(int[] degreeSequence, final int n, IntGraph g) {
-//        System.out.println("recursing " + n + " " + Arrays.toString(degreeSequence) + " " + g);
-        int dN = degreeSequence[n - 1];
-        KiralyTree tree = new KiralyTree(n - 1, new KiralyTreeListener() {
-
-            @Override
-            public void handle(int[] degreeSequence, IntGraph g) {
-                generate(degreeSequence, n - 1, new IntGraph(g));
-            }
-            
-        });
+    /**
+     * The trees for each number of vertices are made once, and the edges are shared
+     * between them, so the recursion makes no objects except for the graphs it outputs.
+     */
+    private void generate(int[] degreeSequence, int n, EdgeStack edges) {
         if (n == 3) {
-            IntGraph h = tree.connectRemaining(degreeSequence, g);
-            if (h != null) {
-                handler.handle(g, h);
+            IntGraph parent = edges.toGraph();
+            int added = KiralyTree.connectRemaining(degreeSequence, edges);
+            if (added >= 0) {
+                IntGraph h = edges.toGraph();
+                edges.pop(added);
+                handler.handle(parent, h);
             }
         } else {
-            tree.traverse(degreeSequence, g, n, dN);
+            trees[n].traverse(degreeSequence, edges, n, degreeSequence[n - 1]);
         }
     }
     
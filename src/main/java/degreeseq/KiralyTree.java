@@ -1,279 +1,179 @@
 package degreeseq;
 
-import graph.model.IntEdge;
-import graph.model.IntGraph;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.List;
-
+/**
+ * The search tree of Kiraly's algorithm for the neighbours of the last vertex of a degree
+ * sequence. The node at depth r decides whether vertex r is joined to the last vertex (the
+ * left child) or not (the right child), so each leaf, at depth s, is a set chiP of
+ * neighbours.
+ *
+ * The tree is never built : the path from the root to the current node is given by chiP
+ * itself, since the path goes left at depth r exactly when r is in chiP. So the traversal
+ * is a loop over chiP - up to the deepest left turn that can be made a right turn, then
+ * down again taking the left child wherever the sequence stays graphical - with no
+ * recursion and nothing allocated. The edges to the last vertex are kept on a shared
+ * {@link EdgeStack}, and as they are added in order of r each one is on top of the stack
+ * when it is taken away again.
+ */
 public class KiralyTree {
     
-    public class TreeNode {
-        
-        public int id;
-        
-        public int r;
-        
-        public TreeNode parent;
-        
-        public TreeNode leftChild;
-        
-        public TreeNode rightChild;
-        
-        public int[] currentDegSeq;
-        
-        public boolean hasRedLeftChild;
-        
-        public boolean hasRedRightChild;
-        
-        public boolean isLeftChild;
-        
-        public boolean isRed;
-        
-        public BitSet chiP;
-        
-        public TreeNode(int r, int s) {
-            this(null, r, s, false, 0);
-        }
-        
-        public TreeNode(TreeNode parent, int r, int s, boolean isLeftChild,
-                int id) {
-            this.id = id;
-            this.r = r;
-            this.parent = parent;
-            this.isLeftChild = isLeftChild;
-            if (r < s) {
-                leftChild = new TreeNode(this, r + 1, s, true, id + 1);
-                rightChild = new TreeNode(this, r + 1, s, false,
-                        leftChild.rightmostLeaf().id + 1);
-            }
-        }
-        
-        public int getA() {
-            return chiP.cardinality();
-        }
-        
-        public TreeNode rightmostLeaf() {
-            if (isLeaf()) {
-                return this;
-            } else {
-                return rightChild.rightmostLeaf();
-            }
-        }
-        
-        public boolean isLeaf() {
-            return leftChild == null; // could check both...
-        }
-        
-        public String toString() {
-            if (isLeaf()) {
-                return "[" + id + "]";
-            } else {
-                return "[" + id + "](" + leftChild + "," + rightChild + ")";
-            }
-        }
-        
-    }
-    
-    private TreeNode root;
+    /**
+     * The depth of the leaves, which is the number of vertices before the last one.
+     */
+    private final int s;
     
-    private KiralyTreeListener listener;
-    
-    public KiralyTree(int s, KiralyTreeListener listener) {
-        root = new TreeNode(0, s);
-        this.listener = listener;
-    }
+    private final KiralyTreeListener listener;
     
-    public TreeNode getLeftmostLeaf(int d) {
-        return moveToLeftmostLeaf(d, root);
-    }
+    /**
+     * Holds the degree sequence less the edges in chiP, kept up to date as the traversal
+     * adds and removes them.
+     */
+    private final GraphicalityOracle oracle;
     
-    private TreeNode moveToLeftmostLeaf(int d, TreeNode t) {
-        t.isRed = true;
-        if (t.isLeaf()) {
-            return t;
-        } else {
-            if (d > 0) {
-                return moveToLeftmostLeaf(d - 1, t.leftChild);
-            } else {
-                return moveToLeftmostLeaf(0, t.rightChild);
-            }
-        }
-    }
+    private final boolean[] chiP;
     
-    private void handleLeaf(int[] degreeSequence, TreeNode current, BitSet chiP, IntGraph g, int n, int degree) {
-        if (chiP.cardinality() == degree) {
-            listener.handle(reduce(degreeSequence, chiP, n - 1), g);
-        }
-        if (current.isLeftChild) {
-            upFromLeft(degreeSequence, current.parent, chiP, g, n, degree);
-        } else {
-            upFromRight(degreeSequence, current.parent, chiP, g, n, degree);
-        }
-    }
+    private int chiPSize;
     
-    public void traverse(int[] degreeSequence, IntGraph g, int n, int degree) {
-        TreeNode startLeaf = this.getLeftmostLeaf(degree);
-        BitSet chiP = new BitSet();
-        for (int i = 0; i < degree; i++) {
-            chiP.set(i);
-        }
-        setEdges(g, chiP, n - 1);
-        // System.out.println("traversing from current " + startLeaf + " n= " +
-        // n + " degree = " + degree + " chiP " + chiP);
-        handleLeaf(degreeSequence, startLeaf, chiP, g, n, degree);
-    }
+    /**
+     * The degree sequence less the edges in chiP, passed to the listener.
+     */
+    private final int[] reduced;
     
-    private void traverseTreeDown(int[] degreeSequence, TreeNode current, BitSet chiP, IntGraph g, int n, int degree) {
-        // System.out.println("DDD " + String.format("%5s", n + ":" +
-        // current.id) + " " + Arrays.toString(degreeSequence) + " " + degree +
-        // " " + chiP + " " + g);
-        if (current.isLeaf()) {
-            handleLeaf(degreeSequence, current, chiP, g, n, degree);
-        } else {
-            if (chiP.cardinality() < degree && isGraphical(degreeSequence, chiP, n - 1)) { // left is red
-                g.makeEdge(current.r, n - 1);
-                chiP.set(current.r);
-                traverseTreeDown(degreeSequence, current.leftChild, chiP, g, n, degree);
-            } else {
-                traverseTreeDown(degreeSequence, current.rightChild, chiP, g, n, degree);
+    public KiralyTree(int s, KiralyTreeListener listener) {
+        this.s = s;
+        this.listener = listener;
+        this.oracle = new GraphicalityOracle(s + 1);
+        this.chiP = new boolean[s];
+        this.reduced = new int[s + 1];
+    }
+    
+    /**
+     * Visit every leaf where the last vertex has all its neighbours and the rest of the
+     * sequence is graphical, passing the reduced sequence to the listener.
+     * 
+     * @param degreeSequence the degree sequence, of length at least n
+     * @param edges the edges made so far, which are the same on return
+     * @param n the number of vertices, which is s + 1
+     * @param degree the degree of the last vertex
+     */
+    public void traverse(int[] degreeSequence, EdgeStack edges, int n, int degree) {
+        int last = n - 1;
+        if (degree > s) {
+            return;
+        }
+        oracle.set(degreeSequence, n);
+        for (int r = 0; r < s; r++) {
+            chiP[r] = false;
+        }
+        chiPSize = 0;
+        
+        // start at the leftmost leaf that has enough neighbours
+        for (int r = 0; r < degree; r++) {
+            include(degreeSequence, edges, r, last);
+        }
+        while (true) {
+            if (chiPSize == degree && oracle.isGraphical()) {
+                listener.handle(reduce(degreeSequence, last), edges);
             }
-        }
-    }
-    
-    private void upFromLeft(int[] degreeSequence, TreeNode current, BitSet chiP, IntGraph g, int n, int degree) {
-        chiP.clear(current.r);
-        removeLast(g);
-        // System.out.println("UFL " + String.format("%5s", n + ":" +
-        // current.id) + " " + Arrays.toString(degreeSequence) + " " + degree +
-        // " " + chiP + " " + g);
-        if (chiP.cardinality() < degree) { // extension is possible
-            traverseTreeDown(degreeSequence, current.rightChild, chiP, g, n, degree);
-        } else {
-            if (current.isLeftChild) {
-                upFromLeft(degreeSequence, current.parent, chiP, g, n, degree);
-            } else {
-                upFromRight(degreeSequence, current.parent, chiP, g, n, degree);
+            
+            // up to the deepest left turn that can be made a right turn instead, skipping
+            // those with too few vertices after them to make up the degree
+            int r = s - 1;
+            while (r >= 0) {
+                if (chiP[r]) {
+                    exclude(degreeSequence, edges, r, last);
+                    if (chiPSize < degree && chiPSize + (s - 1 - r) >= degree) {
+                        break;
+                    }
+                }
+                r--;
             }
-        }
-    }
-    
-    private void upFromRight(int[] degreeSequence, TreeNode current, BitSet chiP, IntGraph g, int n, int degree) {
-        // System.out.println("UFR " + String.format("%5s", n + ":" +
-        // current.id) + " " + Arrays.toString(degreeSequence) + " " + degree +
-        // " " + chiP + " " + g);
-        if (current.parent == null) {
-            // System.out.println("At root" + g);
-            return; // reached the root
-        } else {
-            if (current.isLeftChild) {
-                upFromLeft(degreeSequence, current.parent, chiP, g, n, degree);
-            } else {
-                upFromRight(degreeSequence, current.parent, chiP, g, n, degree);
+            if (r < 0) {
+                return;  // reached the root
             }
-        }
-    }
-    
-    private void setEdges(IntGraph g, BitSet chiP, int n) {
-        for (int i = chiP.nextSetBit(0); i >= 0; i = chiP.nextSetBit(i + 1)) {
-            if (g.hasEdge(i, n)) {
-                continue;
-            } else {
-                g.makeEdge(i, n);
+            
+            // down from the right child, going left whenever possible
+            for (int t = r + 1; t < s; t++) {
+                if (chiPSize < degree && oracle.isGraphical()) {
+                    include(degreeSequence, edges, t, last);
+                }
             }
         }
     }
     
-    public IntGraph connectRemaining(int[] degreeSequence, IntGraph p) {
-        IntGraph g = new IntGraph(p);
-        // XXX - there must be a better way...
-        // System.out.print("LEAF " + Arrays.toString(degreeSequence));
-        boolean complete = false;
+    /**
+     * Join up the first three vertices of a sequence with at most one edge between each
+     * pair, as the last step of the algorithm.
+     * 
+     * @return the number of edges pushed onto the stack, or -1 if there is no way to do it
+     */
+    public static int connectRemaining(int[] degreeSequence, EdgeStack edges) {
         if (hasPattern(degreeSequence, 0, 0, 0)) {
-            complete = true;
+            return 0;
         } else if (hasPattern(degreeSequence, 1, 1, 2)) {
-            g.makeEdge(0, 2);
-            g.makeEdge(1, 2);
-            complete = true;
+            edges.push(0, 2);
+            edges.push(1, 2);
+            return 2;
         } else if (hasPattern(degreeSequence, 1, 2, 1)) {
-            g.makeEdge(0, 1);
-            g.makeEdge(1, 2);
-            complete = true;
+            edges.push(0, 1);
+            edges.push(1, 2);
+            return 2;
         } else if (hasPattern(degreeSequence, 2, 1, 1)) {
-            g.makeEdge(0, 1);
-            g.makeEdge(0, 2);
-            complete = true;
+            edges.push(0, 1);
+            edges.push(0, 2);
+            return 2;
         } else if (hasPattern(degreeSequence, 0, 1, 1)) {
-            g.makeEdge(1, 2);
-            complete = true;
+            edges.push(1, 2);
+            return 1;
         } else if (hasPattern(degreeSequence, 1, 0, 1)) {
-            g.makeEdge(0, 2);
-            complete = true;
+            edges.push(0, 2);
+            return 1;
         } else if (hasPattern(degreeSequence, 1, 1, 0)) {
-            g.makeEdge(0, 1);
-            complete = true;
+            edges.push(0, 1);
+            return 1;
         } else if (hasPattern(degreeSequence, 2, 2, 2)) {
-            g.makeEdge(0, 1);
-            g.makeEdge(0, 2);
-            g.makeEdge(1, 2);
-            complete = true;
-        }
-        
-        if (complete) {
-            // System.out.println("\t" + g.getEdgeStringWithEdgeOrder() +
-            // " COMPLETE");
-//            listener.handle(degreeSequence, g);
-            return g;
+            edges.push(0, 1);
+            edges.push(0, 2);
+            edges.push(1, 2);
+            return 3;
         } else {
-            // System.out.println("\t" + g.getEdgeStringWithEdgeOrder() +
-            // " INCOMPLETE");
-            return null;
+            return -1;
         }
     }
     
-    private boolean hasPattern(int[] degreeSequence, int i0, int i1, int i2) {
+    private static boolean hasPattern(int[] degreeSequence, int i0, int i1, int i2) {
         return degreeSequence[0] == i0 && degreeSequence[1] == i1
                 && degreeSequence[2] == i2;
     }
     
-    private void removeLast(IntGraph g) {
-        List<IntEdge> edges = new ArrayList<IntEdge>();
-        for (int i = 0; i < g.esize() - 1; i++) {
-            edges.add(g.edges.get(i));
-        }
-        g.edges = edges;
+    /**
+     * Add r to chiP, taking a stub from both r and the vertex n being connected.
+     */
+    private void include(int[] degreeSequence, EdgeStack edges, int r, int n) {
+        oracle.decrement(degreeSequence[r]);
+        oracle.decrement(degreeSequence[n] - chiPSize);
+        chiP[r] = true;
+        chiPSize++;
+        edges.push(r, n);
     }
     
-    private boolean isGraphical(int[] degreeSequence, BitSet chiP, int n) {
-        // TODO : replace with linear HH
-        return HakimiHavelGenerator.isGraphical(sort(reduce(degreeSequence,chiP, n)));
+    private void exclude(int[] degreeSequence, EdgeStack edges, int r, int n) {
+        edges.pop();
+        chiP[r] = false;
+        chiPSize--;
+        oracle.increment(degreeSequence[r] - 1);
+        oracle.increment(degreeSequence[n] - chiPSize - 1);
     }
     
-    private int[] reduce(int[] degreeSequence, BitSet chiP, int n) {
-        int[] reducedDegreeSeq = new int[degreeSequence.length];
-        for (int i = 0; i < degreeSequence.length; i++) {
-            if (chiP.get(i)) {
-                reducedDegreeSeq[i] = degreeSequence[i] - 1;
-            } else if (i == n) {
-                reducedDegreeSeq[i] = degreeSequence[i] - chiP.cardinality();
+    private int[] reduce(int[] degreeSequence, int n) {
+        for (int i = 0; i < n; i++) {
+            if (chiP[i]) {
+                reduced[i] = degreeSequence[i] - 1;
             } else {
-                reducedDegreeSeq[i] = degreeSequence[i];
+                reduced[i] = degreeSequence[i];
             }
         }
-        return reducedDegreeSeq;
-    }
-    
-    private int[] sort(int[] arr) {
-        int[] sortedArr = new int[arr.length];
-        System.arraycopy(arr, 0, sortedArr, 0, arr.length);
-        Arrays.sort(sortedArr);
-        return sortedArr;
-    }
-    
-    public String toString() {
-        return root.toString();
+        reduced[n] = degreeSequence[n] - chiPSize;
+        return reduced;
     }
     
 }
@@ -1,9 +1,12 @@
 package degreeseq;
 
-import graph.model.IntGraph;
-
 public interface KiralyTreeListener {
 
-    public void handle(int[] degreeSequence, IntGraph g);
+    /**
+     * @param degreeSequence the sequence less the edges to the last vertex; only valid
+     *        for the duration of the call
+     * @param edges the edges made so far, to be left as they were on return
+     */
+    public void handle(int[] degreeSequence, EdgeStack edges);
     
 }
@@ -1,15 +1,17 @@
 package degreeseq;
 
+import canon.Certificate;
 import generate.handler.GeneratorHandler;
 import generate.handler.SystemOutHandler;
 import graph.model.Graph;
+import graph.model.IntEdge;
 import graph.model.IntGraph;
 import group.Partition;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
-import java.util.SortedSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 public class OrbitSaturatingGenerator {
     
@@ -19,99 +21,181 @@ public class OrbitSaturatingGenerator {
     
     private GeneratorHandler handler;
     
+    /**
+     * Makes the orbits of each child; an {@link EquitableOrbitPartitioner} refines the
+     * orbits of the parent, where the others start again from scratch.
+     */
     private OrbitPartitioner partitioner;
     
+    /**
+     * In counting mode, counts the isomorphism classes of the complete graphs; null when
+     * the graphs go to a handler.
+     */
+    private final LongAdder counter;
+    
+    /**
+     * The certificates of the classes counted for the current degree sequence. The
+     * canonical checks can pass more than one graph from a class, so a count of the
+     * graphs alone would be too high.
+     */
+    private final Set<Certificate> classes;
+    
+    /**
+     * The degrees in the working graph, which has edges pushed onto it and popped off it
+     * as the search goes down and back up.
+     */
+    private int[] degrees;
+    
     public OrbitSaturatingGenerator() {
         this(new SystemOutHandler());
     }
     
     public OrbitSaturatingGenerator(GeneratorHandler handler) {
+        this(handler, null);
+    }
+    
+    /**
+     * Make a generator that only counts the non-isomorphic graphs, without handling them.
+     * 
+     * @param counter the counter to add to, which can be shared between generators as
+     *        long as they generate different degree sequences
+     */
+    public OrbitSaturatingGenerator(LongAdder counter) {
+        this(null, counter);
+    }
+    
+    private OrbitSaturatingGenerator(GeneratorHandler handler, LongAdder counter) {
         this.handler = handler;
-//        this.partitioner = new MorganNumberPartitioner();
+        this.counter = counter;
+        this.classes = new HashSet<Certificate>();
         this.partitioner = new SignatureOrbitPartitioner();
     }
     
+    /**
+     * Use another partitioner than the {@link SignatureOrbitPartitioner}. An
+     * {@link EquitableOrbitPartitioner} refines the cells of each parent rather than
+     * starting again, but its cells are equitable cells, which can be coarser than the
+     * orbits of the signature partitioner.
+     */
+    public void setPartitioner(OrbitPartitioner partitioner) {
+        this.partitioner = partitioner;
+    }
+    
     public void generate(int[] degSeq) {
         originalDegSeq = degSeq;
         degreeOrbits = getOrbits(degSeq);
-        generate(0, getOrbits(degSeq), new IntGraph(), degSeq);
-        handler.finish();
-    }
-    
-    public void generate(int orbit, Partition orbits, IntGraph parent, int[] degSeq) {
-//        System.out.println("Orbit " + orbit + " of " + orbits + "\t" + parent);
-        List<IntGraph> children = new ArrayList<IntGraph>();
-        saturateOrbit(orbit, orbits, parent, children, degSeq);
-        for (IntGraph child : children) {
-            Partition nextOrbits = partitioner.getOrbitPartition(child, degSeq);
-            int unsaturatedOrbit = getFirstUnsaturatedOrbit(child, nextOrbits, degSeq);
-//            System.out.println(child + "\t" + nextOrbits + "\t" + unsaturatedOrbit);
-            BitSet component = new BitSet();
-            findComponent(child, 0, component);
-            boolean isSSG = isSSG(component, child, degSeq); 
-            if (isSSG) {
-                if (component.cardinality() == degSeq.length) {
-//                    if (isCanonical(child, degreeOrbits)) {
-//                    System.out.println("complete " + child 
-//                                    + "\t" + child.esize()
-//                                    + "\t" + getCert(child, new Permutation(child.vsize()))
-//                                    + "\t" + isCanonical(child, degreeOrbits)
-//                                    + "\t" + isPartitionCanonical(child, degreeOrbits)
-//                    );
-                    if (CanonicalChecker.isPartitionCanonical(child, degreeOrbits, originalDegSeq)) {
-                        handler.handle(parent, child);
-                    }
-                } else {
-//                    System.out.println("SSG " + child + "\t" + child.esize());
-                }
-            } else {
-                if (!CanonicalChecker.isPartitionCanonical(child, degreeOrbits, originalDegSeq)) continue;
-                generate(unsaturatedOrbit, nextOrbits, child, degSeq);
-            }
+        degrees = new int[degSeq.length];
+        classes.clear();
+        generate(0, EquitableOrbitPartitioner.getDegreeCells(degSeq), new IntGraph(), degSeq);
+        if (handler != null) {
+            handler.finish();
         }
     }
     
-    public void saturateOrbit(int orbitIndex, Partition orbits, IntGraph g, List<IntGraph> children, int[] degSeq) {
-        SortedSet<Integer> orbit = orbits.getCell(orbitIndex); 
-        if (orbit.isEmpty()) {
-            children.add(g);
+    /**
+     * @return the number of non-isomorphic graphs counted, summed over all the generators
+     *         sharing the counter, or zero for a generator with a handler
+     */
+    public long getCount() {
+        return (counter == null)? 0 : counter.sum();
+    }
+    
+    /**
+     * Saturate each vertex of an orbit in turn, and handle each way of doing so as it is
+     * made. The graph is changed in place, and is as it was on return.
+     */
+    private void generate(int orbit, int[][] orbits, IntGraph g, int[] degSeq) {
+        saturateOrbit(orbits, orbits[orbit], 0, g, g.edges.size(), degSeq);
+    }
+    
+    private void saturateOrbit(int[][] orbits, int[] orbit, int index, 
+                               IntGraph g, int parentSize, int[] degSeq) {
+        if (index == orbit.length) {
+            handleChild(orbits, g, parentSize, degSeq);
         } else {
-//            System.out.println("Orbit " + orbitIndex + " now " + orbit);
-            int v = pop(orbit);
-            List<IntGraph> vchildren = new ArrayList<IntGraph>();
-//            System.out.println("saturating vertex " + v);
-            saturateVertex(v, v + 1, g, vchildren, orbits, degSeq);
-            for (IntGraph h : vchildren) {
-                saturateOrbit(orbitIndex, orbits, h, children, degSeq);
-            }
+            int v = orbit[index];
+            saturateVertex(v, v + 1, orbits, orbit, index, g, parentSize, degSeq);
         }
     }
     
-    private int pop(SortedSet<Integer> orbit) {
-        int item = orbit.first();
-        orbit.remove(item);
-        return item;
-    }
-
-    public void saturateVertex(int v, int start, IntGraph g, List<IntGraph> children, Partition orbits, int[] degSeq) {
-//        if (!isPartitionCanonical(g, degreeOrbits)) return;
-        int degree = g.degree(v);
-        if (degSeq[v] == degree) {
-            children.add(g);
-            return;
+    /**
+     * Join v to each set of later vertices that will make up its degree, and then go on
+     * to the next vertex of the orbit.
+     */
+    private void saturateVertex(int v, int start, int[][] orbits, int[] orbit, int index, 
+                                IntGraph g, int parentSize, int[] degSeq) {
+        if (degrees[v] == degSeq[v]) {
+            saturateOrbit(orbits, orbit, index + 1, g, parentSize, degSeq);
         } else {
             for (int w = start; w < degSeq.length; w++) {
-                if (g.degree(w) < degSeq[w]) {
-                    IntGraph h = g.makeNew(v, w);
-                    saturateVertex(v, w + 1, h, children, orbits, degSeq);
+                if (degrees[w] < degSeq[w]) {
+                    push(g, v, w);
+                    saturateVertex(v, w + 1, orbits, orbit, index, g, parentSize, degSeq);
+                    pop(g, v, w);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A graph with one more orbit saturated is either complete, stuck as a saturated
+     * component that is not the whole graph, or goes on to the next unsaturated orbit.
+     */
+    private void handleChild(int[][] orbits, IntGraph child, int parentSize, int[] degSeq) {
+        int[][] nextOrbits;
+        if (partitioner instanceof EquitableOrbitPartitioner) {
+            nextOrbits = ((EquitableOrbitPartitioner) partitioner).refine(orbits, child, parentSize);
+        } else {
+            nextOrbits = EquitableOrbitPartitioner.toCells(
+                    partitioner.getOrbitPartition(child, degSeq));
+        }
+        int unsaturatedOrbit = getFirstUnsaturatedOrbit(nextOrbits, degSeq);
+        BitSet component = new BitSet();
+        findComponent(child, 0, component);
+        boolean isSSG = isSSG(component, degSeq); 
+        if (isSSG) {
+            if (component.cardinality() == degSeq.length
+                    && CanonicalChecker.isPartitionCanonical(child, degreeOrbits, originalDegSeq)) {
+                if (counter != null) {
+                    if (classes.add(Certificate.of(child))) {
+                        counter.increment();
+                    }
+                } else if (handler != null) {
+                    handler.handle(copy(child, parentSize), copy(child, child.edges.size()));
                 }
             }
+        } else if (CanonicalChecker.isPartitionCanonical(child, degreeOrbits, originalDegSeq)) {
+            generate(unsaturatedOrbit, nextOrbits, child, degSeq);
+        }
+    }
+    
+    private void push(IntGraph g, int v, int w) {
+        g.makeEdge(v, w);
+        degrees[v]++;
+        degrees[w]++;
+    }
+    
+    private void pop(IntGraph g, int v, int w) {
+        g.edges.remove(g.edges.size() - 1);
+        degrees[v]--;
+        degrees[w]--;
+    }
+    
+    /**
+     * @return a new graph with the first size edges of g
+     */
+    private IntGraph copy(IntGraph g, int size) {
+        IntGraph h = new IntGraph();
+        for (int i = 0; i < size; i++) {
+            IntEdge e = g.edges.get(i);
+            h.makeEdge(e.a, e.b);
         }
+        return h;
     }
     
-    private boolean isSSG(BitSet component, IntGraph g, int[] degSeq) {
+    private boolean isSSG(BitSet component, int[] degSeq) {
         for (int i = 0; i < degSeq.length; i++) {
-            if (component.get(i) && g.degree(i) < degSeq[i]) {
+            if (component.get(i) && degrees[i] < degSeq[i]) {
                 return false;
             }
         }
@@ -129,12 +213,11 @@ public class OrbitSaturatingGenerator {
         }
     }
     
-    private int getFirstUnsaturatedOrbit(IntGraph g, Partition orbits, int[] degSeq) {
+    private int getFirstUnsaturatedOrbit(int[][] orbits, int[] degSeq) {
         int orbitIndex = 0;
-        while (orbitIndex < orbits.size()) {
-            SortedSet<Integer> orbit = orbits.getCell(orbitIndex);
-            int rep = orbit.first();
-            if (g.degree(rep) < degSeq[rep]) {
+        while (orbitIndex < orbits.length) {
+            int rep = orbits[orbitIndex][0];
+            if (degrees[rep] < degSeq[rep]) {
                 return orbitIndex;
             }
             orbitIndex++;
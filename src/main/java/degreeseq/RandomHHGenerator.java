@@ -35,52 +35,111 @@ public class RandomHHGenerator extends BaseHHGenerator {
 	}
 	
 	public Graph generate(int[] degreeSequence) {
-		if (HakimiHavelGenerator.isGraphical(degreeSequence)) {
-		    IntGraph g = new IntGraph();
-			generate(degreeSequence, g);
+		if (isGraphical(degreeSequence)) {
+		    IntGraph g = null;
+		    while (g == null) {
+		        g = tryToGenerate(degreeSequence);
+		    }
 			return g;
 		} else {
 		    return null;
 		}
 	}
 	
-	private void generate(int[] degreeSequence, IntGraph g) {
-//	    System.out.println(g + "\t" + HakimiHavelGenerator.isGraphical(reduce(degreeSequence, g)));
-	    if (isComplete(degreeSequence, g)) return;
-	    
-		int i = getRandomVertex(degreeSequence, g, 0);
-		int j = getRandomVertex(degreeSequence, g, 0);
-		if (i == j || i == -1 || j == -1) {
-			generate(degreeSequence, g);
-		} else {
-		    List<Integer> X = g.getConnected(i);
-		    if (X == null) {
-		        X = new ArrayList<Integer>();
-		    }
-			if (isGraphicalWithConstraint(reduce(reduce(degreeSequence, g), i, j), i, X)) {
-			    g.makeEdge(i, j);
-			    generate(degreeSequence, g);
-			} else {
-			    generate(degreeSequence, g);
-			}
-		}
+	/**
+	 * Add random edges until no stubs are left. The oracle holds the remaining degrees, 
+	 * and is updated a stub at a time as edges are tried and kept. The oracle only keeps 
+	 * the new edges of one vertex away from its old ones, so a run can get stuck with no 
+	 * edge left to add; after a run of failed tries every pair is tried in turn.
+	 * 
+	 * @return the graph, or null if the run got stuck
+	 */
+	private IntGraph tryToGenerate(int[] degreeSequence) {
+	    IntGraph g = new IntGraph();
+	    int[] remaining = degreeSequence.clone();
+	    oracle.set(remaining);
+	    int n = remaining.length;
+	    int misses = 0;
+	    while (!isComplete(remaining)) {
+	        int i = getRandomVertex(remaining);
+	        int j = getRandomVertex(remaining);
+	        if (i != j && i != -1 && j != -1 && tryEdge(remaining, g, i, j)) {
+	            misses = 0;
+	        } else {
+	            misses++;
+	            if (misses > n * n) {
+	                if (!tryAnyEdge(remaining, g)) {
+	                    return null;
+	                }
+	                misses = 0;
+	            }
+	        }
+	    }
+	    return g;
 	}
 	
-	private boolean isComplete(int[] degreeSequence, IntGraph g) {
-	    int n = degreeSequence.length;
+	private boolean tryAnyEdge(int[] remaining, IntGraph g) {
+	    int n = remaining.length;
 	    for (int i = 0; i < n; i++) {
-            if (g.degree(i) < degreeSequence[i]) {
-                return false;
-            }
-        }
+	        for (int j = 0; j < n; j++) {
+	            if (i != j && remaining[i] > 0 && remaining[j] > 0 && tryEdge(remaining, g, i, j)) {
+	                return true;
+	            }
+	        }
+	    }
+	    return false;
+	}
+	
+	/**
+	 * Add the edge i:j if the remaining degrees can still be met with i kept away from 
+	 * its neighbours.
+	 */
+	private boolean tryEdge(int[] remaining, IntGraph g, int i, int j) {
+	    List<Integer> X = new ArrayList<Integer>();
+	    List<Integer> connected = g.getConnected(i);
+	    if (connected != null) {
+	        if (connected.contains(j)) {
+	            return false;
+	        }
+	        X.addAll(connected);
+	    }
+	    X.add(j);
+	    useStub(remaining, i);
+	    useStub(remaining, j);
+	    if (isGraphicalWithConstraintInOracle(remaining, i, X)) {
+	        g.makeEdge(i, j);
+	        return true;
+	    } else {
+	        returnStub(remaining, i);
+	        returnStub(remaining, j);
+	        return false;
+	    }
+	}
+	
+	private void useStub(int[] remaining, int i) {
+	    oracle.decrement(remaining[i]);
+	    remaining[i]--;
+	}
+	
+	private void returnStub(int[] remaining, int i) {
+	    oracle.increment(remaining[i]);
+	    remaining[i]++;
+	}
+	
+	private boolean isComplete(int[] remaining) {
+	    for (int d : remaining) {
+	        if (d > 0) {
+	            return false;
+	        }
+	    }
 	    return true;
 	}
 
-	private int getRandomVertex(int[] degreeSequence, IntGraph g, int from) {
-	    int n = degreeSequence.length;
+	private int getRandomVertex(int[] remaining) {
+	    int n = remaining.length;
 	    List<Integer> candidates = new ArrayList<Integer>();
-	    for (int i = from; i < n; i++) {
-	        if (g.degree(i) < degreeSequence[i]) {
+	    for (int i = 0; i < n; i++) {
+	        if (remaining[i] > 0) {
 	            candidates.add(i);
 	        }
 	    }
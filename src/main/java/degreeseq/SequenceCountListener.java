@@ -0,0 +1,10 @@
+package degreeseq;
+
+/**
+ * Told the number of graphs with each degree sequence, as the sequences are finished.
+ */
+public interface SequenceCountListener {
+    
+    public void handle(int[] degreeSequence, int count);
+
+}
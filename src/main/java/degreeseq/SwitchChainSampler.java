@@ -0,0 +1,439 @@
+package degreeseq;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Samples graphs with a given degree sequence uniformly at random, by the switch chain : a
+ * Markov chain that starts from the {@link HakimiHavelGenerator} graph, and at each step
+ * picks two edges a:b and c:d at random and swaps their ends to a:d and c:b, unless that
+ * would make a loop or an edge that is already there. Every swap can be undone by another,
+ * and all swaps are equally likely, so after enough steps each graph with the sequence is
+ * equally likely to be the current one.
+ *
+ * The edges are held as two arrays of ends, and the set of edges as an open-addressed hash
+ * table of pair codes, so a step is O(1) and makes no objects. If only connected graphs
+ * are wanted, a swap that disconnects the graph is undone, which takes a search of the
+ * graph; the chain restricted to connected graphs is still connected, so is uniform too.
+ */
+public class SwitchChainSampler {
+
+    private static final long EMPTY = -1;
+
+    private final int n;
+
+    private final int[] ends0;
+
+    private final int[] ends1;
+
+    private final int m;
+
+    private final boolean connectedOnly;
+
+    private final Random random;
+
+    /**
+     * The pair codes of the edges, with linear probing; the length is a power of two.
+     */
+    private final long[] table;
+
+    private final int mask;
+
+    /**
+     * The shift that leaves the top log2(capacity) bits of a mixed code.
+     */
+    private final int shift;
+
+    /**
+     * Scratch space for the connectivity check : the adjacency lists as offsets into one
+     * array, and a queue.
+     */
+    private int[] offsets;
+
+    private int[] neighbours;
+
+    private int[] queue;
+
+    private boolean[] seen;
+
+    /**
+     * The last swap, for undoing it.
+     */
+    private int lastI;
+
+    private int lastJ;
+
+    private int lastA;
+
+    private int lastB;
+
+    private int lastC;
+
+    private int lastD;
+
+    private long stepCount;
+
+    private long acceptedCount;
+
+    public SwitchChainSampler(int[] degreeSequence, long seed) {
+        this(degreeSequence, seed, false);
+    }
+
+    /**
+     * @param degreeSequence the degree of each vertex, which must be graphical
+     * @param seed the seed of the random numbers, so the same seed gives the same graphs
+     * @param connectedOnly if true, only connected graphs are sampled
+     */
+    public SwitchChainSampler(int[] degreeSequence, long seed, boolean connectedOnly) {
+        if (!HakimiHavelGenerator.isGraphical(degreeSequence)) {
+            throw new IllegalArgumentException("Not graphical");
+        }
+        this.n = degreeSequence.length;
+        this.connectedOnly = connectedOnly;
+        this.random = new Random(seed);
+
+        IntGraph start = HakimiHavelGenerator.generate(degreeSequence);
+        this.m = start.edges.size();
+        this.ends0 = new int[m];
+        this.ends1 = new int[m];
+        int capacity = 4;
+        while (capacity < 2 * m) {
+            capacity *= 2;
+        }
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        for (int i = 0; i < capacity; i++) {
+            table[i] = EMPTY;
+        }
+        for (int i = 0; i < m; i++) {
+            IntEdge e = start.edges.get(i);
+            ends0[i] = e.a;
+            ends1[i] = e.b;
+            insert(code(e.a, e.b));
+        }
+
+        if (connectedOnly) {
+            if (!hasConnectedRealization(degreeSequence)) {
+                throw new IllegalArgumentException("No connected graph has this sequence");
+            }
+            offsets = new int[n + 1];
+            neighbours = new int[2 * m];
+            queue = new int[n];
+            seen = new boolean[n];
+            // swap freely until the graph is connected, and only then keep it so
+            while (!isConnected()) {
+                trySwap();
+            }
+            stepCount = 0;
+            acceptedCount = 0;
+        }
+    }
+
+    /**
+     * A graphical sequence has a connected graph if it has no zeros (or only one vertex)
+     * and enough edges for a tree.
+     */
+    private static boolean hasConnectedRealization(int[] degreeSequence) {
+        int n = degreeSequence.length;
+        if (n == 1) {
+            return true;
+        }
+        long sum = 0;
+        for (int d : degreeSequence) {
+            if (d == 0) {
+                return false;
+            }
+            sum += d;
+        }
+        return sum >= 2 * (n - 1);
+    }
+
+    /**
+     * Run the chain for a number of steps.
+     */
+    public void run(long steps) {
+        for (long step = 0; step < steps; step++) {
+            if (trySwap() && connectedOnly && !isConnected()) {
+                undoSwap();
+            }
+        }
+    }
+
+    /**
+     * @return the current graph
+     */
+    public IntGraph getGraph() {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < m; i++) {
+            g.makeEdge(Math.min(ends0[i], ends1[i]), Math.max(ends0[i], ends1[i]));
+        }
+        return g;
+    }
+
+    /**
+     * Run the chain for the burn-in, then take count graphs with thinning steps between
+     * them.
+     *
+     * @param count the number of graphs
+     * @param burnIn the number of steps before the first graph
+     * @param thinning the number of steps between graphs
+     * @return the graphs
+     */
+    public List<IntGraph> sample(int count, long burnIn, long thinning) {
+        List<IntGraph> samples = new ArrayList<IntGraph>();
+        run(burnIn);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                run(thinning);
+            }
+            samples.add(getGraph());
+        }
+        return samples;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * @return the number of steps that changed the graph
+     */
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * Run independent chains in the common fork-join pool.
+     *
+     * @see #sampleInParallel(int[], boolean, int, int, long, long, long, ForkJoinPool)
+     */
+    public static List<IntGraph> sampleInParallel(int[] degreeSequence, boolean connectedOnly,
+            int chains, int countPerChain, long burnIn, long thinning, long seed) {
+        return sampleInParallel(degreeSequence, connectedOnly, chains, countPerChain,
+                burnIn, thinning, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Run independent chains, one task each, seeded from seed and the chain number; the
+     * graphs are listed chain by chain, so the result only depends on the seed.
+     *
+     * @return chains * countPerChain graphs
+     */
+    public static List<IntGraph> sampleInParallel(int[] degreeSequence, boolean connectedOnly,
+            int chains, int countPerChain, long burnIn, long thinning, long seed,
+            ForkJoinPool pool) {
+        List<ChainTask> tasks = new ArrayList<ChainTask>();
+        for (int chain = 0; chain < chains; chain++) {
+            SwitchChainSampler sampler = new SwitchChainSampler(
+                    degreeSequence, seed + chain * 0x9E3779B97F4A7C15L, connectedOnly);
+            tasks.add(new ChainTask(sampler, countPerChain, burnIn, thinning));
+        }
+        pool.invoke(new AllChainsTask(tasks));
+        List<IntGraph> samples = new ArrayList<IntGraph>();
+        for (ChainTask task : tasks) {
+            samples.addAll(task.samples);
+        }
+        return samples;
+    }
+
+    /**
+     * @return true if the swap was made
+     */
+    private boolean trySwap() {
+        stepCount++;
+        if (m < 2) {
+            return false;
+        }
+        int i = random.nextInt(m);
+        int j = random.nextInt(m - 1);
+        if (j >= i) {
+            j++;
+        }
+        int a = ends0[i];
+        int b = ends1[i];
+        int c, d;
+        if (random.nextBoolean()) {
+            c = ends0[j];
+            d = ends1[j];
+        } else {
+            c = ends1[j];
+            d = ends0[j];
+        }
+        // a:b, c:d becomes a:d, c:b
+        if (a == d || c == b || contains(code(a, d)) || contains(code(c, b))) {
+            return false;
+        }
+        remove(code(a, b));
+        remove(code(c, d));
+        insert(code(a, d));
+        insert(code(c, b));
+        ends1[i] = d;
+        ends0[j] = c;
+        ends1[j] = b;
+        lastI = i;
+        lastJ = j;
+        lastA = a;
+        lastB = b;
+        lastC = c;
+        lastD = d;
+        acceptedCount++;
+        return true;
+    }
+
+    private void undoSwap() {
+        remove(code(lastA, lastD));
+        remove(code(lastC, lastB));
+        insert(code(lastA, lastB));
+        insert(code(lastC, lastD));
+        ends0[lastI] = lastA;
+        ends1[lastI] = lastB;
+        ends0[lastJ] = lastC;
+        ends1[lastJ] = lastD;
+        acceptedCount--;
+    }
+
+    private boolean isConnected() {
+        if (n < 2) {
+            return true;
+        }
+        // count the degrees, sum them up to the end of each list, and fill each list
+        // from its end, which leaves the offsets at the starts
+        for (int v = 0; v < n; v++) {
+            offsets[v] = 0;
+        }
+        for (int i = 0; i < m; i++) {
+            offsets[ends0[i]]++;
+            offsets[ends1[i]]++;
+        }
+        for (int v = 1; v < n; v++) {
+            offsets[v] += offsets[v - 1];
+        }
+        offsets[n] = 2 * m;
+        for (int i = 0; i < m; i++) {
+            neighbours[--offsets[ends0[i]]] = ends1[i];
+            neighbours[--offsets[ends1[i]]] = ends0[i];
+        }
+        for (int v = 0; v < n; v++) {
+            seen[v] = false;
+        }
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        seen[0] = true;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int w = neighbours[k];
+                if (!seen[w]) {
+                    seen[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return tail == n;
+    }
+
+    private long code(int a, int b) {
+        return (a < b)? (long) a * n + b : (long) b * n + a;
+    }
+
+    private int slot(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> shift);
+    }
+
+    private boolean contains(long code) {
+        for (int s = slot(code); table[s] != EMPTY; s = (s + 1) & mask) {
+            if (table[s] == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(long code) {
+        int s = slot(code);
+        while (table[s] != EMPTY) {
+            s = (s + 1) & mask;
+        }
+        table[s] = code;
+    }
+
+    /**
+     * Remove a code, shifting back any later codes in its run that would be cut off from
+     * their own slots.
+     */
+    private void remove(long code) {
+        int s = slot(code);
+        while (table[s] != code) {
+            s = (s + 1) & mask;
+        }
+        int hole = s;
+        int next = (s + 1) & mask;
+        while (table[next] != EMPTY) {
+            int home = slot(table[next]);
+            // move the code at next into the hole if its home is not in (hole, next]
+            boolean between = (hole <= next)? (hole < home && home <= next)
+                                            : (hole < home || home <= next);
+            if (!between) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    private static class AllChainsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ChainTask> tasks;
+
+        public AllChainsTask(List<ChainTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+
+    }
+
+    private static class ChainTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SwitchChainSampler sampler;
+
+        private final int count;
+
+        private final long burnIn;
+
+        private final long thinning;
+
+        private List<IntGraph> samples;
+
+        public ChainTask(SwitchChainSampler sampler, int count, long burnIn, long thinning) {
+            this.sampler = sampler;
+            this.count = count;
+            this.burnIn = burnIn;
+            this.thinning = thinning;
+        }
+
+        @Override
+        protected void compute() {
+            samples = sampler.sample(count, burnIn, thinning);
+        }
+
+    }
+
+}
@@ -1,9 +1,10 @@
 package distance;
 
-import graph.model.IntEdge;
+import graph.model.GraphFileReader;
 import graph.model.IntGraph;
 import group.Partition;
 
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -12,6 +13,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class CentralityCalculator {
     
@@ -48,34 +51,15 @@ public class CentralityCalculator {
     }
     
     /**
-     * Floyd-Warshall - could replace with a dedicated class.
+     * Breadth-first search from each vertex, on bitsets; pairs in different components
+     * are given a distance of one more than the number of vertices.
      * 
      * @param g
      * @return
      */
     public static int[][] getDistanceMatrix(IntGraph g) {
         int v = g.vsize();
-        int[][] dist = new int[v][v];
-        for (int i = 0; i < v; i++) {
-            Arrays.fill(dist[i], v + 1);
-            dist[i][i] = 0;
-        }
-        
-        for (IntEdge e : g.edges) {
-            dist[e.a][e.b] = 1;
-            dist[e.b][e.a] = 1;
-        }
-        
-        for (int k = 0; k < v; k++) {
-            for (int i = 0; i < v; i++) {
-                for (int j = 0; j < v; j++) {
-                    if (dist[i][k] + dist[k][j] < dist[i][j]) {
-                        dist[i][j] = dist[i][k] + dist[k][j];
-                    }
-                }
-            }
-        }
-        return dist;
+        return new DistanceShells(g, v).getDistanceMatrix(v + 1);
     }
     
     public static List<Map<Integer, Set<Integer>>> getNeighbourhoods(IntGraph g) {
@@ -102,26 +86,15 @@ public class CentralityCalculator {
         return neighbourhoods;
     }
     
+    /**
+     * The entry for i and j is the number of vertices at the same distance from both; as
+     * the distance shells are bitsets, this is a sum of popcounts.
+     * 
+     * @param g
+     * @return
+     */
     public static int[][] getCentralityMatrix(IntGraph g) {
-        int v = g.vsize();
-        int[][] cent = new int[v][v];
-        List<Map<Integer, Set<Integer>>> neighbourhoods = getNeighbourhoods(g);
-        for (int i = 0; i < v; i++) {
-            Map<Integer, Set<Integer>> nI = neighbourhoods.get(i);
-            for (int j = i + 1; j < v; j++) {
-                Map<Integer, Set<Integer>> nJ = neighbourhoods.get(j);
-                int maxD = Math.min(nI.size(), nJ.size());
-                for (int d = 1; d <= maxD; d++) {
-                    Set<Integer> intersection = new TreeSet<Integer>(nI.get(d));
-                    intersection.retainAll(nJ.get(d)); 
-                    int count = intersection.size();
-//                    System.out.println("intersection " + i + ", " + j + " = " + intersection);
-                    cent[i][j] += count;
-                    cent[j][i] += count;
-                }
-            }
-        }
-        return cent;
+        return new DistanceShells(g, g.vsize()).getCentralityMatrix();
     }
     
     public static int[] getORS(IntGraph g) {
@@ -137,5 +110,65 @@ public class CentralityCalculator {
         Arrays.sort(rowSum);
         return rowSum;
     }
+    
+    /**
+     * Find the ORS of every graph in a file, using the common fork-join pool.
+     * 
+     * @return the ORS of each graph, in the order of the file
+     */
+    public static List<int[]> getORS(String filename) throws FileNotFoundException {
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        for (IntGraph g : new GraphFileReader(filename)) {
+            graphs.add(g);
+        }
+        return getORS(graphs, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Find the ORS of each graph, splitting the list between the workers of a pool.
+     * 
+     * @return the ORS of each graph, in the order of the list
+     */
+    public static List<int[]> getORS(List<IntGraph> graphs, ForkJoinPool pool) {
+        int[][] results = new int[graphs.size()][];
+        pool.invoke(new ORSTask(graphs, results, 0, graphs.size()));
+        return Arrays.asList(results);
+    }
+    
+    private static class ORSTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private static final int THRESHOLD = 64;
+        
+        private final List<IntGraph> graphs;
+        
+        private final int[][] results;
+        
+        private final int start;
+        
+        private final int end;
+        
+        public ORSTask(List<IntGraph> graphs, int[][] results, int start, int end) {
+            this.graphs = graphs;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    results[i] = getORS(graphs.get(i));
+                }
+            } else {
+                int middle = (start + end) / 2;
+                invokeAll(new ORSTask(graphs, results, start, middle),
+                          new ORSTask(graphs, results, middle, end));
+            }
+        }
+        
+    }
         
 }
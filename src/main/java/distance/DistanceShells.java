@@ -0,0 +1,173 @@
+package distance;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * The distance shells of every vertex of a graph : shell d of vertex v is the set of
+ * vertices at distance d from v. The sets are bitsets in long words, and each shell is
+ * made from the last by a breadth-first step that ORs together the neighbour rows of the
+ * frontier a word at a time, so all the shells take O(n<sup>2</sup> * n / 64) for a graph
+ * on n vertices.
+ *
+ * As the shells are bitsets, the number of vertices at the same distance from two vertices
+ * is a sum of popcounts of their shells ANDed together.
+ */
+public class DistanceShells {
+
+    private final int n;
+
+    private final int words;
+
+    /**
+     * For each vertex, its shells from distance 1 up, one after another : shell d of v
+     * starts at word (d - 1) * words of shells[v].
+     */
+    private final long[][] shells;
+
+    /**
+     * The number of shells of each vertex, which is its eccentricity in its component.
+     */
+    private final int[] shellCounts;
+
+    public DistanceShells(IntGraph g) {
+        this(g, g.vsize());
+    }
+
+    /**
+     * @param g the graph
+     * @param n the number of vertices, which can be more than the graph has edges to
+     */
+    public DistanceShells(IntGraph g, int n) {
+        this.n = n;
+        this.words = Math.max(1, (n + 63) / 64);
+        long[][] adjacency = new long[n][words];
+        for (IntEdge e : g.edges) {
+            if (e.a != e.b) {
+                adjacency[e.a][e.b >>> 6] |= 1L << e.b;
+                adjacency[e.b][e.a >>> 6] |= 1L << e.a;
+            }
+        }
+        this.shells = new long[n][];
+        this.shellCounts = new int[n];
+        long[] seen = new long[words];
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        long[] buffer = new long[n * words];
+        for (int source = 0; source < n; source++) {
+            for (int w = 0; w < words; w++) {
+                seen[w] = 0;
+                frontier[w] = 0;
+            }
+            seen[source >>> 6] |= 1L << source;
+            frontier[source >>> 6] |= 1L << source;
+            int count = 0;
+            while (true) {
+                boolean empty = true;
+                for (int w = 0; w < words; w++) {
+                    next[w] = 0;
+                }
+                for (int w = 0; w < words; w++) {
+                    for (long rest = frontier[w]; rest != 0; rest &= rest - 1) {
+                        long[] row = adjacency[(w << 6) + Long.numberOfTrailingZeros(rest)];
+                        for (int x = 0; x < words; x++) {
+                            next[x] |= row[x];
+                        }
+                    }
+                }
+                for (int w = 0; w < words; w++) {
+                    next[w] &= ~seen[w];
+                    seen[w] |= next[w];
+                    if (next[w] != 0) {
+                        empty = false;
+                    }
+                }
+                if (empty) {
+                    break;
+                }
+                System.arraycopy(next, 0, buffer, count * words, words);
+                count++;
+                long[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+            shells[source] = new long[count * words];
+            System.arraycopy(buffer, 0, shells[source], 0, count * words);
+            shellCounts[source] = count;
+        }
+    }
+
+    public int getVertexCount() {
+        return n;
+    }
+
+    /**
+     * @return the eccentricity of v within its component
+     */
+    public int getShellCount(int v) {
+        return shellCounts[v];
+    }
+
+    /**
+     * @return true if w is at distance d from v, for d &gt; 0
+     */
+    public boolean isInShell(int v, int d, int w) {
+        if (d < 1 || d > shellCounts[v]) {
+            return false;
+        }
+        return (shells[v][(d - 1) * words + (w >>> 6)] & (1L << w)) != 0;
+    }
+
+    /**
+     * @param unreachable the distance to give to pairs in different components
+     * @return the matrix of distances
+     */
+    public int[][] getDistanceMatrix(int unreachable) {
+        int[][] dist = new int[n][n];
+        for (int v = 0; v < n; v++) {
+            Arrays.fill(dist[v], unreachable);
+            dist[v][v] = 0;
+            for (int d = 1; d <= shellCounts[v]; d++) {
+                int offset = (d - 1) * words;
+                for (int w = 0; w < words; w++) {
+                    for (long rest = shells[v][offset + w]; rest != 0; rest &= rest - 1) {
+                        dist[v][(w << 6) + Long.numberOfTrailingZeros(rest)] = d;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * @return the number of vertices at the same, finite, distance from both u and v
+     */
+    public int getEquidistantCount(int u, int v) {
+        int maxD = Math.min(shellCounts[u], shellCounts[v]);
+        long[] shellsU = shells[u];
+        long[] shellsV = shells[v];
+        int count = 0;
+        for (int i = 0; i < maxD * words; i++) {
+            count += Long.bitCount(shellsU[i] & shellsV[i]);
+        }
+        return count;
+    }
+
+    /**
+     * @return the matrix of counts of equidistant vertices, with zeros on the diagonal
+     */
+    public int[][] getCentralityMatrix() {
+        int[][] cent = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int count = getEquidistantCount(i, j);
+                cent[i][j] = count;
+                cent[j][i] = count;
+            }
+        }
+        return cent;
+    }
+
+}
@@ -3,27 +3,27 @@ package filter;
 import graph.model.Graph;
 import graph.model.GraphSignature;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * Passes the first graph of each isomorphism class. The graphs here are usually edge 
+ * coloured, so the key is the signature string - which includes the colours - rather 
+ * than a {@link canon.Certificate} of the adjacency alone.
+ */
 public class SignatureCanonicalFilter implements Filter {
     
-    private List<String> certificates;
+    private Set<String> certificates;
     
     public SignatureCanonicalFilter() {
-        this.certificates = new ArrayList<String>();
+        this.certificates = new HashSet<String>();
     }
     
     public boolean filter(Graph graph) {
         GraphSignature signature = new GraphSignature(graph);
         String cert = signature.toCanonicalString();
 //        System.out.println(graph.getSortedEdgeStringWithEdgeOrder() + "\t" + cert);
-        if (certificates.contains(cert)) {
-            return false;
-        } else {
-            certificates.add(cert);
-            return true;
-        }
+        return certificates.add(cert);
     }
     
 }
@@ -1,5 +1,6 @@
 package generate;
 
+import canon.CanonicalLabellers;
 import graph.group.GraphDiscretePartitionRefiner;
 import graph.group.TraversalBacktracker;
 import graph.model.IntGraph;
@@ -38,12 +39,13 @@ public class CanonicalChecker {
         return traveller.checkedAll();
     }
     
+    /**
+     * Orderly generation accepts a child only if it is in the refiner's canonical form, so
+     * this always uses the refiner, whatever engine {@link CanonicalLabellers} is set to.
+     */
     public static boolean isCanonical3(IntGraph graph) {
 //        if (!graph.edgesInOrder()) return false;
-        GraphDiscretePartitionRefiner refiner = 
-//            new GraphDiscretePartitionRefiner(false, false);
-//            new GraphDiscretePartitionRefiner(false, true);
-                new GraphDiscretePartitionRefiner();    // XXX
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
         return refiner.isCanonical(graph);
     }
     
@@ -57,13 +59,12 @@ public class CanonicalChecker {
     
     public static boolean isCanonical5(IntGraph parent, IntGraph child) {
     	if (parent == null || parent.getVertexCount() < 2) return true;
+    	// the prefix test depends on the refiner's canonical form, as in isCanonical3
     	GraphDiscretePartitionRefiner parentRefiner = new GraphDiscretePartitionRefiner();
     	parentRefiner.isCanonical(parent);
-//    	Permutation canonParent = parentRefiner.getFirst();
     	Permutation canonParent = parentRefiner.getBest();
     	GraphDiscretePartitionRefiner childRefiner = new GraphDiscretePartitionRefiner();
     	childRefiner.isCanonical(child);
-//    	Permutation canonChild = childRefiner.getFirst();
     	Permutation canonChild = childRefiner.getBest();
     	IntGraph parentCanonised = parent.getPermutedGraph(canonParent.getValues());
     	if (!parentCanonised.edgesInOrder()) return false;
@@ -89,10 +90,7 @@ public class CanonicalChecker {
 
     public static boolean isCanonical3(IntGraph graph, boolean checkEdgeOrder) {
         if (checkEdgeOrder && !graph.edgesInOrder()) return false;
-        GraphDiscretePartitionRefiner refiner = 
-//            new GraphDiscretePartitionRefiner(false, false);
-//            new GraphDiscretePartitionRefiner(false, true);
-                new GraphDiscretePartitionRefiner();    // XXX
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
         return refiner.isCanonical(graph);
     }
     
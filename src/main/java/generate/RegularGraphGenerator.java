@@ -1,13 +1,354 @@
 package generate;
 
+import generate.handler.GeneratorHandler;
+import generate.handler.SystemOutHandler;
 import graph.model.IntGraph;
 
+/**
+ * Generates the k-regular graphs on n vertices, one from each isomorphism class, by
+ * orderly generation in the style of Meringer's GENREG.
+ *
+ * The adjacency matrix is filled in a row at a time : row t is complete once vertex t has
+ * all k of its neighbours, so rows 0..t - 1 are fixed while the later rows are still open.
+ * A graph is output only if its matrix is the largest in its class, comparing the rows in
+ * order as bit strings read from column 0. Three things keep the search small :
+ * <ul>
+ * <li>the open vertices after t fall into blocks of consecutive vertices with the same
+ * neighbours so far; in a largest matrix row t has its ones at the front of each block, so
+ * only the number of neighbours in each block is chosen;</li>
+ * <li>a row is dropped if some open vertex could no longer reach degree k, or (for
+ * connected graphs) a component has no open vertices left;</li>
+ * <li>after each row, a partial matrix is dropped if a relabelling makes its fixed rows
+ * larger, as then no completion of it can be the largest.</li>
+ * </ul>
+ *
+ * The relabellings are searched by partition backtracking : the vertex for each row in
+ * turn is chosen from a cell of an ordered partition of the columns, each cell is given
+ * the best order of its ones for that row, and cells are split by the row when it ties
+ * with the matrix. Graphs have at most 64 vertices.
+ */
 public class RegularGraphGenerator {
-    
-    public IntGraph generate(int degree, int vertexCount) {
-        IntGraph graph = new IntGraph();
-        // ideally, Meringer's method would be used, but it is too hard to port
-        return graph;
+
+    private GeneratorHandler handler;
+
+    private boolean connectedOnly;
+
+    private int n;
+
+    private int k;
+
+    private long[] adjacency;
+
+    private int[] degrees;
+
+    /**
+     * The blocks of open vertices for each row : start and size.
+     */
+    private int[][] blockStarts;
+
+    private int[][] blockSizes;
+
+    private int[] blockCounts;
+
+    /**
+     * The ordered partitions of the relabelling search, one per row : the vertices and
+     * first position of each cell.
+     */
+    private long[][] cellVertices;
+
+    private int[][] cellStarts;
+
+    private int[] cellCounts;
+
+    private int count;
+
+    public RegularGraphGenerator() {
+        this(new SystemOutHandler());
+    }
+
+    public RegularGraphGenerator(GeneratorHandler handler) {
+        this(handler, true);
+    }
+
+    /**
+     * @param handler the handler for the graphs
+     * @param connectedOnly if true, only generate connected graphs
+     */
+    public RegularGraphGenerator(GeneratorHandler handler, boolean connectedOnly) {
+        this.handler = handler;
+        this.connectedOnly = connectedOnly;
+    }
+
+    /**
+     * Generate the graphs where every vertex has the given degree.
+     *
+     * @param degree the degree of each vertex
+     * @param vertexCount the number of vertices, at most 64
+     */
+    public void generate(int degree, int vertexCount) {
+        if (vertexCount > 64) {
+            throw new IllegalArgumentException("At most 64 vertices, not " + vertexCount);
+        }
+        this.n = vertexCount;
+        this.k = degree;
+        this.count = 0;
+        this.adjacency = new long[n];
+        this.degrees = new int[n];
+        this.blockStarts = new int[n][n];
+        this.blockSizes = new int[n][n];
+        this.blockCounts = new int[n];
+        this.cellVertices = new long[n + 1][n];
+        this.cellStarts = new int[n + 1][n];
+        this.cellCounts = new int[n + 1];
+        if (n > 0 && k < n && (n * k) % 2 == 0) {
+            cellVertices[0][0] = (n == 64)? -1L : (1L << n) - 1;
+            cellStarts[0][0] = 0;
+            cellCounts[0] = 1;
+            closeVertex(0);
+        }
+        handler.finish();
+    }
+
+    /**
+     * @return the number of graphs made by the last call to generate
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private void closeVertex(int t) {
+        if (t == n) {
+            if (!connectedOnly || isConnected()) {
+                output();
+            }
+            return;
+        }
+        makeBlocks(t);
+        chooseRow(t, 0, k - degrees[t]);
+    }
+
+    /**
+     * Split the vertices after t into runs with the same neighbours among 0..t - 1.
+     */
+    private void makeBlocks(int t) {
+        long closed = (1L << t) - 1;
+        int blockCount = 0;
+        for (int v = t + 1; v < n; v++) {
+            if (blockCount > 0) {
+                int last = blockCount - 1;
+                int first = blockStarts[t][last];
+                if ((adjacency[first] & closed) == (adjacency[v] & closed)) {
+                    blockSizes[t][last]++;
+                    continue;
+                }
+            }
+            blockStarts[t][blockCount] = v;
+            blockSizes[t][blockCount] = 1;
+            blockCount++;
+        }
+        blockCounts[t] = blockCount;
+    }
+
+    /**
+     * Choose how many of the vertices at the front of each block to join to t.
+     */
+    private void chooseRow(int t, int block, int need) {
+        if (block == blockCounts[t]) {
+            if (need == 0) {
+                finishRow(t);
+            }
+            return;
+        }
+        int capacity = 0;
+        for (int b = block; b < blockCounts[t]; b++) {
+            if (degrees[blockStarts[t][b]] < k) {
+                capacity += blockSizes[t][b];
+            }
+        }
+        if (capacity < need) {
+            return;
+        }
+        int start = blockStarts[t][block];
+        int max = (degrees[start] < k)? Math.min(need, blockSizes[t][block]) : 0;
+        for (int c = max; c >= 0; c--) {
+            for (int i = 0; i < c; i++) {
+                addEdge(t, start + i);
+            }
+            chooseRow(t, block + 1, need - c);
+            for (int i = 0; i < c; i++) {
+                removeEdge(t, start + i);
+            }
+        }
+    }
+
+    private void finishRow(int t) {
+        if (isFeasible(t) && (!connectedOnly || t == n - 1 || isStillConnectable(t))
+                && isSemiCanonical(t + 1)) {
+            closeVertex(t + 1);
+        }
+    }
+
+    private void addEdge(int a, int b) {
+        adjacency[a] |= 1L << b;
+        adjacency[b] |= 1L << a;
+        degrees[a]++;
+        degrees[b]++;
+    }
+
+    private void removeEdge(int a, int b) {
+        adjacency[a] &= ~(1L << b);
+        adjacency[b] &= ~(1L << a);
+        degrees[a]--;
+        degrees[b]--;
+    }
+
+    /**
+     * Check that each open vertex can still be joined to enough other open vertices.
+     */
+    private boolean isFeasible(int t) {
+        int open = 0;
+        int deficitSum = 0;
+        for (int v = t + 1; v < n; v++) {
+            if (degrees[v] < k) {
+                open++;
+                deficitSum += k - degrees[v];
+            }
+        }
+        if (deficitSum % 2 != 0) {
+            return false;
+        }
+        for (int v = t + 1; v < n; v++) {
+            if (degrees[v] < k && k - degrees[v] > open - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A component of closed vertices gets no more edges, so cannot join the rest.
+     */
+    private boolean isStillConnectable(int t) {
+        long closed = (t == 63)? -1L : (1L << (t + 1)) - 1;
+        long unseen = closed;
+        while (unseen != 0) {
+            long component = reach(Long.lowestOneBit(unseen));
+            if ((component & ~closed) == 0) {
+                return false;
+            }
+            unseen &= ~component;
+        }
+        return true;
+    }
+
+    private boolean isConnected() {
+        long all = (n == 64)? -1L : (1L << n) - 1;
+        return reach(1L) == all;
+    }
+
+    private long reach(long start) {
+        long seen = start;
+        long frontier = start;
+        while (frontier != 0) {
+            long next = 0;
+            for (long rest = frontier; rest != 0; rest &= rest - 1) {
+                next |= adjacency[Long.numberOfTrailingZeros(rest)];
+            }
+            frontier = next & ~seen;
+            seen |= frontier;
+        }
+        return seen;
+    }
+
+    /**
+     * @param rows the number of fixed rows
+     * @return false if a relabelling makes the fixed rows larger
+     */
+    private boolean isSemiCanonical(int rows) {
+        return !hasLargerImage(0, rows);
+    }
+
+    /**
+     * Try each fixed vertex in the cell at position a as the vertex for row a of the
+     * relabelled matrix, comparing that row with row a cell by cell.
+     */
+    private boolean hasLargerImage(int a, int rows) {
+        if (a == rows) {
+            return false;
+        }
+        long[] vertices = cellVertices[a];
+        int[] starts = cellStarts[a];
+        int cellCount = cellCounts[a];
+        int cell = 0;
+        while (starts[cell] != a) {
+            cell++;
+        }
+        long known = (rows == 64)? -1L : (1L << rows) - 1;
+        long row = adjacency[a];
+        for (long choices = vertices[cell] & known; choices != 0; choices &= choices - 1) {
+            int u = Long.numberOfTrailingZeros(choices);
+            long neighbours = adjacency[u];
+            long[] nextVertices = cellVertices[a + 1];
+            int[] nextStarts = cellStarts[a + 1];
+            int nextCount = 0;
+            int comparison = 0;
+            for (int c = 0; c < cellCount && comparison == 0; c++) {
+                long cellSet = vertices[c];
+                int start = starts[c];
+                if (c == cell) {
+                    // u takes position a, where both rows have a zero on the diagonal
+                    nextVertices[nextCount] = 1L << u;
+                    nextStarts[nextCount] = a;
+                    nextCount++;
+                    cellSet &= ~(1L << u);
+                    start++;
+                    if (cellSet == 0) {
+                        continue;
+                    }
+                }
+                int size = Long.bitCount(cellSet);
+                int ones = Long.bitCount(neighbours & cellSet);
+                long sizeMask = (size == 64)? -1L : (1L << size) - 1;
+                long pattern = (row >>> start) & sizeMask;
+                long best = (ones == 64)? -1L : (1L << ones) - 1;
+                if (best != pattern) {
+                    long first = Long.lowestOneBit(best ^ pattern);
+                    comparison = ((best & first) != 0)? 1 : -1;
+                } else {
+                    if (ones > 0) {
+                        nextVertices[nextCount] = neighbours & cellSet;
+                        nextStarts[nextCount] = start;
+                        nextCount++;
+                    }
+                    if (ones < size) {
+                        nextVertices[nextCount] = cellSet & ~neighbours;
+                        nextStarts[nextCount] = start + ones;
+                        nextCount++;
+                    }
+                }
+            }
+            if (comparison > 0) {
+                return true;
+            }
+            if (comparison == 0) {
+                cellCounts[a + 1] = nextCount;
+                if (hasLargerImage(a + 1, rows)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void output() {
+        IntGraph g = new IntGraph();
+        for (int a = 0; a < n; a++) {
+            for (long rest = adjacency[a] >>> (a + 1); rest != 0; rest &= rest - 1) {
+                g.makeEdge(a, a + 1 + Long.numberOfTrailingZeros(rest));
+            }
+        }
+        count++;
+        handler.handle(null, g);
     }
 
 }
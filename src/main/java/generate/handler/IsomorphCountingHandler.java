@@ -1,7 +1,7 @@
 package generate.handler;
 
+import canon.Certificate;
 import graph.model.Graph;
-import graph.model.GraphSignature;
 import graph.model.IntEdge;
 import graph.model.IntGraph;
 
@@ -12,9 +12,9 @@ import java.util.Map;
 
 public class IsomorphCountingHandler implements GeneratorHandler {
     
-    private Map<String, IntGraph> signatures;
+    private Map<Certificate, IntGraph> signatures;
     
-    private Map<String, Integer> counts;
+    private Map<Certificate, Integer> counts;
     
     private boolean ignoreDisconnected;
     
@@ -31,8 +31,8 @@ public class IsomorphCountingHandler implements GeneratorHandler {
     }
     
     public IsomorphCountingHandler(boolean ignoreDisconnected, boolean filterLoops) {
-        this.signatures = new HashMap<String, IntGraph>();
-        this.counts = new HashMap<String, Integer>();
+        this.signatures = new HashMap<Certificate, IntGraph>();
+        this.counts = new HashMap<Certificate, Integer>();
         this.ignoreDisconnected = ignoreDisconnected;
         this.filterLoops = filterLoops;
     }
@@ -54,7 +54,7 @@ public class IsomorphCountingHandler implements GeneratorHandler {
             h = graph;
         }
         
-        String signature = new GraphSignature(h).toCanonicalString();
+        Certificate signature = Certificate.of(h);
         if (signatures.containsKey(signature)) {
             counts.put(signature, counts.get(signature) + 1);
         } else {
@@ -73,7 +73,7 @@ public class IsomorphCountingHandler implements GeneratorHandler {
         return h;
     }
     
-    public Map<String, IntGraph> getSignatureMap() {
+    public Map<Certificate, IntGraph> getSignatureMap() {
         return signatures;
     }
     
@@ -83,7 +83,7 @@ public class IsomorphCountingHandler implements GeneratorHandler {
     
     public Map<Graph, Integer> getNonIsomorphicGraphCount() {
         Map<Graph, Integer> graphCounts = new HashMap<Graph, Integer>();
-        for (String key : signatures.keySet()) {
+        for (Certificate key : signatures.keySet()) {
             graphCounts.put(signatures.get(key), counts.get(key));
         }
         return graphCounts;
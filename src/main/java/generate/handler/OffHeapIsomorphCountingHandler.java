@@ -0,0 +1,155 @@
+package generate.handler;
+
+import canon.Certificate;
+import canon.CertificateTable;
+import graph.model.Graph;
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts graphs by isomorphism class like the {@link IsomorphCountingHandler}, but keeps
+ * the classes in {@link CertificateTable}s off the heap - one table for each vertex count
+ * seen - instead of holding a representative graph for each class. The graphs returned
+ * for the classes are the canonical forms rebuilt from the certificates.
+ */
+public class OffHeapIsomorphCountingHandler implements GeneratorHandler {
+    
+    private Map<Integer, CertificateTable> tables;
+    
+    private boolean ignoreDisconnected;
+    
+    private boolean reset;
+    
+    private boolean filterLoops;
+    
+    private File spillDirectory;
+    
+    public OffHeapIsomorphCountingHandler() {
+        this(false);
+    }
+    
+    public OffHeapIsomorphCountingHandler(boolean ignoreDisconnected) {
+        this(ignoreDisconnected, false);
+    }
+    
+    public OffHeapIsomorphCountingHandler(boolean ignoreDisconnected, boolean filterLoops) {
+        this(ignoreDisconnected, filterLoops, null);
+    }
+    
+    /**
+     * @param ignoreDisconnected if true, do not count disconnected graphs
+     * @param filterLoops if true, drop loops before counting
+     * @param spillDirectory a directory to map the tables from, or null to use direct memory
+     */
+    public OffHeapIsomorphCountingHandler(
+            boolean ignoreDisconnected, boolean filterLoops, File spillDirectory) {
+        this.tables = new HashMap<Integer, CertificateTable>();
+        this.ignoreDisconnected = ignoreDisconnected;
+        this.filterLoops = filterLoops;
+        this.spillDirectory = spillDirectory;
+    }
+    
+    public void handle(IntGraph parent, IntGraph graph) {
+        if (reset) {
+            close();
+            reset = false;
+        }
+        if (ignoreDisconnected && !graph.isConnected()) {
+            return;
+        }
+        
+        IntGraph h;
+        if (this.filterLoops) {
+            h = loopFilter(graph);
+        } else {
+            h = graph;
+        }
+        
+        Certificate certificate = Certificate.of(h);
+        int n = certificate.getVertexCount();
+        CertificateTable table = tables.get(n);
+        if (table == null) {
+            table = new CertificateTable(n, 1 << 10, spillDirectory);
+            tables.put(n, table);
+        }
+        table.add(certificate);
+    }
+    
+    private IntGraph loopFilter(IntGraph g) {
+        IntGraph h = new IntGraph();
+        for (IntEdge e : g.edges) {
+            if (e.a != e.b) {
+                h.makeEdge(e.a, e.b);
+            }
+        }
+        return h;
+    }
+    
+    public List<Graph> getNonIsomorphicGraphs() {
+        final List<Graph> graphs = new ArrayList<Graph>();
+        for (CertificateTable table : tables.values()) {
+            table.visit(new CertificateTable.Visitor() {
+                public void visit(Certificate certificate, long count) {
+                    graphs.add(certificate.toGraph());
+                }
+            });
+        }
+        return graphs;
+    }
+    
+    public Map<Graph, Integer> getNonIsomorphicGraphCount() {
+        final Map<Graph, Integer> graphCounts = new HashMap<Graph, Integer>();
+        for (CertificateTable table : tables.values()) {
+            table.visit(new CertificateTable.Visitor() {
+                public void visit(Certificate certificate, long count) {
+                    graphCounts.put(certificate.toGraph(), (int) count);
+                }
+            });
+        }
+        return graphCounts;
+    }
+    
+    /**
+     * @return the number of isomorphism classes, without building any graphs
+     */
+    public long getNonIsomorphicCount() {
+        long count = 0;
+        for (CertificateTable table : tables.values()) {
+            count += table.size();
+        }
+        return count;
+    }
+    
+    public long getTotal() {
+        long count = 0;
+        for (CertificateTable table : tables.values()) {
+            count += table.total();
+        }
+        return count;
+    }
+    
+    public int getTotalGraphCount() {
+        return (int) getTotal();
+    }
+    
+    public void finish() {
+        reset = true;
+    }
+    
+    /**
+     * Release the tables now rather than on the next handle after finish.
+     */
+    public void close() {
+        for (CertificateTable table : tables.values()) {
+            table.close();
+        }
+        tables.clear();
+    }
+    
+}
@@ -0,0 +1,233 @@
+package generate.handler;
+
+import graph.model.IntGraph;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Takes graphs off the generating thread, so that a slow handler does not hold up the
+ * search. Graphs are gathered into batches of a fixed size, and the batches are put on a
+ * bounded queue that worker threads empty into the wrapped handler. When the queue is
+ * full the generator waits, so at most bufferSize batches are ever held.
+ * 
+ * With one worker the wrapped handler sees the graphs in the order they were made, from a
+ * single thread. With more, it must be safe to call from several threads - for example, a
+ * {@link SynchronizedHandler}.
+ * 
+ * Graphs are passed on as they are, so a generator must not change a graph after it has
+ * been handled.
+ * 
+ * If the wrapped handler throws, the batches still queued are thrown away, and the next
+ * call to handle or finish waits for the workers to be done, closes the pipeline, and
+ * rethrows the failure - an Error, such as a StackOverflowError, wrapped in an
+ * IllegalStateException.
+ */
+public class PipelineHandler implements GeneratorHandler {
+    
+    private static class Batch {
+        
+        private final IntGraph[] parents;
+        
+        private final IntGraph[] graphs;
+        
+        private int size;
+        
+        public Batch(int capacity) {
+            parents = new IntGraph[capacity];
+            graphs = new IntGraph[capacity];
+        }
+        
+    }
+    
+    /**
+     * Put on the queue once for each worker to stop it.
+     */
+    private static final Batch POISON = new Batch(0);
+    
+    private final GeneratorHandler handler;
+    
+    private final int batchSize;
+    
+    private final BlockingQueue<Batch> queue;
+    
+    private final Thread[] workers;
+    
+    private final Object lock = new Object();
+    
+    private Batch current;
+    
+    /**
+     * The number of batches put on the queue and not yet fully handled.
+     */
+    private int pending;
+    
+    private Throwable failure;
+    
+    private boolean closed;
+    
+    public PipelineHandler(GeneratorHandler handler) {
+        this(handler, 1024, 16, 1);
+    }
+    
+    /**
+     * @param handler the handler to pass the graphs to
+     * @param batchSize the number of graphs in a batch
+     * @param bufferSize the number of batches that can wait on the queue
+     * @param workerCount the number of threads calling the handler
+     */
+    public PipelineHandler(GeneratorHandler handler, int batchSize, int bufferSize, int workerCount) {
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<Batch>(bufferSize);
+        this.current = new Batch(batchSize);
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "pipeline-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+    
+    @Override
+    public synchronized void handle(IntGraph parent, IntGraph graph) {
+        current.parents[current.size] = parent;
+        current.graphs[current.size] = graph;
+        current.size++;
+        if (current.size == batchSize) {
+            flush();
+        }
+    }
+    
+    /**
+     * Pass on the part-filled batch, wait for every batch to be handled, and then finish
+     * the wrapped handler on this thread.
+     */
+    @Override
+    public synchronized void finish() {
+        if (current.size > 0) {
+            flush();
+        }
+        awaitDrained();
+        checkFailure();
+        handler.finish();
+    }
+    
+    /**
+     * Stop the worker threads, once the batches already queued have been handled.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (int i = 0; i < workers.length; i++) {
+                queue.put(POISON);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public GeneratorHandler getHandler() {
+        return handler;
+    }
+    
+    private void flush() {
+        checkFailure();
+        if (closed) {
+            throw new IllegalStateException("Pipeline closed");
+        }
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            queue.put(current);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for space", e);
+        }
+        current = new Batch(batchSize);
+    }
+    
+    /**
+     * Wait until no batch is queued or being handled.
+     */
+    private void awaitDrained() {
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while draining", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * After a failure, wait for the workers to discard the batches still queued, stop them,
+     * and rethrow; so the wrapped handler is never finished while a worker is in it.
+     */
+    private void checkFailure() {
+        Throwable e;
+        synchronized (lock) {
+            e = failure;
+        }
+        if (e != null) {
+            current = new Batch(batchSize);
+            awaitDrained();
+            close();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new IllegalStateException("Handler failed", e);
+        }
+    }
+    
+    private void work() {
+        while (true) {
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == POISON) {
+                return;
+            }
+            boolean failed;
+            synchronized (lock) {
+                failed = failure != null;
+            }
+            Throwable error = null;
+            try {
+                // once a batch has failed the rest are discarded, but still counted off
+                for (int i = 0; i < batch.size && !failed; i++) {
+                    handler.handle(batch.parents[i], batch.graphs[i]);
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                // always counted off, or finish would wait for this batch forever
+                synchronized (lock) {
+                    if (error != null && failure == null) {
+                        failure = error;
+                    }
+                    pending--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+    
+}
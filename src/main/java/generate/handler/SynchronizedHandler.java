@@ -0,0 +1,30 @@
+package generate.handler;
+
+import graph.model.IntGraph;
+
+/**
+ * Wraps a handler so that it can be shared by several generating threads. 
+ */
+public class SynchronizedHandler implements GeneratorHandler {
+    
+    private final GeneratorHandler handler;
+    
+    public SynchronizedHandler(GeneratorHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public synchronized void handle(IntGraph parent, IntGraph graph) {
+        handler.handle(parent, graph);
+    }
+
+    @Override
+    public synchronized void finish() {
+        handler.finish();
+    }
+    
+    public GeneratorHandler getHandler() {
+        return handler;
+    }
+
+}
@@ -0,0 +1,420 @@
+package graph6;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes single graphs in graph6, sparse6 and digraph6. 
+ * 
+ * Decoding reads straight from a byte buffer - which may be a mapped file - into an edge 
+ * array that is reused from graph to graph, and encoding writes into a reused byte array, 
+ * so a codec should be kept for a whole stream of graphs. Digraphs are read as their 
+ * underlying graphs : an arc in either or both directions gives one edge.
+ */
+public class Graph6Codec {
+    
+    private static final int BIAS = 63;
+    
+    private static final int SMALL_N = 62;
+    
+    private static final int MEDIUM_N = 258047;
+    
+    private int vertexCount;
+    
+    /**
+     * The edges of the last decoded graph, as pairs of endpoints.
+     */
+    private int[] edges;
+    
+    private int edgeCount;
+    
+    private byte[] bytes;
+    
+    private int byteCount;
+    
+    private long[] sortKeys;
+    
+    public Graph6Codec() {
+        edges = new int[64];
+        bytes = new byte[64];
+        sortKeys = new long[32];
+    }
+    
+    public static IntGraph fromString(String line) {
+        byte[] lineBytes = line.trim().getBytes();
+        Graph6Codec codec = new Graph6Codec();
+        return codec.decodeGraph(ByteBuffer.wrap(lineBytes), 0, lineBytes.length);
+    }
+    
+    public static String toString(IntGraph g, Graph6Format format) {
+        Graph6Codec codec = new Graph6Codec();
+        codec.encode(g, format);
+        return new String(codec.bytes, 0, codec.byteCount);
+    }
+    
+    /**
+     * Decode one graph and copy it into an IntGraph.
+     * 
+     * @param buffer the buffer holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte, not including the newline
+     * @return the graph
+     */
+    public IntGraph decodeGraph(ByteBuffer buffer, int start, int end) {
+        decode(buffer, start, end);
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < edgeCount; i++) {
+            g.makeEdge(edges[2 * i], edges[2 * i + 1]);
+        }
+        while (g.getVertexCount() < vertexCount) {
+            g.makeIsolatedVertex();
+        }
+        return g;
+    }
+    
+    /**
+     * Decode one graph into the edge array of this codec.
+     * 
+     * @return the number of vertices
+     */
+    public int decode(ByteBuffer buffer, int start, int end) {
+        edgeCount = 0;
+        Graph6Format format = Graph6Format.forPrefix(buffer.get(start));
+        int position = (format == Graph6Format.GRAPH6)? start : start + 1;
+        position = readSize(buffer, position);
+        switch (format) {
+            case SPARSE6: decodeSparse6(buffer, position, end); break;
+            case DIGRAPH6: decodeDigraph6(buffer, position, end); break;
+            case GRAPH6:
+            default: decodeGraph6(buffer, position, end); break;
+        }
+        return vertexCount;
+    }
+    
+    private int readSize(ByteBuffer buffer, int position) {
+        int first = buffer.get(position) - BIAS;
+        if (first <= SMALL_N) {
+            vertexCount = first;
+            return position + 1;
+        } else if (buffer.get(position + 1) - BIAS <= SMALL_N) {
+            vertexCount = readBits(buffer, position + 1, 3);
+            return position + 4;
+        } else {
+            long size = 0;
+            for (int i = 0; i < 6; i++) {
+                size = (size << 6) | (buffer.get(position + 2 + i) - BIAS);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Graph too large : " + size + " vertices");
+            }
+            vertexCount = (int) size;
+            return position + 8;
+        }
+    }
+    
+    private int readBits(ByteBuffer buffer, int position, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 6) | (buffer.get(position + i) - BIAS);
+        }
+        return value;
+    }
+    
+    private void decodeGraph6(ByteBuffer buffer, int position, int end) {
+        int n = vertexCount;
+        int bit = 0;
+        for (int j = 1; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                int index = position + bit / 6;
+                if (index >= end) {
+                    throw new IllegalArgumentException("graph6 line too short for " + n + " vertices");
+                }
+                int value = buffer.get(index) - BIAS;
+                if ((value & (32 >> (bit % 6))) != 0) {
+                    addEdge(i, j);
+                }
+                bit++;
+            }
+        }
+    }
+    
+    private void decodeDigraph6(ByteBuffer buffer, int position, int end) {
+        int n = vertexCount;
+        long bit = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int index = position + (int) (bit / 6);
+                if (index >= end) {
+                    throw new IllegalArgumentException("digraph6 line too short for " + n + " vertices");
+                }
+                int value = buffer.get(index) - BIAS;
+                if ((value & (32 >> (bit % 6))) != 0) {
+                    // keep one edge for the arcs i->j and j->i
+                    if (i < j || !hasArc(buffer, position, n, j, i)) {
+                        addEdge(Math.min(i, j), Math.max(i, j));
+                    }
+                }
+                bit++;
+            }
+        }
+    }
+    
+    private boolean hasArc(ByteBuffer buffer, int position, int n, int i, int j) {
+        long bit = (long) i * n + j;
+        int value = buffer.get(position + (int) (bit / 6)) - BIAS;
+        return (value & (32 >> (bit % 6))) != 0;
+    }
+    
+    private void decodeSparse6(ByteBuffer buffer, int position, int end) {
+        int n = vertexCount;
+        int k = bitsFor(n - 1);
+        long totalBits = 6L * (end - position);
+        long bit = 0;
+        int v = 0;
+        while (bit + 1 + k <= totalBits) {
+            int b = readBit(buffer, position, bit);
+            bit++;
+            int x = 0;
+            for (int i = 0; i < k; i++) {
+                x = (x << 1) | readBit(buffer, position, bit);
+                bit++;
+            }
+            if (b == 1) {
+                v++;
+            }
+            if (v >= n) {
+                break;
+            }
+            if (x > v) {
+                v = x;
+            } else {
+                addEdge(x, v);
+            }
+        }
+    }
+    
+    private int readBit(ByteBuffer buffer, int position, long bit) {
+        int value = buffer.get(position + (int) (bit / 6)) - BIAS;
+        return (value >> (5 - (int) (bit % 6))) & 1;
+    }
+    
+    private static int bitsFor(int value) {
+        int k = 0;
+        while (value > 0) {
+            value >>= 1;
+            k++;
+        }
+        return k;
+    }
+    
+    private void addEdge(int a, int b) {
+        if (2 * edgeCount + 2 > edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[2 * edgeCount] = a;
+        edges[2 * edgeCount + 1] = b;
+        edgeCount++;
+    }
+    
+    public int getVertexCount() {
+        return vertexCount;
+    }
+    
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+    
+    /**
+     * @return the endpoints of the edges of the last decoded graph, two per edge
+     */
+    public int[] getEdges() {
+        return edges;
+    }
+    
+    /**
+     * Encode a graph into the byte array of this codec, without a newline.
+     */
+    public void encode(IntGraph g, Graph6Format format) {
+        edgeCount = 0;
+        for (IntEdge e : g.edges) {
+            addEdge(Math.min(e.a, e.b), Math.max(e.a, e.b));
+        }
+        encode(g.getVertexCount(), format);
+    }
+    
+    /**
+     * Encode the graph held in the edge array of this codec.
+     * 
+     * @param n the number of vertices
+     * @param format the format to write
+     */
+    public void encode(int n, Graph6Format format) {
+        vertexCount = n;
+        byteCount = 0;
+        if (format != Graph6Format.GRAPH6) {
+            appendByte(format.prefix);
+        }
+        writeSize(n);
+        switch (format) {
+            case SPARSE6: encodeSparse6(n); break;
+            case DIGRAPH6: encodeDigraph6(n); break;
+            case GRAPH6:
+            default: encodeGraph6(n); break;
+        }
+    }
+    
+    private void writeSize(int n) {
+        if (n <= SMALL_N) {
+            appendByte((byte) (n + BIAS));
+        } else if (n <= MEDIUM_N) {
+            appendByte((byte) 126);
+            for (int shift = 12; shift >= 0; shift -= 6) {
+                appendByte((byte) (((n >> shift) & 63) + BIAS));
+            }
+        } else {
+            appendByte((byte) 126);
+            appendByte((byte) 126);
+            for (int shift = 30; shift >= 0; shift -= 6) {
+                appendByte((byte) ((((long) n >> shift) & 63) + BIAS));
+            }
+        }
+    }
+    
+    private void encodeGraph6(int n) {
+        long bitCount = (long) n * (n - 1) / 2;
+        int start = reserve((int) ((bitCount + 5) / 6));
+        for (int i = 0; i < edgeCount; i++) {
+            int a = edges[2 * i];
+            int b = edges[2 * i + 1];
+            if (a != b) {
+                setBit(start, (long) b * (b - 1) / 2 + a);
+            }
+        }
+        addBias(start);
+    }
+    
+    private void encodeDigraph6(int n) {
+        long bitCount = (long) n * n;
+        int start = reserve((int) ((bitCount + 5) / 6));
+        for (int i = 0; i < edgeCount; i++) {
+            int a = edges[2 * i];
+            int b = edges[2 * i + 1];
+            setBit(start, (long) a * n + b);
+            setBit(start, (long) b * n + a);
+        }
+        addBias(start);
+    }
+    
+    private void encodeSparse6(int n) {
+        int k = bitsFor(n - 1);
+        // edges in order of their larger endpoint, then their smaller one
+        if (sortKeys.length < edgeCount) {
+            sortKeys = new long[Math.max(edgeCount, sortKeys.length * 2)];
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            sortKeys[i] = ((long) edges[2 * i + 1] << 32) | edges[2 * i];
+        }
+        Arrays.sort(sortKeys, 0, edgeCount);
+        
+        int start = byteCount;
+        long bit = 0;
+        int v = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            long key = sortKeys[i];
+            int b = (int) (key >>> 32);
+            int a = (int) key;
+            if (b == v) {
+                bit = writeSparseEntry(start, bit, 0, a, k);
+            } else if (b == v + 1) {
+                bit = writeSparseEntry(start, bit, 1, a, k);
+            } else {
+                bit = writeSparseEntry(start, bit, 1, b, k);
+                bit = writeSparseEntry(start, bit, 0, a, k);
+            }
+            v = b;
+        }
+        // pad to a whole number of bytes with 1 bits, adding a 0 bit first where the
+        // padding has room for a whole entry (k + 1 bits), and so could otherwise be read 
+        // as an edge to vertex n - 1 - the same rule as nauty
+        int padding = (int) ((6 - bit % 6) % 6);
+        if (n == (1 << k) && v == n - 2 && padding >= k + 1) {
+            reserveBits(start, bit + 1);
+            bit++;
+            padding--;
+        }
+        for (int i = 0; i < padding; i++) {
+            reserveBits(start, bit + 1);
+            setBit(start, bit);
+            bit++;
+        }
+        addBias(start);
+    }
+    
+    private long writeSparseEntry(int start, long bit, int b, int x, int k) {
+        reserveBits(start, bit + 1 + k);
+        if (b == 1) {
+            setBit(start, bit);
+        }
+        bit++;
+        for (int i = k - 1; i >= 0; i--) {
+            if (((x >> i) & 1) == 1) {
+                setBit(start, bit);
+            }
+            bit++;
+        }
+        return bit;
+    }
+    
+    private void reserveBits(int start, long bitCount) {
+        int needed = start + (int) ((bitCount + 5) / 6);
+        if (needed > byteCount) {
+            reserve(needed - byteCount);
+        }
+    }
+    
+    /**
+     * Add zeroed bytes to the end of the byte array.
+     * 
+     * @return the index of the first of them
+     */
+    private int reserve(int count) {
+        if (byteCount + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(byteCount + count, bytes.length * 2));
+        }
+        int start = byteCount;
+        Arrays.fill(bytes, start, start + count, (byte) 0);
+        byteCount += count;
+        return start;
+    }
+    
+    private void setBit(int start, long bit) {
+        int index = start + (int) (bit / 6);
+        bytes[index] |= 32 >> (bit % 6);
+    }
+    
+    private void addBias(int start) {
+        for (int i = start; i < byteCount; i++) {
+            bytes[i] += BIAS;
+        }
+    }
+    
+    private void appendByte(byte b) {
+        reserve(1);
+        bytes[byteCount - 1] = b;
+    }
+    
+    /**
+     * @return the bytes of the last encoded graph; only the first {@link #getByteCount()} are used
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+    
+    public int getByteCount() {
+        return byteCount;
+    }
+
+}
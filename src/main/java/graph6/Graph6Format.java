@@ -0,0 +1,39 @@
+package graph6;
+
+/**
+ * The three nauty formats for graphs as lines of printable characters. 
+ */
+public enum Graph6Format {
+    
+    GRAPH6(">>graph6<<", (byte) 0),
+    
+    SPARSE6(">>sparse6<<", (byte) ':'),
+    
+    DIGRAPH6(">>digraph6<<", (byte) '&');
+    
+    /**
+     * The optional header at the start of a file.
+     */
+    public final String header;
+    
+    /**
+     * The character that starts each graph, or 0 for graph6 which has none.
+     */
+    public final byte prefix;
+    
+    private Graph6Format(String header, byte prefix) {
+        this.header = header;
+        this.prefix = prefix;
+    }
+    
+    public static Graph6Format forPrefix(byte first) {
+        if (first == SPARSE6.prefix) {
+            return SPARSE6;
+        } else if (first == DIGRAPH6.prefix) {
+            return DIGRAPH6;
+        } else {
+            return GRAPH6;
+        }
+    }
+
+}
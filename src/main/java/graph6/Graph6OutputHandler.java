@@ -0,0 +1,75 @@
+package graph6;
+
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes each generated graph as a line of graph6, sparse6 or digraph6, through one 
+ * buffer and one reused encoding array.
+ */
+public class Graph6OutputHandler implements GeneratorHandler {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final OutputStream out;
+    
+    private final Graph6Format format;
+    
+    private final Graph6Codec codec;
+    
+    private int count;
+    
+    public Graph6OutputHandler(String filepath) throws FileNotFoundException {
+        this(filepath, Graph6Format.GRAPH6);
+    }
+    
+    public Graph6OutputHandler(String filepath, Graph6Format format) throws FileNotFoundException {
+        this(new FileOutputStream(filepath), format, false);
+    }
+    
+    public Graph6OutputHandler(OutputStream out, Graph6Format format, boolean writeHeader) {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.format = format;
+        this.codec = new Graph6Codec();
+        this.count = 0;
+        if (writeHeader) {
+            try {
+                this.out.write(format.header.getBytes());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void handle(IntGraph parent, IntGraph graph) {
+        codec.encode(graph, format);
+        try {
+            out.write(codec.getBytes(), 0, codec.getByteCount());
+            out.write('\n');
+            count++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void finish() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package graph6;
+
+import graph.model.IntGraph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a file of graphs in graph6, sparse6 or digraph6 - one per line, with an optional 
+ * header - by mapping it into memory and decoding each line in place when it is asked for.
+ * 
+ * Large files are mapped a window at a time.
+ */
+public class Graph6Reader implements Iterable<IntGraph>, Closeable {
+    
+    private static final long MAX_WINDOW = 1L << 30;
+    
+    private final RandomAccessFile file;
+    
+    private final FileChannel channel;
+    
+    private final long size;
+    
+    private final long windowSize;
+    
+    private MappedByteBuffer window;
+    
+    private long windowStart;
+    
+    /**
+     * The offset in the file of the next line to read.
+     */
+    private long position;
+    
+    private final Graph6Codec codec;
+    
+    public Graph6Reader(String path) throws IOException {
+        this(new File(path));
+    }
+    
+    public Graph6Reader(File path) throws IOException {
+        this(path, MAX_WINDOW);
+    }
+    
+    Graph6Reader(File path, long windowSize) throws IOException {
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.codec = new Graph6Codec();
+        this.position = 0;
+        mapWindow(0);
+        skipHeader();
+    }
+    
+    public static List<IntGraph> readAll(String path) throws IOException {
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        Graph6Reader reader = new Graph6Reader(path);
+        for (IntGraph g : reader) {
+            graphs.add(g);
+        }
+        reader.close();
+        return graphs;
+    }
+    
+    private void mapWindow(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+    }
+    
+    private void skipHeader() {
+        for (Graph6Format format : Graph6Format.values()) {
+            String header = format.header;
+            if (size < header.length()) continue;
+            boolean matches = true;
+            for (int i = 0; i < header.length() && matches; i++) {
+                matches = window.get(i) == header.charAt(i);
+            }
+            if (matches) {
+                position = header.length();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Decode the next graph in the file.
+     * 
+     * @return the graph, or null at the end of the file
+     */
+    public IntGraph next() throws IOException {
+        while (position < size) {
+            long lineEnd = findLineEnd();
+            int start = (int) (position - windowStart);
+            int end = (int) (lineEnd - windowStart);
+            // allow for windows line endings
+            if (end > start && window.get(end - 1) == '\r') {
+                end--;
+            }
+            position = lineEnd + 1;
+            if (end > start) {
+                return codec.decodeGraph(window, start, end);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Find the newline (or the end of the file) after the current position, moving the 
+     * window on if the line runs past the end of it.
+     */
+    private long findLineEnd() throws IOException {
+        if (position >= windowStart + window.limit()) {
+            mapWindow(position);
+        }
+        long windowEnd = windowStart + window.limit();
+        for (long offset = position; offset < windowEnd; offset++) {
+            if (window.get((int) (offset - windowStart)) == '\n') {
+                return offset;
+            }
+        }
+        if (windowEnd == size) {
+            return size;
+        }
+        if (position == windowStart) {
+            throw new IOException("Line at " + position + " is longer than the mapping window");
+        }
+        mapWindow(position);
+        return findLineEnd();
+    }
+    
+    @Override
+    public Iterator<IntGraph> iterator() {
+        return new Iterator<IntGraph>() {
+            
+            private IntGraph nextGraph = read();
+            
+            private IntGraph read() {
+                try {
+                    return Graph6Reader.this.next();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextGraph != null;
+            }
+
+            @Override
+            public IntGraph next() {
+                if (nextGraph == null) {
+                    throw new NoSuchElementException();
+                }
+                IntGraph current = nextGraph;
+                nextGraph = read();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+}
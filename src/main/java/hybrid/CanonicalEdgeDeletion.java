@@ -0,0 +1,206 @@
+package hybrid;
+
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+/**
+ * The canonical deletion test for connected graphs built up one edge at a time, where an
+ * edge either joins two vertices already in the graph or hangs a new vertex off one.
+ *
+ * The edges that could have been the last one added are those whose removal leaves a
+ * connected parent : edges on a cycle, and pendant edges (removed with their end vertex).
+ * Of these, the canonical edge is the one with the largest invariant - the larger then
+ * the smaller end degree, then the number of triangles on the edge - with ties broken by
+ * the canonical labelling. A child is accepted if the edge just added is in the same
+ * automorphism orbit as the canonical edge.
+ *
+ * The invariants settle most children without a labelling : if the new edge does not have
+ * the largest invariant it is rejected, and if it is the only edge that does it is accepted.
+ */
+public class CanonicalEdgeDeletion {
+
+    /**
+     * The labelling made by the last test, or null if the invariants were enough.
+     */
+    private Labelling labelling;
+
+    private int labellingCount;
+
+    private int testCount;
+
+    private int[][] neighbours;
+
+    private int[] degrees;
+
+    private boolean[][] adjacent;
+
+    private int[] discovery;
+
+    private int[] low;
+
+    private int time;
+
+    private boolean[] candidate;
+
+    private long[] invariants;
+
+    /**
+     * Test the edge between a and b, which must be in g, for being the canonical last edge
+     * of g up to automorphism.
+     *
+     * @param g a connected graph
+     * @param a one end of the edge
+     * @param b the other end of the edge
+     * @return true if the edge is in the orbit of the canonical edge
+     */
+    public boolean isCanonical(IntGraph g, int a, int b) {
+        testCount++;
+        labelling = null;
+        int n = g.getVertexCount();
+        int m = g.edges.size();
+        fill(g, n);
+        findCandidates(g, n, m);
+
+        int added = -1;
+        for (int index = 0; index < m; index++) {
+            IntEdge e = g.edges.get(index);
+            if ((e.a == a && e.b == b) || (e.a == b && e.b == a)) {
+                added = index;
+                break;
+            }
+        }
+        if (added == -1 || !candidate[added]) {
+            return false;
+        }
+
+        long best = invariants[added];
+        int ties = 0;
+        for (int index = 0; index < m; index++) {
+            if (!candidate[index]) continue;
+            if (invariants[index] > best) {
+                return false;
+            } else if (invariants[index] == best) {
+                ties++;
+            }
+        }
+        if (ties == 1) {
+            return true;
+        }
+
+        // the invariants tie, so pick the tied edge with the largest canonical image
+        labellingCount++;
+        labelling = CanonicalLabellers.get(n).label(g);
+        int[] labels = labelling.getLabels();
+        int canonicalEdge = -1;
+        int canonicalCode = -1;
+        for (int index = 0; index < m; index++) {
+            if (!candidate[index] || invariants[index] != best) continue;
+            IntEdge e = g.edges.get(index);
+            int code = pairCode(labels[e.a], labels[e.b], n);
+            if (code > canonicalCode) {
+                canonicalCode = code;
+                canonicalEdge = index;
+            }
+        }
+        if (canonicalEdge == added) {
+            return true;
+        }
+        IntEdge e = g.edges.get(canonicalEdge);
+        int[] pairOrbits = labelling.getStabiliserChain().getPairOrbits();
+        return pairOrbits[pairCode(a, b, n)] == pairOrbits[pairCode(e.a, e.b, n)];
+    }
+
+    /**
+     * @return the labelling of the graph in the last test, if it needed one
+     */
+    public Labelling getLabelling() {
+        return labelling;
+    }
+
+    public int getLabellingCount() {
+        return labellingCount;
+    }
+
+    public int getTestCount() {
+        return testCount;
+    }
+
+    private static int pairCode(int a, int b, int n) {
+        return (a < b)? a * n + b : b * n + a;
+    }
+
+    private void fill(IntGraph g, int n) {
+        if (degrees == null || degrees.length < n) {
+            degrees = new int[n];
+            neighbours = new int[n][n];
+            adjacent = new boolean[n][n];
+            discovery = new int[n];
+            low = new int[n];
+        } else {
+            for (int i = 0; i < n; i++) {
+                degrees[i] = 0;
+                for (int j = 0; j < n; j++) {
+                    adjacent[i][j] = false;
+                }
+            }
+        }
+        for (IntEdge e : g.edges) {
+            neighbours[e.a][degrees[e.a]++] = e.b;
+            neighbours[e.b][degrees[e.b]++] = e.a;
+            adjacent[e.a][e.b] = true;
+            adjacent[e.b][e.a] = true;
+        }
+    }
+
+    private void findCandidates(IntGraph g, int n, int m) {
+        if (candidate == null || candidate.length < m) {
+            candidate = new boolean[m];
+            invariants = new long[m];
+        }
+        for (int i = 0; i < n; i++) {
+            discovery[i] = -1;
+        }
+        time = 0;
+        lowLink(0, -1);
+        for (int index = 0; index < m; index++) {
+            IntEdge e = g.edges.get(index);
+            int u = e.a;
+            int v = e.b;
+            boolean pendant = (degrees[u] == 1) != (degrees[v] == 1);
+            // the edge is a bridge if the deeper end cannot reach above it
+            int child = (discovery[u] > discovery[v])? u : v;
+            int top = (child == u)? v : u;
+            boolean bridge = low[child] > discovery[top];
+            candidate[index] = pendant || !bridge;
+            if (candidate[index]) {
+                int triangles = 0;
+                for (int i = 0; i < degrees[u]; i++) {
+                    if (adjacent[neighbours[u][i]][v]) {
+                        triangles++;
+                    }
+                }
+                long big = Math.max(degrees[u], degrees[v]);
+                long small = Math.min(degrees[u], degrees[v]);
+                invariants[index] = (((big * n) + small) * n) + triangles;
+            }
+        }
+    }
+
+    private void lowLink(int v, int parent) {
+        discovery[v] = time;
+        low[v] = time;
+        time++;
+        for (int i = 0; i < degrees[v]; i++) {
+            int w = neighbours[v][i];
+            if (discovery[w] == -1) {
+                lowLink(w, v);
+                low[v] = Math.min(low[v], low[w]);
+            } else if (w != parent) {
+                low[v] = Math.min(low[v], discovery[w]);
+            }
+        }
+    }
+
+}
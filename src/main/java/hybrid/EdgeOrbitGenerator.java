@@ -1,5 +1,174 @@
 package hybrid;
 
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import java.util.List;
+
+/**
+ * Generates connected graphs by canonical augmentation, adding one edge at a time either
+ * between two vertices of the graph or from a vertex to a new vertex.
+ * 
+ * Unlike the {@link HybridGenerator}, which tests every non-edge for being the smallest in
+ * its orbit, the orbits of the non-edges (and of the vertices, for the new vertex edges)
+ * are found once for each graph from the generators of its automorphism group, and only
+ * one representative of each orbit is tried. Each child is then given the
+ * {@link CanonicalEdgeDeletion} test.
+ */
 public class EdgeOrbitGenerator {
+    
+    private GeneratorHandler handler;
+    
+    /**
+     * The largest vertex degree, or 0 for no limit.
+     */
+    private int maxDegree;
+    
+    private CanonicalEdgeDeletion deletion;
+    
+    public EdgeOrbitGenerator(GeneratorHandler handler) {
+        this(handler, 0);
+    }
+    
+    public EdgeOrbitGenerator(GeneratorHandler handler, int maxDegree) {
+        this.handler = handler;
+        this.maxDegree = maxDegree;
+        this.deletion = new CanonicalEdgeDeletion();
+    }
+    
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+    
+    /**
+     * Generate the connected graphs on n vertices, starting from a single edge.
+     * 
+     * @param n the number of vertices
+     */
+    public void generate(int n) {
+        generate(new IntGraph("0:1"), n);
+    }
+    
+    /**
+     * Generate the connected graphs on n vertices that have start as an ancestor. 
+     * 
+     * @param start a connected graph
+     * @param n the number of vertices
+     */
+    public void generate(IntGraph start, int n) {
+        if (start.getVertexCount() == n) {
+            handler.handle(null, start);
+        }
+        extend(start, null, n);
+        handler.finish();
+    }
+    
+    /**
+     * @param g the graph to extend
+     * @param labelling the labelling of g, if the deletion test already made one
+     * @param n the number of vertices
+     */
+    private void extend(IntGraph g, Labelling labelling, int n) {
+        if (labelling == null) {
+            labelling = CanonicalLabellers.get(g.getVertexCount()).label(g);
+        }
+        int l = g.getVertexCount();
+        int[] degrees = new int[l];
+        for (int v = 0; v < l; v++) {
+            degrees[v] = g.degree(v);
+        }
+        
+        for (int code : getRepresentatives(g, labelling.getGenerators(), degrees, l < n)) {
+            int start = code / (l + 1);
+            int end = code % (l + 1);
+            IntGraph child = g.makeNew(start, end);
+            if (deletion.isCanonical(child, start, end)) {
+                Labelling childLabelling = deletion.getLabelling();
+                if (child.getVertexCount() == n) {
+                    handler.handle(g, child);
+                }
+                extend(child, childLabelling, n);
+            }
+        }
+    }
+    
+    /**
+     * Find one augmentation from each orbit, as codes start * (l + 1) + end where end is
+     * either a vertex after start that is not its neighbour, or the new vertex l.
+     * 
+     * @param g the graph to augment
+     * @param generators the generators of the automorphism group of g
+     * @param degrees the degrees of the vertices of g
+     * @param canAddVertex true if there is room for a new vertex
+     * @return the smallest code in each orbit
+     */
+    private int[] getRepresentatives(IntGraph g, List<int[]> generators, int[] degrees, boolean canAddVertex) {
+        int l = degrees.length;
+        int width = l + 1;
+        int[] orbits = new int[l * width];
+        int[] codes = new int[l * width];
+        int codeCount = 0;
+        for (int start = 0; start < l; start++) {
+            if (isFull(degrees[start])) continue;
+            for (int end = start + 1; end < l; end++) {
+                if (isFull(degrees[end]) || g.isConnected(start, end)) continue;
+                int code = start * width + end;
+                orbits[code] = code;
+                codes[codeCount++] = code;
+            }
+            if (canAddVertex) {
+                int code = start * width + l;
+                orbits[code] = code;
+                codes[codeCount++] = code;
+            }
+        }
+        
+        // the images of an allowed augmentation are allowed, as automorphisms keep degrees
+        for (int[] generator : generators) {
+            for (int i = 0; i < codeCount; i++) {
+                int start = codes[i] / width;
+                int end = codes[i] % width;
+                int imageStart = generator[start];
+                int imageEnd = (end == l)? l : generator[end];
+                int image = (imageStart < imageEnd)? 
+                        imageStart * width + imageEnd : imageEnd * width + imageStart;
+                union(orbits, codes[i], image);
+            }
+        }
+        
+        int repCount = 0;
+        for (int i = 0; i < codeCount; i++) {
+            if (find(orbits, codes[i]) == codes[i]) {
+                codes[repCount++] = codes[i];
+            }
+        }
+        int[] representatives = new int[repCount];
+        System.arraycopy(codes, 0, representatives, 0, repCount);
+        return representatives;
+    }
+    
+    private boolean isFull(int degree) {
+        return maxDegree > 0 && degree >= maxDegree;
+    }
+    
+    private static void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+    
+    private static int find(int[] parents, int a) {
+        while (parents[a] != a) {
+            parents[a] = parents[parents[a]];
+            a = parents[a];
+        }
+        return a;
+    }
 
 }
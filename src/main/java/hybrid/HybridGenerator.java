@@ -1,24 +1,32 @@
 package hybrid;
 
+import canon.CanonicalLabellers;
+import canon.Labelling;
+import canon.StabiliserChain;
 import generate.handler.GeneratorHandler;
-import graph.group.GraphDiscretePartitionRefiner;
-import graph.model.Graph;
-import graph.model.GraphSignature;
 import graph.model.IntGraph;
-import group.Permutation;
 import group.PermutationGroup;
 
 public class HybridGenerator {
 	
 	private GeneratorHandler handler;
 	
+	private CanonicalEdgeDeletion deletion;
+	
+	private int labellingCount;
+	
 	public HybridGenerator(GeneratorHandler handler) {
 		this.handler = handler;
+		this.deletion = new CanonicalEdgeDeletion();
 	}
 	
 	public PermutationGroup getGroup(IntGraph g) {
-		GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-		return refiner.getAutomorphismGroup(g);
+		return label(g).getAutomorphismGroup();
+	}
+	
+	private Labelling label(IntGraph g) {
+		labellingCount++;
+		return CanonicalLabellers.get(g.getVertexCount()).label(g);
 	}
 	
 	public void generate(IntGraph graph, int n) {
@@ -27,31 +35,31 @@ public class HybridGenerator {
 	}
 	
 	public void generate(IntGraph parent, IntGraph graph, int n) {
+		generate(parent, graph, null, n);
+	}
+	
+	/**
+	 * @param labelling the labelling of graph, if the deletion test already made one
+	 */
+	private void generate(IntGraph parent, IntGraph graph, Labelling labelling, int n) {
 		handler.handle(parent, graph);
 		int l = graph.getVertexCount();
 		if (l > n) return;
 		int max = Math.min(l, n);
-		PermutationGroup autG = getGroup(graph);
-		GraphSignature gSignature = new GraphSignature(graph);
-		String gCanonicalLabel = gSignature.toCanonicalString();
+		if (labelling == null) {
+			labelling = label(graph);
+		}
+		StabiliserChain chain = labelling.getStabiliserChain();
+		int[] pairOrbits = chain.getPairOrbits();
 		for (int start = 0; start < l; start++) {
 			for (int end = start + 1; end <= max; end++) {
 				if (graph.isConnected(start, end)) {
 					continue;
 				} else {
-//					System.out.println("checking " + graph + " + {" + start + ":" + end + "}");
-					if (isMinimalInOrbit(start, end, l, graph, autG)) {
+					if (isMinimalInOrbit(start, end, l, chain, pairOrbits)) {
 					    IntGraph gPrime = graph.makeNew(start, end);
-						GraphSignature gPrimeSignature = new GraphSignature(gPrime);
-						IntGraph canonGPrime = gPrime.getPermutedGraph(gPrimeSignature.getCanonicalLabels());
-						IntGraph gPrimeMinusE = canonGPrime.removeLastEdge();
-						GraphSignature gPrimeMinusESignature = new GraphSignature(gPrimeMinusE);
-						String gPrimeMinusESigString = gPrimeMinusESignature.toCanonicalString();
-//						System.out.println(gPrimeMinusESigString + " =? " + gCanonicalLabel 
-//								+ " for C(G') = " + canonGPrime
-//								+ " and C(G') - e = " + gPrimeMinusE);
-						if (gPrimeMinusESigString.equals(gCanonicalLabel)) {
-							generate(graph, gPrime, n);
+						if (deletion.isCanonical(gPrime, start, end)) {
+							generate(graph, gPrime, deletion.getLabelling(), n);
 						}
 					}
 				}
@@ -59,23 +67,27 @@ public class HybridGenerator {
 		}
 	}
 	
-	private boolean isMinimalInOrbit(int start, int end, int l, Graph g, PermutationGroup autG) {
-		for (Permutation p : autG.all()) {
-			int startPrime = p.get(start);
-			if (end == l) {
-				if (startPrime < start) {
-//					System.out.println(g + " " + start + ":" + end + " not minimal compared to ");
-					return false;
-				}
-			} else {
-				int endPrime = p.get(end);
-				if (startPrime < start || (startPrime <= start && endPrime < end)) {
-//				System.out.println(g + " " + start + ":" + end + " not minimal compared to " + startPrime + ":" + endPrime);
-					return false;
-				}
-			}
+	private boolean isMinimalInOrbit(int start, int end, int l, StabiliserChain chain, int[] pairOrbits) {
+		if (end == l) {
+			return chain.isMinimalInOrbit(start);
+		} else {
+			int code = start * l + end;
+			return pairOrbits[code] == code;
 		}
-		return true;
+	}
+	
+	/**
+	 * @return the number of full canonical labellings made, including those for the groups
+	 */
+	public int getLabellingCount() {
+		return labellingCount + deletion.getLabellingCount();
+	}
+	
+	/**
+	 * @return the number of children given the canonical deletion test
+	 */
+	public int getChildCount() {
+		return deletion.getTestCount();
 	}
 
 }
@@ -1,7 +1,9 @@
 package nauty;
 
+import generate.handler.GeneratorHandler;
 import graph.model.Graph;
 import graph.model.IntGraph;
+import graph6.Graph6Reader;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -28,29 +30,24 @@ public class GenerateGraphs {
                                          String filename) throws IOException, InterruptedException {
         // run geng
         String tmpGengFilename = "tmp_geng_" + n + ".g6";
-        ProcessBuilder gengProcess = 
-            new ProcessBuilder("nauty/geng", 
-                               String.valueOf(n),   // the number of vertices
-                               "-c",                // only connected graphs
-                               "-D" + maxDegree,    // the maxdegree
-                               tmpGengFilename);
-        Process geng = gengProcess.start();
-        geng.waitFor();
+        runGeng(n, maxDegree, tmpGengFilename);
         
-        // run multig
+        // read in the graphs - straight from the geng output, unless multig has to colour the edges
+        List<IntGraph> graphs;
         String tmpMultigFilename = "tmp_multig_" + n + ".txt";
-        ProcessBuilder listgProcess = 
-            new ProcessBuilder("nauty/multig",
-                               "-m" + maxEdgeColor,     // the max edge color
-                               "-T",                   // text-readable format
-                               tmpGengFilename,
-                               tmpMultigFilename);
-        Process listg = listgProcess.start();
-        listg.waitFor();
-        
-        // read in the graphs
-        List<IntGraph> graphs = 
-            GenerateGraphs.readMultigTextFormatFile(tmpMultigFilename);
+        if (maxEdgeColor > 1) {
+            ProcessBuilder listgProcess = 
+                new ProcessBuilder("nauty/multig",
+                                   "-m" + maxEdgeColor,     // the max edge color
+                                   "-T",                   // text-readable format
+                                   tmpGengFilename,
+                                   tmpMultigFilename);
+            Process listg = listgProcess.start();
+            listg.waitFor();
+            graphs = GenerateGraphs.readMultigTextFormatFile(tmpMultigFilename);
+        } else {
+            graphs = Graph6Reader.readAll(tmpGengFilename);
+        }
         
         // write
         BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
@@ -69,6 +66,36 @@ public class GenerateGraphs {
         }
     }
     
+    /**
+     * Pass the connected graphs on n vertices with at most the given degree to a handler, 
+     * reading them from geng's graph6 output one at a time.
+     */
+    public static void generate(int n, int maxDegree, GeneratorHandler handler) throws IOException, InterruptedException {
+        String tmpGengFilename = "tmp_geng_" + n + ".g6";
+        runGeng(n, maxDegree, tmpGengFilename);
+        Graph6Reader reader = new Graph6Reader(tmpGengFilename);
+        for (IntGraph g : reader) {
+            handler.handle(null, g);
+        }
+        reader.close();
+        handler.finish();
+        File tmpGengFile = new File(tmpGengFilename);
+        if (tmpGengFile.exists()) {
+            tmpGengFile.delete();
+        }
+    }
+    
+    private static void runGeng(int n, int maxDegree, String filename) throws IOException, InterruptedException {
+        ProcessBuilder gengProcess = 
+            new ProcessBuilder("nauty/geng", 
+                               String.valueOf(n),   // the number of vertices
+                               "-c",                // only connected graphs
+                               "-D" + maxDegree,    // the maxdegree
+                               filename);
+        Process geng = gengProcess.start();
+        geng.waitFor();
+    }
+    
     public static List<IntGraph> readMultigTextFormatFile(String filename) throws IOException {
         List<IntGraph> graphs = new ArrayList<IntGraph>();
         BufferedReader reader = new BufferedReader(new FileReader(filename));
@@ -1,10 +1,14 @@
 package scheme3;
 
 import generate.handler.GeneratorHandler;
+import generate.handler.SynchronizedHandler;
 import generate.handler.SystemOutHandler;
 import graph.model.IntGraph;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import scheme3.lister.ChildLister;
 import scheme3.lister.ConnectedEdgeFilteringChildLister;
@@ -33,6 +37,13 @@ public class GraphGenerator {
     
     private int degMax;
     
+    /**
+     * Per-thread listers and signature handlers, for parallel extension.
+     */
+    private ThreadLocal<ChildLister> workerListers;
+    
+    private ThreadLocal<GraphSignatureHandler> workerSignatureHandlers;
+    
     public GraphGenerator() {
         this(new SystemOutHandler());
     }
@@ -55,28 +66,53 @@ public class GraphGenerator {
         this.byVertex = byVertex;
         this.doFilter = doFilter;
         this.degMax = degMax;
-        
+        this.signatureHandler = makeSignatureHandler();
+        this.childLister = makeChildLister();
+        this.workerListers = new ThreadLocal<ChildLister>() {
+            @Override
+            protected ChildLister initialValue() {
+                return makeChildLister();
+            }
+        };
+        this.workerSignatureHandlers = new ThreadLocal<GraphSignatureHandler>() {
+            @Override
+            protected GraphSignatureHandler initialValue() {
+                return makeSignatureHandler();
+            }
+        };
+    }
+    
+    private GraphSignatureHandler makeSignatureHandler() {
+        if (generateDisconnected) {
+            return new DisconnectedEdgeSignatureHandler();
+        } else if (byVertex) {
+            return new ConnectedVertexSignatureHandler();
+        } else {
+            return new ConnectedEdgeSignatureHandler();
+        }
+    }
+    
+    private ChildLister makeChildLister() {
+        ChildLister lister;
         if (generateDisconnected) {
-            signatureHandler = new DisconnectedEdgeSignatureHandler();
-            childLister = new DisconnectedEdgeFilteringChildLister();
+            lister = new DisconnectedEdgeFilteringChildLister();
         } else {
             if (byVertex) {
-                signatureHandler = new ConnectedVertexSignatureHandler();
                 if (doFilter) {
-                    childLister = new ConnectedVertexFilteringChildLister();
+                    lister = new ConnectedVertexFilteringChildLister();
                 } else {
-                    childLister = new ConnectedVertexSymmetryChildLister();
+                    lister = new ConnectedVertexSymmetryChildLister();
                 }
             } else {
-                signatureHandler = new ConnectedEdgeSignatureHandler();
                 if (doFilter) {
-                    childLister = new ConnectedEdgeFilteringChildLister();
+                    lister = new ConnectedEdgeFilteringChildLister();
                 } else {
-                    childLister = new ConnectedEdgeSymmetryChildLister();
+                    lister = new ConnectedEdgeSymmetryChildLister();
                 }
             }
         }
-        childLister.setMaxDegree(degMax);
+        lister.setMaxDegree(degMax);
+        return lister;
     }
     
     public boolean isGenerateDisconnected() {
@@ -96,17 +132,102 @@ public class GraphGenerator {
     }
 
     public void extend(IntGraph g, int n) {
-        List<IntGraph> children = childLister.list(g, n);
+        extend(g, n, childLister, signatureHandler, handler);
+    }
+    
+    /**
+     * Extend g to graphs on n vertices using the common fork-join pool.
+     * 
+     * @param g the graph to extend
+     * @param n the number of vertices to extend to
+     * @param splitDepth the depth of the augmentation tree below which subtrees run sequentially
+     */
+    public void extendInParallel(IntGraph g, int n, int splitDepth) {
+        extendInParallel(g, n, splitDepth, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Extend g to graphs on n vertices, forking a task for every canonical child down to 
+     * splitDepth; each subtree below that depth is searched depth-first on a single worker. 
+     * The handler is wrapped so that it only ever sees one graph at a time.
+     * 
+     * @param g the graph to extend
+     * @param n the number of vertices to extend to
+     * @param splitDepth the depth of the augmentation tree below which subtrees run sequentially
+     * @param pool the pool to run the tasks in
+     */
+    public void extendInParallel(IntGraph g, int n, int splitDepth, ForkJoinPool pool) {
+        GeneratorHandler safeHandler = new SynchronizedHandler(handler);
+        pool.invoke(new ExtendTask(g, n, 0, splitDepth, safeHandler));
+    }
+    
+    private void extend(IntGraph g, int n, 
+                        ChildLister lister, GraphSignatureHandler sigHandler, GeneratorHandler out) {
+        List<IntGraph> children = lister.list(g, n);
         
         for (IntGraph gPrime : children) {
-            if (signatureHandler.isCanonicalAugmentation(gPrime)) {
+            if (sigHandler.isCanonicalAugmentation(gPrime)) {
                 if (gPrime.getVertexCount() == n && (!generateDisconnected || g.isConnected())) {
-                    handler.handle(g, gPrime);
+                    out.handle(g, gPrime);
                 }
-                if (!byVertex || (byVertex && gPrime.vsize() < n)) {
-                    extend(gPrime, n);
+                if (canExtend(gPrime, n)) {
+                    extend(gPrime, n, lister, sigHandler, out);
                 }
             }
         }
     }
+    
+    private boolean canExtend(IntGraph gPrime, int n) {
+        return !byVertex || (byVertex && gPrime.vsize() < n);
+    }
+    
+    /**
+     * A subtree of the augmentation tree. The listers and signature handlers are not 
+     * thread-safe, so each worker thread gets its own pair.
+     */
+    private class ExtendTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final IntGraph g;
+        
+        private final int n;
+        
+        private final int depth;
+        
+        private final int splitDepth;
+        
+        private final GeneratorHandler out;
+        
+        public ExtendTask(IntGraph g, int n, int depth, int splitDepth, GeneratorHandler out) {
+            this.g = g;
+            this.n = n;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            ChildLister lister = workerListers.get();
+            GraphSignatureHandler sigHandler = workerSignatureHandlers.get();
+            if (depth >= splitDepth) {
+                extend(g, n, lister, sigHandler, out);
+                return;
+            }
+            List<ExtendTask> subtasks = new ArrayList<ExtendTask>();
+            for (IntGraph gPrime : lister.list(g, n)) {
+                if (sigHandler.isCanonicalAugmentation(gPrime)) {
+                    if (gPrime.getVertexCount() == n && (!generateDisconnected || g.isConnected())) {
+                        out.handle(g, gPrime);
+                    }
+                    if (canExtend(gPrime, n)) {
+                        subtasks.add(new ExtendTask(gPrime, n, depth + 1, splitDepth, out));
+                    }
+                }
+            }
+            invokeAll(subtasks);
+        }
+    }
+
 }
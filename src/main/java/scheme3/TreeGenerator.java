@@ -1,8 +1,8 @@
 package scheme3;
 
-import graph.model.Graph;
+import canon.Certificate;
 import graph.model.GraphBuilder;
-import graph.model.GraphSignature;
+import graph.model.IntEdge;
 import graph.model.IntGraph;
 import graph.model.VertexSignature;
 
@@ -27,26 +27,48 @@ public class TreeGenerator {
 			System.out.println(count + "\t" + g);
 			count++;
 		} else {
-			GraphSignature gSignature = new GraphSignature(g);
-			String gCanonicalLabel = gSignature.toCanonicalString();
+			Certificate gCertificate = Certificate.of(g);
 			Set<IntGraph> s = new HashSet<IntGraph>();
 			for (int start = 0; start < l; start++) {
 				s.add(g.makeNew(start, l));
 			}
-			Map<String, GraphSignature> dupMap = removeDuplicates(s);
-			for (String gPrimeCanonLabel : dupMap.keySet()) {
-			    IntGraph canonGPrime = reconstruct(gPrimeCanonLabel);
-			    IntGraph gPrimeMinusE = canonGPrime.removeLastEdge();
-			    GraphSignature gPrimeMinusESignature = new GraphSignature(gPrimeMinusE);
-				if (gPrimeMinusESignature.toCanonicalString().equals(gCanonicalLabel)) {
-					GraphSignature gPrimeSignature = dupMap.get(gPrimeCanonLabel);
-					IntGraph gPrime = (IntGraph)gPrimeSignature.getGraph();
-					orderlyGenerationMcKay(gPrime, n);
+			Map<Certificate, IntGraph> dupMap = removeDuplicates(s);
+			for (Certificate gPrimeCertificate : dupMap.keySet()) {
+			    IntGraph canonGPrime = gPrimeCertificate.toGraph();
+			    IntGraph gPrimeMinusV = removeLastLeaf(canonGPrime);
+				if (Certificate.of(gPrimeMinusV).equals(gCertificate)) {
+					orderlyGenerationMcKay(dupMap.get(gPrimeCertificate), n);
 				}
 			}
 		}
 	}
 	
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * Remove the leaf with the highest label from a canonically labelled tree, 
+	 * moving the labels above it down by one.
+	 * 
+	 * @param canonicalTree a tree in canonical form
+	 * @return the tree without that leaf
+	 */
+	private IntGraph removeLastLeaf(IntGraph canonicalTree) {
+		int leaf = canonicalTree.getVertexCount() - 1;
+		while (canonicalTree.degree(leaf) != 1) {
+			leaf--;
+		}
+		IntGraph h = new IntGraph();
+		for (IntEdge e : canonicalTree.edges) {
+			if (e.a == leaf || e.b == leaf) continue;
+			int a = (e.a > leaf)? e.a - 1 : e.a;
+			int b = (e.b > leaf)? e.b - 1 : e.b;
+			h.makeEdge(a, b);
+		}
+		return h;
+	}
+	
 	public IntGraph reconstruct(String canonicalLabel) {
 		ColoredTree tree = VertexSignature.parse(canonicalLabel);
 		GraphBuilder builder = new GraphBuilder();
@@ -54,15 +76,14 @@ public class TreeGenerator {
 		return builder.getProduct();
 	}
 	
-	public Map<String, GraphSignature> removeDuplicates(Set<IntGraph> s) {
-		Map<String, GraphSignature> canonicalGraphLabels = new HashMap<String, GraphSignature>();
-		for (Graph g : s) {
-			GraphSignature signature = new GraphSignature(g);
-			String canonicalLabel = signature.toCanonicalString();
-			if (canonicalGraphLabels.containsKey(canonicalLabel)) {
+	public Map<Certificate, IntGraph> removeDuplicates(Set<IntGraph> s) {
+		Map<Certificate, IntGraph> canonicalGraphLabels = new HashMap<Certificate, IntGraph>();
+		for (IntGraph g : s) {
+			Certificate certificate = Certificate.of(g);
+			if (canonicalGraphLabels.containsKey(certificate)) {
 				continue;
 			} else {
-				canonicalGraphLabels.put(canonicalLabel, signature);
+				canonicalGraphLabels.put(certificate, g);
 			}
 		}
 		return canonicalGraphLabels;
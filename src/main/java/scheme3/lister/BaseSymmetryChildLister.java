@@ -1,19 +1,18 @@
 package scheme3.lister;
 
-import graph.group.GraphDiscretePartitionRefiner;
+import canon.CanonicalLabellers;
+import canon.StabiliserChain;
 import graph.model.IntGraph;
 import group.PermutationGroup;
 
 public abstract class BaseSymmetryChildLister {
     
-    protected GraphDiscretePartitionRefiner refiner;
-    
-    public BaseSymmetryChildLister() {
-        refiner = new GraphDiscretePartitionRefiner();
+    protected PermutationGroup getAut(IntGraph g) {
+        return CanonicalLabellers.get(g.getVertexCount()).label(g).getAutomorphismGroup();
     }
     
-    protected PermutationGroup getAut(IntGraph g) {
-        return refiner.getAutomorphismGroup(g);
+    protected StabiliserChain getChain(IntGraph g) {
+        return CanonicalLabellers.get(g.getVertexCount()).label(g).getStabiliserChain();
     }
 
 }
@@ -1,6 +1,6 @@
 package scheme3.lister;
 
-import graph.model.GraphSignature;
+import canon.Certificate;
 import graph.model.IntGraph;
 
 import java.util.ArrayList;
@@ -20,7 +20,7 @@ public class ConnectedEdgeFilteringChildLister implements ChildLister {
     
     public List<IntGraph> list(IntGraph g, int n) {
         int l = g.getVertexCount();
-        Map<String, IntGraph> children = new HashMap<String, IntGraph>();
+        Map<Certificate, IntGraph> children = new HashMap<Certificate, IntGraph>();
         int max = Math.min(l, n - 1);
         for (int start = 0; start < l; start++) {
             int dS = (degMax < 1)? -1 : g.degree(start);
@@ -33,12 +33,11 @@ public class ConnectedEdgeFilteringChildLister implements ChildLister {
                         continue;
                     } else {
                         IntGraph h = g.makeNew(start, end);
-                        GraphSignature signature = new GraphSignature(h);
-                        String canonicalLabel = getCanonicalLabel(signature);
-                        if (children.containsKey(canonicalLabel)) {
+                        Certificate certificate = Certificate.of(h);
+                        if (children.containsKey(certificate)) {
                             continue;
                         } else {
-                            children.put(canonicalLabel, h);
+                            children.put(certificate, h);
                         }
                     }
                 }
@@ -47,10 +46,6 @@ public class ConnectedEdgeFilteringChildLister implements ChildLister {
         return new ArrayList<IntGraph>(children.values());
     }
     
-    public String getCanonicalLabel(GraphSignature gSig) {
-        return gSig.toCanonicalString();
-    }
-
     @Override
     public void setMaxDegree(int degMax) {
         this.degMax = degMax;
@@ -1,8 +1,7 @@
 package scheme3.lister;
 
+import canon.StabiliserChain;
 import graph.model.IntGraph;
-import group.Permutation;
-import group.PermutationGroup;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,7 +20,8 @@ public class ConnectedEdgeSymmetryChildLister extends BaseSymmetryChildLister im
         int l = g.getVertexCount();
         List<IntGraph> children = new ArrayList<IntGraph>();
         int max = Math.min(l, n - 1);
-        PermutationGroup autG = getAut(g);
+        StabiliserChain chain = getChain(g);
+        int[] maximalPairs = getMaximalPairs(chain, l);
         for (int start = 0; start < l; start++) {
             int dS = (degMax < 1)? -1 : g.degree(start);
             if (dS >= degMax) {
@@ -32,9 +32,9 @@ public class ConnectedEdgeSymmetryChildLister extends BaseSymmetryChildLister im
                     if (g.isConnected(start, end) || (dE > 1 && dE >= degMax)) {
                         continue;
                     } else {
-                        if (end < max && isMinimal(start, end, autG)) {
+                        if (end < max && maximalPairs[start * l + end] == start * l + end) {
                             children.add(g.makeNew(start, end));
-                        } else if (end == max && isMinimal(start, autG)) {
+                        } else if (end == max && chain.isMinimalInOrbit(start)) {
                             children.add(g.makeNew(start, end));
                         }
                     }
@@ -44,26 +44,30 @@ public class ConnectedEdgeSymmetryChildLister extends BaseSymmetryChildLister im
         return children;
     }
     
-    private boolean isMinimal(int start, PermutationGroup autG) {
-        for (Permutation p : autG.all()) {
-            if (p.get(start) < start) {
-                return false;
+    /**
+     * For each pair orbit, find the member whose "start:end" string is greatest.
+     * 
+     * @return for each pair code start * l + end, the code of that member of its orbit
+     */
+    private int[] getMaximalPairs(StabiliserChain chain, int l) {
+        int[] pairOrbits = chain.getPairOrbits();
+        int[] maximal = new int[pairOrbits.length];
+        String[] maximalStrings = new String[pairOrbits.length];
+        for (int code = 0; code < pairOrbits.length; code++) {
+            int orbit = pairOrbits[code];
+            if (orbit == -1) continue;
+            String pair = (code / l) + ":" + (code % l);
+            if (maximalStrings[orbit] == null || pair.compareTo(maximalStrings[orbit]) > 0) {
+                maximalStrings[orbit] = pair;
+                maximal[orbit] = code;
             }
         }
-        return true;
-    }
-
-    private boolean isMinimal(int start, int end, PermutationGroup autG) {
-        String orig = start + ":" + end;
-        for (Permutation p : autG.all()) {
-            int pStart = p.get(start);
-            int pEnd   = p.get(end);
-            String perm = (pStart < pEnd)? pStart + ":" + pEnd : pEnd + ":" + pStart;
-            if (perm.compareTo(orig) > 0) {
-                return false;
+        for (int code = 0; code < pairOrbits.length; code++) {
+            if (pairOrbits[code] != -1) {
+                maximal[code] = maximal[pairOrbits[code]];
             }
         }
-        return true;
+        return maximal;
     }
 
     @Override
@@ -0,0 +1,492 @@
+package util;
+
+import canon.Certificate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compares two graph files up to isomorphism in bounded memory, by sorting and merging
+ * their certificates on disk, as an external sort would.
+ *
+ * Each file is read a run at a time; the graphs of a run are labelled in parallel, sorted
+ * by certificate, and written to a temporary file as binary certificates, each with the
+ * number of its graph in the file. Runs are merged a few at a time until each file has
+ * few enough to merge at once, and then the runs of both files are merged together, so
+ * all the graphs with the same certificate are seen in one group. A group with graphs from
+ * only one file is reported as only in that file, and a group with more than one graph
+ * from the same file as a duplicate in that file.
+ *
+ * Graphs are numbered from zero, in file order, skipping blank lines.
+ */
+public class ExternalGraphFileDiff {
+
+    public interface Listener {
+
+        public void onlyInA(Certificate certificate, long graphA);
+
+        public void onlyInB(Certificate certificate, long graphB);
+
+        public void duplicateInA(Certificate certificate, long[] graphsA);
+
+        public void duplicateInB(Certificate certificate, long[] graphsB);
+
+    }
+
+    /**
+     * Prints each result as a line, with the graph numbers and the canonical form.
+     */
+    public static class PrintingListener implements Listener {
+
+        @Override
+        public void onlyInA(Certificate certificate, long graphA) {
+            System.out.println("A\t" + graphA + "\t" + certificate.toGraph());
+        }
+
+        @Override
+        public void onlyInB(Certificate certificate, long graphB) {
+            System.out.println("B\t" + graphB + "\t" + certificate.toGraph());
+        }
+
+        @Override
+        public void duplicateInA(Certificate certificate, long[] graphsA) {
+            System.out.println("A dup\t" + Arrays.toString(graphsA) + "\t" + certificate.toGraph());
+        }
+
+        @Override
+        public void duplicateInB(Certificate certificate, long[] graphsB) {
+            System.out.println("B dup\t" + Arrays.toString(graphsB) + "\t" + certificate.toGraph());
+        }
+
+    }
+
+    public static final int DEFAULT_RUN_SIZE = 100000;
+
+    /**
+     * The largest number of runs that are opened together.
+     */
+    public static final int DEFAULT_FAN_IN = 64;
+
+    private static final Comparator<Record> RECORD_ORDER = new Comparator<Record>() {
+
+        @Override
+        public int compare(Record a, Record b) {
+            int c = a.certificate.compareTo(b.certificate);
+            if (c != 0) {
+                return c;
+            }
+            if (a.source != b.source) {
+                return a.source - b.source;
+            }
+            return Long.compare(a.graph, b.graph);
+        }
+
+    };
+
+    private final File tempDirectory;
+
+    private final int runSize;
+
+    private final int fanIn;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * True when there is no second file, so that nothing can be only in the first.
+     */
+    private boolean duplicatesOnly;
+
+    private long onlyInACount;
+
+    private long onlyInBCount;
+
+    private long duplicateInACount;
+
+    private long duplicateInBCount;
+
+    public ExternalGraphFileDiff() {
+        this(new File(System.getProperty("java.io.tmpdir")),
+             DEFAULT_RUN_SIZE, DEFAULT_FAN_IN, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param tempDirectory the directory for the run files
+     * @param runSize the number of graphs sorted in memory at a time
+     * @param fanIn the number of runs merged at a time, at least two
+     * @param pool the pool to label the graphs of a run in
+     */
+    public ExternalGraphFileDiff(File tempDirectory, int runSize, int fanIn, ForkJoinPool pool) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2");
+        }
+        this.tempDirectory = tempDirectory;
+        this.runSize = runSize;
+        this.fanIn = fanIn;
+        this.pool = pool;
+    }
+
+    /**
+     * Compare the graphs of two files.
+     *
+     * @param pathA the first file
+     * @param pathB the second file, or null to only look for duplicates in the first
+     * @param listener told of each certificate only in one file or repeated in one file
+     */
+    public void diff(String pathA, String pathB, Listener listener) throws IOException {
+        duplicatesOnly = (pathB == null);
+        onlyInACount = 0;
+        onlyInBCount = 0;
+        duplicateInACount = 0;
+        duplicateInBCount = 0;
+        List<File> runs = new ArrayList<File>();
+        try {
+            List<File> runsA = reduce(makeRuns(pathA, runs), runs);
+            List<File> runsB = (pathB == null)?
+                    new ArrayList<File>() : reduce(makeRuns(pathB, runs), runs);
+            mergeAll(runsA, runsB, listener);
+        } finally {
+            for (File run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Find the graphs that appear more than once in a file. Only duplicates are reported ;
+     * no graph is reported as only in the file.
+     */
+    public void checkForDuplicates(String path, Listener listener) throws IOException {
+        diff(path, null, listener);
+    }
+
+    public long getOnlyInACount() {
+        return onlyInACount;
+    }
+
+    public long getOnlyInBCount() {
+        return onlyInBCount;
+    }
+
+    /**
+     * @return the number of certificates with more than one graph in the first file
+     */
+    public long getDuplicateInACount() {
+        return duplicateInACount;
+    }
+
+    public long getDuplicateInBCount() {
+        return duplicateInBCount;
+    }
+
+    /**
+     * Read a file a run at a time, label and sort each run, and write it out.
+     */
+    private List<File> makeRuns(String path, List<File> allRuns) throws IOException {
+        List<File> runs = new ArrayList<File>();
+        GraphLineReader reader = new GraphLineReader(new File(path));
+        String[] lines = new String[runSize];
+        Record[] records = new Record[runSize];
+        long graph = 0;
+        try {
+            while (true) {
+                int count = 0;
+                String line;
+                while (count < runSize && (line = reader.next()) != null) {
+                    lines[count] = line;
+                    count++;
+                }
+                if (count == 0) {
+                    break;
+                }
+                pool.invoke(new LabelTask(lines, records, graph, 0, count));
+                graph += count;
+                Arrays.sort(records, 0, count, RECORD_ORDER);
+                File run = newRunFile(allRuns);
+                RunWriter writer = new RunWriter(run);
+                for (int i = 0; i < count; i++) {
+                    writer.write(records[i]);
+                }
+                writer.close();
+                runs.add(run);
+                if (count < runSize) {
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return runs;
+    }
+
+    /**
+     * Merge runs a fan-in at a time until there are no more than a fan-in of them.
+     */
+    private List<File> reduce(List<File> runs, List<File> allRuns) throws IOException {
+        while (runs.size() > fanIn) {
+            List<File> merged = new ArrayList<File>();
+            for (int start = 0; start < runs.size(); start += fanIn) {
+                List<File> group = runs.subList(start, Math.min(start + fanIn, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                File run = newRunFile(allRuns);
+                RunWriter writer = new RunWriter(run);
+                PriorityQueue<RunReader> queue = open(group, 0);
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    writer.write(reader.current);
+                    advance(reader, queue);
+                }
+                writer.close();
+                for (File used : group) {
+                    used.delete();
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        return runs;
+    }
+
+    private void mergeAll(List<File> runsA, List<File> runsB, Listener listener) throws IOException {
+        PriorityQueue<RunReader> queue = open(runsA, 0);
+        for (RunReader reader : open(runsB, 1)) {
+            queue.add(reader);
+        }
+        GraphList graphsA = new GraphList();
+        GraphList graphsB = new GraphList();
+        while (!queue.isEmpty()) {
+            Certificate certificate = queue.peek().current.certificate;
+            graphsA.clear();
+            graphsB.clear();
+            while (!queue.isEmpty() && queue.peek().current.certificate.equals(certificate)) {
+                RunReader reader = queue.poll();
+                if (reader.current.source == 0) {
+                    graphsA.add(reader.current.graph);
+                } else {
+                    graphsB.add(reader.current.graph);
+                }
+                advance(reader, queue);
+            }
+            report(certificate, graphsA, graphsB, listener);
+        }
+    }
+
+    private void report(Certificate certificate, GraphList graphsA, GraphList graphsB, Listener listener) {
+        if (!duplicatesOnly && graphsB.size == 0 && graphsA.size > 0) {
+            onlyInACount++;
+            listener.onlyInA(certificate, graphsA.graphs[0]);
+        }
+        if (graphsA.size == 0 && graphsB.size > 0) {
+            onlyInBCount++;
+            listener.onlyInB(certificate, graphsB.graphs[0]);
+        }
+        if (graphsA.size > 1) {
+            duplicateInACount++;
+            listener.duplicateInA(certificate, graphsA.toArray());
+        }
+        if (graphsB.size > 1) {
+            duplicateInBCount++;
+            listener.duplicateInB(certificate, graphsB.toArray());
+        }
+    }
+
+    private PriorityQueue<RunReader> open(List<File> runs, int source) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(
+                Math.max(1, runs.size()), new Comparator<RunReader>() {
+
+            @Override
+            public int compare(RunReader a, RunReader b) {
+                return RECORD_ORDER.compare(a.current, b.current);
+            }
+
+        });
+        for (File run : runs) {
+            RunReader reader = new RunReader(run, source);
+            advance(reader, queue);
+        }
+        return queue;
+    }
+
+    /**
+     * Move a reader to its next record, and put it back in the queue unless it has run out.
+     */
+    private void advance(RunReader reader, PriorityQueue<RunReader> queue) throws IOException {
+        if (reader.next()) {
+            queue.add(reader);
+        } else {
+            reader.close();
+        }
+    }
+
+    private File newRunFile(List<File> allRuns) throws IOException {
+        File run = File.createTempFile("graphs", ".run", tempDirectory);
+        run.deleteOnExit();
+        allRuns.add(run);
+        return run;
+    }
+
+    private static class Record {
+
+        public final Certificate certificate;
+
+        public final int source;
+
+        public final long graph;
+
+        public Record(Certificate certificate, int source, long graph) {
+            this.certificate = certificate;
+            this.source = source;
+            this.graph = graph;
+        }
+
+    }
+
+    /**
+     * A growable list of graph numbers, reused for each group.
+     */
+    private static class GraphList {
+
+        private long[] graphs = new long[4];
+
+        private int size;
+
+        public void add(long graph) {
+            if (size == graphs.length) {
+                graphs = Arrays.copyOf(graphs, 2 * size);
+            }
+            graphs[size] = graph;
+            size++;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(graphs, size);
+        }
+
+    }
+
+    /**
+     * Writes records as the vertex count, the certificate words, and the graph number.
+     */
+    private static class RunWriter {
+
+        private final DataOutputStream out;
+
+        public RunWriter(File file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        public void write(Record record) throws IOException {
+            out.writeInt(record.certificate.getVertexCount());
+            for (long word : record.certificate.getWords()) {
+                out.writeLong(word);
+            }
+            out.writeLong(record.graph);
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+
+    }
+
+    private static class RunReader {
+
+        private final DataInputStream in;
+
+        private final int source;
+
+        private Record current;
+
+        public RunReader(File file, int source) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            this.source = source;
+        }
+
+        /**
+         * @return false at the end of the run
+         */
+        public boolean next() throws IOException {
+            int vertexCount;
+            try {
+                vertexCount = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            long[] words = new long[Certificate.wordCount(vertexCount)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            current = new Record(new Certificate(vertexCount, words), source, in.readLong());
+            return true;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+    /**
+     * Label the graphs of part of a run, splitting it in half until it is small.
+     */
+    private static class LabelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 256;
+
+        private final String[] lines;
+
+        private final Record[] records;
+
+        private final long firstGraph;
+
+        private final int start;
+
+        private final int end;
+
+        public LabelTask(String[] lines, Record[] records, long firstGraph, int start, int end) {
+            this.lines = lines;
+            this.records = records;
+            this.firstGraph = firstGraph;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    Certificate certificate = Certificate.of(GraphLineReader.parse(lines[i]));
+                    records[i] = new Record(certificate, 0, firstGraph + i);
+                }
+            } else {
+                int middle = (start + end) / 2;
+                invokeAll(new LabelTask(lines, records, firstGraph, start, middle),
+                          new LabelTask(lines, records, firstGraph, middle, end));
+            }
+        }
+
+    }
+
+}
@@ -3,7 +3,7 @@ package util;
 import graph.model.GraphFileReader;
 import graph.model.IntGraph;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.List;
 
 public class GraphDuplicateChecker {
@@ -28,19 +28,22 @@ public class GraphDuplicateChecker {
                 // don't care...
             }
         };
-        for (int i = 0; i < graphs.size() - 1; i++) {
-            IntGraph graph = graphs.get(i);
+        // compare each graph with all those before it, not just the one before
+        for (IntGraph graph : graphs) {
+            differ.compare(graph, callback);
             differ.add(graph);
-            int j = i + 1;
-            IntGraph otherGraph = graphs.get(j);
-            differ.compare(otherGraph, callback);
         }
     }
 	
-	public static void main(String[] args) throws FileNotFoundException {
+	public static void main(String[] args) throws IOException {
 	    GraphDifference differ;
 	    if (args.length > 1) {
-	        if (args[1].equals("SIG")) {
+	        if (args[1].equals("EXT")) {
+	            // sort the certificates on disk, for files too big to hold
+	            ExternalGraphFileDiff external = new ExternalGraphFileDiff();
+	            external.checkForDuplicates(args[0], new ExternalGraphFileDiff.PrintingListener());
+	            return;
+	        } else if (args[1].equals("SIG")) {
 	            differ = new SignatureGraphDifference();
 	        } else {
 	            differ = new RefinerGraphDifference();
@@ -15,7 +15,7 @@ public class GraphFileDiff {
     }
     
 	public static List<IntGraph> diff(String pathA, String pathB, GraphDifference differ) throws IOException {
-		List<IntGraph> difference = new ArrayList<IntGraph>();
+		final List<IntGraph> difference = new ArrayList<IntGraph>();
 		GraphFileReader readerA = new GraphFileReader(pathA);
 		for (IntGraph graphA : readerA) {
 			differ.add(graphA);
@@ -31,7 +31,7 @@ public class GraphFileDiff {
             
             @Override
             public void different(IntGraph graphA, IntGraph graphB) {
-                System.out.println(graphB);
+                difference.add(graphB);
             }
         };
 		GraphFileReader readerB = new GraphFileReader(pathB);
@@ -47,7 +47,12 @@ public class GraphFileDiff {
 	        try {
 	            GraphDifference differ;
 	            if (args.length > 2) {
-	                if (args[2].equals("SIG")) {
+	                if (args[2].equals("EXT")) {
+	                    // sort the certificates on disk, for files too big to hold
+	                    ExternalGraphFileDiff external = new ExternalGraphFileDiff();
+	                    external.diff(args[0], args[1], new ExternalGraphFileDiff.PrintingListener());
+	                    return;
+	                } else if (args[2].equals("SIG")) {
 	                    differ = new SignatureGraphDifference();
 	                } else {
 	                    differ = new RefinerGraphDifference();
@@ -0,0 +1,353 @@
+package util;
+
+import canon.CanonicalLabellers;
+import canon.Certificate;
+import graph.model.IntGraph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sidecar index for a graph file, with one graph per line, so that a graph can be found
+ * by its canonical certificate or by its degree sequence without reading the whole file.
+ *
+ * The index is a file of longs next to the graph file : a header, then two open-addressed
+ * hash tables with a slot of (hash, line offset) for each graph, one keyed by certificate
+ * and one by sorted degree sequence. It is built by streaming the graph file twice - once
+ * to count the lines, and once to fill the tables - and is memory-mapped to look up, so a
+ * lookup only reads the lines whose hashes match, and checks each one. The header records
+ * the length and modification time of the graph file, a hash of its first and last blocks
+ * - for an edit that keeps the length within the granularity of the modification time -
+ * and the canonical labelling engine that made the certificates, and the index is built
+ * again when any of them has changed.
+ *
+ * The file is mapped in segments of 2^27 longs, as the slots of a
+ * {@link canon.CertificateTable} are, so an index is not limited to the 2^31 longs of
+ * a single buffer.
+ */
+public class GraphFileIndex implements Closeable {
+
+    public static final String SUFFIX = ".idx";
+
+    private static final long MAGIC = 0x4746494458L;    // "GFIDX"
+
+    private static final long VERSION = 3;
+
+    private static final int HEADER_LONGS = 8;
+
+    /**
+     * The number of bytes at each end of the graph file that are hashed.
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    private final RandomAccessFile source;
+
+    private final Longs index;
+
+    private final long graphCount;
+
+    private final long capacity;
+
+    private final long mask;
+
+    private GraphFileIndex(String filename, Longs index) throws IOException {
+        this.source = new RandomAccessFile(filename, "r");
+        this.index = index;
+        this.graphCount = index.get(6);
+        this.capacity = index.get(7);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Open the index of a graph file, building it first if it is missing or out of date.
+     */
+    public static GraphFileIndex open(String filename) throws IOException {
+        if (!isCurrent(filename)) {
+            build(filename);
+        }
+        File indexFile = getIndexFile(filename);
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+        Longs index;
+        try {
+            index = new Longs(raf.getChannel(), FileChannel.MapMode.READ_ONLY, raf.length() / 8);
+        } finally {
+            raf.close();
+        }
+        return new GraphFileIndex(filename, index);
+    }
+
+    public static File getIndexFile(String filename) {
+        return new File(filename + SUFFIX);
+    }
+
+    /**
+     * @return true if the index exists and was built from the graph file as it is now,
+     * with the current canonical labelling engine
+     */
+    public static boolean isCurrent(String filename) throws IOException {
+        File graphFile = new File(filename);
+        File indexFile = getIndexFile(filename);
+        if (!indexFile.exists() || indexFile.length() < HEADER_LONGS * 8) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+        try {
+            return raf.readLong() == MAGIC
+                && raf.readLong() == VERSION
+                && raf.readLong() == graphFile.length()
+                && raf.readLong() == graphFile.lastModified()
+                && raf.readLong() == blockHash(graphFile)
+                && raf.readLong() == CanonicalLabellers.getEngine().ordinal();
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Build the index of a graph file. It is written to a temporary file, forced to disk,
+     * and then renamed, so that an index is never seen half-written - even after a crash.
+     */
+    public static void build(String filename) throws IOException {
+        File graphFile = new File(filename);
+        long length = graphFile.length();
+        long modified = graphFile.lastModified();
+        long blockHash = blockHash(graphFile);
+
+        GraphLineReader lines = new GraphLineReader(graphFile);
+        long graphCount = 0;
+        while (lines.next() != null) {
+            graphCount++;
+        }
+        lines.close();
+        long capacity = 2;
+        while (capacity < 2 * graphCount) {
+            capacity *= 2;
+        }
+
+        File indexFile = getIndexFile(filename);
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw");
+        try {
+            long longs = HEADER_LONGS + 4 * capacity;
+            raf.setLength(longs * 8);
+            Longs index = new Longs(raf.getChannel(), FileChannel.MapMode.READ_WRITE, longs);
+            index.set(0, MAGIC);
+            index.set(1, VERSION);
+            index.set(2, length);
+            index.set(3, modified);
+            index.set(4, blockHash);
+            index.set(5, CanonicalLabellers.getEngine().ordinal());
+            index.set(6, graphCount);
+            index.set(7, capacity);
+            lines = new GraphLineReader(graphFile);
+            String line;
+            while ((line = lines.next()) != null) {
+                IntGraph g = GraphLineReader.parse(line);
+                long offset = lines.getLineOffset();
+                insert(index, HEADER_LONGS, capacity, certificateHash(g), offset);
+                insert(index, HEADER_LONGS + 2 * capacity, capacity, degreeSequenceHash(g), offset);
+            }
+            lines.close();
+            index.force();
+        } finally {
+            raf.close();
+        }
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Could not replace " + indexFile);
+        }
+        if (!tmpFile.renameTo(indexFile)) {
+            throw new IOException("Could not rename " + tmpFile + " to " + indexFile);
+        }
+    }
+
+    public long getGraphCount() {
+        return graphCount;
+    }
+
+    /**
+     * @return the first graph in the file isomorphic to g, or null if there is none
+     */
+    public IntGraph get(IntGraph g) throws IOException {
+        Certificate certificate = Certificate.of(g);
+        long hash = nonZero(certificate.longHash());
+        for (long offset : find(HEADER_LONGS, hash)) {
+            IntGraph other = read(offset);
+            if (certificate.equals(Certificate.of(other))) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param degreeSequence a degree sequence in non-increasing order
+     * @return the graphs with that degree sequence, in file order
+     */
+    public List<IntGraph> get(int[] degreeSequence) throws IOException {
+        List<IntGraph> hits = new ArrayList<IntGraph>();
+        long hash = degreeSequenceHash(degreeSequence);
+        for (long offset : find(HEADER_LONGS + 2 * capacity, hash)) {
+            IntGraph other = read(offset);
+            if (Arrays.equals(degreeSequence, other.degreeSequence(true))) {
+                hits.add(other);
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * @return the offsets of the lines in a table with this hash, in file order
+     */
+    private long[] find(long tableStart, long hash) {
+        long[] offsets = new long[4];
+        int count = 0;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = index.get(tableStart + 2 * slot);
+            if (slotHash == 0) {
+                break;
+            }
+            if (slotHash == hash) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * count);
+                }
+                offsets[count] = index.get(tableStart + 2 * slot + 1);
+                count++;
+            }
+        }
+        offsets = Arrays.copyOf(offsets, count);
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private IntGraph read(long offset) throws IOException {
+        source.seek(offset);
+        return GraphLineReader.parse(source.readLine());
+    }
+
+    private static void insert(Longs index, long tableStart, long capacity, long hash, long offset) {
+        long mask = capacity - 1;
+        long slot = hash & mask;
+        while (index.get(tableStart + 2 * slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.set(tableStart + 2 * slot, hash);
+        index.set(tableStart + 2 * slot + 1, offset);
+    }
+
+    /**
+     * @return a hash of the first and last blocks of a file
+     */
+    private static long blockHash(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long length = raf.length();
+            byte[] block = new byte[(int) Math.min(BLOCK_SIZE, length)];
+            raf.readFully(block);
+            long h = mix(length);
+            h = hashBytes(h, block);
+            raf.seek(length - block.length);
+            raf.readFully(block);
+            return hashBytes(h, block);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static long hashBytes(long h, byte[] bytes) {
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long certificateHash(IntGraph g) {
+        return nonZero(Certificate.of(g).longHash());
+    }
+
+    private static long degreeSequenceHash(IntGraph g) {
+        return degreeSequenceHash(g.degreeSequence(true));
+    }
+
+    private static long degreeSequenceHash(int[] degreeSequence) {
+        long h = degreeSequence.length * 0x9E3779B97F4A7C15L;
+        for (int d : degreeSequence) {
+            h = mix(h ^ d);
+        }
+        return nonZero(mix(h));
+    }
+
+    /**
+     * A hash of zero marks an empty slot, so is stored as one.
+     */
+    private static long nonZero(long hash) {
+        return (hash == 0)? 1 : hash;
+    }
+
+    /**
+     * The finalizer from MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The longs of an index file, mapped as a list of segments with long indices.
+     */
+    private static class Longs {
+
+        private static final int SEGMENT_SHIFT = 27;
+
+        private final List<MappedByteBuffer> buffers;
+
+        private final List<LongBuffer> segments;
+
+        Longs(FileChannel channel, FileChannel.MapMode mode, long longs) throws IOException {
+            this.buffers = new ArrayList<MappedByteBuffer>();
+            this.segments = new ArrayList<LongBuffer>();
+            long segmentLongs = 1L << SEGMENT_SHIFT;
+            for (long start = 0; start < longs; start += segmentLongs) {
+                long length = Math.min(segmentLongs, longs - start);
+                MappedByteBuffer buffer = channel.map(mode, start * 8, length * 8);
+                buffers.add(buffer);
+                segments.add(buffer.asLongBuffer());
+            }
+        }
+
+        /**
+         * Write any changes to the segments out to the file.
+         */
+        void force() {
+            for (MappedByteBuffer buffer : buffers) {
+                buffer.force();
+            }
+        }
+
+        long get(long index) {
+            return segments.get((int) (index >>> SEGMENT_SHIFT)).get((int) (index & ((1 << SEGMENT_SHIFT) - 1)));
+        }
+
+        void set(long index, long value) {
+            segments.get((int) (index >>> SEGMENT_SHIFT)).put((int) (index & ((1 << SEGMENT_SHIFT) - 1)), value);
+        }
+
+    }
+
+}
@@ -26,7 +26,7 @@ public class GraphFileSearch {
         for (IntGraph other : fileReader) {
 			refiner = new GraphDiscretePartitionRefiner();
 			refiner.getAutomorphismGroup(other);
-			if (refiner.getCertificate() == cert) {
+			if (refiner.getCertificate().equals(cert)) {
 			    fileReader.close();
 				return other;
 			}
@@ -35,6 +35,17 @@ public class GraphFileSearch {
 		return null;
 	}
 	
+	/**
+	 * Look up a graph in the index of a file, rather than reading the whole file.
+	 */
+	public static IntGraph get(IntGraph g, GraphFileIndex index) throws IOException {
+	    return index.get(g);
+	}
+	
+	public static List<Graph> get(int[] degreeSequence, GraphFileIndex index) throws IOException {
+	    return new ArrayList<Graph>(index.get(degreeSequence));
+	}
+	
 	public static List<Graph> get(int[] degreeSequence, String filename) throws IOException {
 	    List<Graph> hits = new ArrayList<Graph>();
         GraphFileReader fileReader = new GraphFileReader(filename);
@@ -63,12 +74,13 @@ public class GraphFileSearch {
 	
 	public static void main(String[] args) {
 	    try {
+	        GraphFileIndex index = GraphFileIndex.open(args[0]);
 	        if (args[1].equals("-g")) {
 	            IntGraph g = new IntGraph(args[2]);
-	            System.out.println(GraphFileSearch.get(g, args[0]));
+	            System.out.println(GraphFileSearch.get(g, index));
 	        } else if (args[1].equals("-d")) {
 	            int[] degreeSequence = GraphFileSearch.parse(args[2]);
-	            List<Graph> hits = GraphFileSearch.get(degreeSequence, args[0]);
+	            List<Graph> hits = GraphFileSearch.get(degreeSequence, index);
 	            if (hits.size() == 0) {
 	                System.out.println("None found");
 	            } else {
@@ -77,6 +89,7 @@ public class GraphFileSearch {
 	                }
 	            }
 	        }
+	        index.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,76 @@
+package util;
+
+import graph.model.IntGraph;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the non-empty lines of a graph file, with one graph per line, keeping the byte
+ * offset of each line so that it can be read again later.
+ */
+class GraphLineReader {
+
+    private final InputStream in;
+
+    private final ByteArrayOutputStream buffer;
+
+    private long position;
+
+    private long lineOffset;
+
+    public GraphLineReader(File file) throws IOException {
+        this.in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        this.buffer = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Read a graph from a line like "[0:1, 0:2, 1:2]".
+     */
+    public static IntGraph parse(String line) {
+        return new IntGraph(line.replaceAll("[\\[\\]\\s]", ""));
+    }
+
+    /**
+     * @return the next non-empty line, or null at the end of the file
+     */
+    public String next() throws IOException {
+        while (true) {
+            buffer.reset();
+            lineOffset = position;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    buffer.write(b);
+                }
+            }
+            String line = buffer.toString("US-ASCII");
+            if (line.trim().length() > 0) {
+                return line;
+            }
+            if (b == -1) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return the byte offset of the line last returned by next
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -1,6 +1,6 @@
 package util;
 
-import graph.model.GraphSignature;
+import canon.Certificate;
 import graph.model.IntGraph;
 
 import java.util.HashMap;
@@ -8,24 +8,22 @@ import java.util.Map;
 
 public class SignatureGraphDifference implements GraphDifference {
     
-    private Map<String, IntGraph> signatureMap;
+    private Map<Certificate, IntGraph> signatureMap;
     
     public SignatureGraphDifference() {
-        signatureMap = new HashMap<String, IntGraph>();
+        signatureMap = new HashMap<Certificate, IntGraph>();
     }
 
     @Override
     public void add(IntGraph graph) {
-        GraphSignature sig = new GraphSignature(graph);
-        signatureMap.put(sig.toCanonicalString(), graph);
+        signatureMap.put(Certificate.of(graph), graph);
     }
 
     @Override
     public void compare(IntGraph otherGraph, Callback callback) {
-        GraphSignature sig = new GraphSignature(otherGraph);
-        String signatureString = sig.toCanonicalString();
-        if (signatureMap.containsKey(signatureString)) {
-            IntGraph graph = signatureMap.get(signatureString);
+        Certificate certificate = Certificate.of(otherGraph);
+        IntGraph graph = signatureMap.get(certificate);
+        if (graph != null) {
 //            System.out.println(signatureString + " " + graphA + " = " + graph);
             callback.same(graph, otherGraph);
         } else {
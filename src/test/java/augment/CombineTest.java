@@ -72,4 +72,14 @@ public class CombineTest {
 		System.out.println(combs);
 		Assert.assertTrue(combs.size() == 2);
 	}
+	
+	@Test
+	public void subsetsOfOctagon() {
+		IntGraph g = new IntGraph("0:1,1:2,2:3,3:4,4:5,5:6,6:7,0:7");
+		AugmentingGenerator generator = new AugmentingGenerator();
+		List<SortedSet<Integer>> combs = generator.getOrbitCombinations(g);
+		System.out.println(combs);
+		// one subset for each two-coloured bracelet of eight beads
+		Assert.assertEquals(30, combs.size());
+	}
 }
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import augmentation.AugmentingGenerator;
@@ -24,6 +25,23 @@ import augmentation.AugmentingGenerator;
 
 public class ScanTest {
 	
+	@Test
+	public void allSixesFromSingleVertex() {
+	    IntGraph initial = new IntGraph();
+	    initial.makeIsolatedVertex();
+	    final int[] count = new int[1];
+		AugmentingGenerator generator = new AugmentingGenerator(new GeneratorHandler() {
+			public void handle(IntGraph parent, IntGraph graph) {
+				if (graph.getVertexCount() == 6) {
+					count[0]++;
+				}
+			}
+			public void finish() {}
+		});
+		generator.scan(initial, 6);
+		Assert.assertEquals(156, count[0]);
+	}
+	
 	@Test
 	public void fourGraphsFromEmpty() {
 	    IntGraph initial = new IntGraph();
@@ -0,0 +1,73 @@
+package bitgraph;
+
+import graph.model.IntGraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitGraphTest {
+    
+    @Test
+    public void addAndRemove() {
+        BitGraph g = new BitGraph(4);
+        g.addEdge(0, 1);
+        g.addEdge(1, 2);
+        Assert.assertTrue(g.hasEdge(1, 0));
+        Assert.assertEquals(2, g.degree(1));
+        Assert.assertEquals(2, g.getEdgeCount());
+        g.removeEdge(0, 1);
+        Assert.assertFalse(g.hasEdge(0, 1));
+        Assert.assertEquals(1, g.degree(1));
+    }
+    
+    @Test
+    public void undoToMark() {
+        BitGraph g = new BitGraph(3);
+        g.addEdge(0, 1);
+        int mark = g.mark();
+        g.addEdge(1, 2);
+        g.removeEdge(0, 1);
+        g.addEdge(2, 5);
+        Assert.assertEquals(6, g.getVertexCount());
+        g.undoTo(mark);
+        Assert.assertEquals(3, g.getVertexCount());
+        Assert.assertEquals(1, g.getEdgeCount());
+        Assert.assertTrue(g.hasEdge(0, 1));
+        Assert.assertFalse(g.hasEdge(1, 2));
+    }
+    
+    @Test
+    public void sixtyFourVertexPath() {
+        BitGraph g = new BitGraph(64);
+        for (int i = 0; i < 63; i++) {
+            g.addEdge(i, i + 1);
+        }
+        Assert.assertTrue(g.isConnected());
+        g.removeEdge(31, 32);
+        Assert.assertFalse(g.isConnected());
+        g.undo();
+        Assert.assertTrue(g.isConnected());
+    }
+    
+    @Test
+    public void intGraphRoundTrip() {
+        IntGraph g = new IntGraph("0:1,0:2,1:3,2:3,3:4");
+        BitGraph b = BitGraph.fromIntGraph(g);
+        Assert.assertEquals(5, b.getVertexCount());
+        Assert.assertEquals(5, b.getEdgeCount());
+        IntGraph h = b.toIntGraph();
+        Assert.assertEquals(g.getSortedEdgeString(), h.getSortedEdgeString());
+    }
+
+    @Test
+    public void toIntGraphKeepsIsolatedVertices() {
+        BitGraph b = new BitGraph(6);
+        b.addEdge(0, 1);
+        b.addEdge(1, 2);
+        IntGraph h = b.toIntGraph();
+        Assert.assertEquals(6, h.getVertexCount());
+        Assert.assertEquals(2, h.getEdgeCount());
+        Assert.assertEquals(b, BitGraph.fromIntGraph(h));
+    }
+
+}
@@ -0,0 +1,115 @@
+package canon;
+
+import generate.handler.IsomorphCountingHandler;
+import generate.handler.OffHeapIsomorphCountingHandler;
+import graph.model.Graph;
+import graph.model.IntGraph;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CertificateTableTest {
+    
+    private void fill(CertificateTable table, int distinct, int repeats) {
+        Random random = new Random(distinct);
+        int n = table.getVertexCount();
+        Certificate[] certificates = new Certificate[distinct];
+        for (int i = 0; i < distinct; i++) {
+            long[] words = new long[Certificate.wordCount(n)];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = random.nextLong();
+            }
+            // make sure the certificates differ
+            words[0] = i;
+            certificates[i] = new Certificate(n, words);
+        }
+        Map<Certificate, Long> expected = new HashMap<Certificate, Long>();
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < distinct; i++) {
+                Certificate certificate = certificates[random.nextInt(distinct)];
+                Long count = expected.get(certificate);
+                long next = (count == null)? 1 : count + 1;
+                expected.put(certificate, next);
+                Assert.assertEquals(next, table.add(certificate));
+            }
+        }
+        Assert.assertEquals(expected.size(), table.size());
+        Assert.assertEquals((long) distinct * repeats, table.total());
+        for (Certificate certificate : expected.keySet()) {
+            Assert.assertEquals((long) expected.get(certificate), table.count(certificate));
+        }
+        final Map<Certificate, Long> visited = new HashMap<Certificate, Long>();
+        table.visit(new CertificateTable.Visitor() {
+            public void visit(Certificate certificate, long count) {
+                visited.put(certificate, count);
+            }
+        });
+        Assert.assertEquals(expected, visited);
+        System.out.println(table.size() + " of " + table.total() + " in " + table.capacity() + " slots");
+    }
+    
+    @Test
+    public void growsWhileAdding() {
+        CertificateTable table = new CertificateTable(20, 4, null);
+        fill(table, 10000, 3);
+        table.close();
+    }
+    
+    @Test
+    public void spillsToFiles() throws Exception {
+        File directory = File.createTempFile("table", "");
+        directory.delete();
+        directory.mkdir();
+        CertificateTable table = new CertificateTable(12, 16, directory);
+        fill(table, 5000, 2);
+        table.close();
+        Assert.assertEquals(0, directory.list().length);
+        directory.delete();
+    }
+    
+    @Test
+    public void sameCountsAsHeapHandler() {
+        // all 1024 labelled graphs on five vertices
+        IsomorphCountingHandler heap = new IsomorphCountingHandler();
+        OffHeapIsomorphCountingHandler offHeap = new OffHeapIsomorphCountingHandler();
+        for (int mask = 0; mask < 1024; mask++) {
+            IntGraph g = new IntGraph();
+            int bit = 0;
+            for (int a = 0; a < 5; a++) {
+                for (int b = a + 1; b < 5; b++) {
+                    if ((mask & (1 << bit)) != 0) {
+                        g.makeEdge(a, b);
+                    }
+                    bit++;
+                }
+            }
+            while (g.getVertexCount() < 5) {
+                g.makeIsolatedVertex();
+            }
+            heap.handle(null, g);
+            offHeap.handle(null, g);
+        }
+        Assert.assertEquals(1024, offHeap.getTotalGraphCount());
+        Assert.assertEquals(heap.getTotalGraphCount(), offHeap.getTotalGraphCount());
+        Assert.assertEquals(34, offHeap.getNonIsomorphicCount());
+        
+        Map<Certificate, Integer> expected = new HashMap<Certificate, Integer>();
+        Map<Graph, Integer> heapCounts = heap.getNonIsomorphicGraphCount();
+        for (Graph g : heapCounts.keySet()) {
+            expected.put(Certificate.of((IntGraph) g), heapCounts.get(g));
+        }
+        Map<Certificate, Integer> actual = new HashMap<Certificate, Integer>();
+        Map<Graph, Integer> offHeapCounts = offHeap.getNonIsomorphicGraphCount();
+        for (Graph g : offHeapCounts.keySet()) {
+            actual.put(Certificate.of((IntGraph) g), offHeapCounts.get(g));
+        }
+        Assert.assertEquals(expected, actual);
+        offHeap.close();
+    }
+    
+}
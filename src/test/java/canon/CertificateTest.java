@@ -0,0 +1,68 @@
+package canon;
+
+import graph.model.IntGraph;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CertificateTest {
+    
+    @Test
+    public void relabelledPathsAreEqual() {
+        Certificate a = Certificate.of(new IntGraph("0:1,1:2,2:3"));
+        Certificate b = Certificate.of(new IntGraph("0:2,1:3,2:3"));
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertEquals(0, a.compareTo(b));
+    }
+    
+    @Test
+    public void pathAndStarDiffer() {
+        Certificate path = Certificate.of(new IntGraph("0:1,1:2,2:3"));
+        Certificate star = Certificate.of(new IntGraph("0:1,0:2,0:3"));
+        Assert.assertFalse(path.equals(star));
+        Assert.assertTrue(path.compareTo(star) != 0);
+    }
+    
+    @Test
+    public void canonicalFormHasSameCertificate() {
+        IntGraph g = new IntGraph("0:1,0:4,1:2,2:3,3:4,1:5");
+        Certificate certificate = Certificate.of(g);
+        IntGraph canonical = certificate.toGraph();
+        Assert.assertEquals(g.getVertexCount(), canonical.getVertexCount());
+        Assert.assertEquals(g.getEdgeCount(), canonical.getEdgeCount());
+        Assert.assertEquals(certificate, Certificate.of(canonical));
+    }
+    
+    @Test
+    public void fixedWidth() {
+        Assert.assertEquals(0, Certificate.wordCount(1));
+        Assert.assertEquals(1, Certificate.wordCount(11));
+        Assert.assertEquals(2, Certificate.wordCount(12));
+        Assert.assertEquals(2, Certificate.of(new IntGraph("0:11")).getWords().length);
+    }
+    
+    @Test
+    public void fourVertexClasses() {
+        // all 64 labelled graphs on four vertices fall into 11 classes
+        int[][] pairs = { {0, 1}, {0, 2}, {0, 3}, {1, 2}, {1, 3}, {2, 3} };
+        Set<Certificate> certificates = new HashSet<Certificate>();
+        for (int mask = 0; mask < 64; mask++) {
+            IntGraph g = new IntGraph();
+            for (int i = 0; i < pairs.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    g.makeEdge(pairs[i][0], pairs[i][1]);
+                }
+            }
+            while (g.getVertexCount() < 4) {
+                g.makeIsolatedVertex();
+            }
+            certificates.add(Certificate.of(g));
+        }
+        Assert.assertEquals(11, certificates.size());
+    }
+
+}
@@ -0,0 +1,151 @@
+package canon;
+
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LabellerTest {
+    
+    private IntGraph randomGraph(int n, Random random) {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextBoolean()) {
+                    g.makeEdge(i, j);
+                }
+            }
+        }
+        // make sure that all n vertices are present
+        if (g.getVertexCount() < n) {
+            g.makeEdge(n - 2, n - 1);
+        }
+        return g;
+    }
+    
+    private IntGraph petersen() {
+        return new IntGraph("0:1,0:4,0:5,1:2,1:6,2:3,2:7,3:4,3:8,4:9,5:7,5:8,6:8,6:9,7:9");
+    }
+    
+    private IntGraph cube() {
+        return new IntGraph("0:1,0:2,0:4,1:3,1:5,2:3,2:6,3:7,4:5,4:6,5:7,6:7");
+    }
+    
+    private int[] randomPermutation(int n, Random random) {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, random);
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            p[i] = values.get(i);
+        }
+        return p;
+    }
+    
+    private int orbitCount(Labelling labelling) {
+        int count = 0;
+        for (int i = 0; i < labelling.getVertexCount(); i++) {
+            if (labelling.getOrbitRepresentative(i) == i) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private void testInvariance(IntGraph g, Random random) {
+        BitsetLabeller labeller = new BitsetLabeller();
+        long[] canonicalRows = labeller.label(g).getCanonicalRows().clone();
+        for (int i = 0; i < 10; i++) {
+            IntGraph h = g.getPermutedGraph(randomPermutation(g.getVertexCount(), random));
+            Assert.assertTrue(Arrays.equals(canonicalRows, labeller.label(h).getCanonicalRows()));
+        }
+    }
+    
+    private void testAgainstRefiner(IntGraph g) {
+        Labelling refined = new RefinerLabeller().label(g);
+        Labelling nativeLabelling = new BitsetLabeller().label(g);
+        Assert.assertEquals(refined.getAutomorphismGroup().order(), 
+                            nativeLabelling.getAutomorphismGroup().order());
+        Assert.assertTrue(Arrays.equals(refined.getOrbits(), nativeLabelling.getOrbits()));
+    }
+    
+    @Test
+    public void petersenTest() {
+        Labelling labelling = new BitsetLabeller().label(petersen());
+        Assert.assertEquals(1, orbitCount(labelling));
+        Assert.assertEquals(120, labelling.getAutomorphismGroup().order());
+        testInvariance(petersen(), new Random(1));
+    }
+    
+    @Test
+    public void cubeTest() {
+        Labelling labelling = new BitsetLabeller().label(cube());
+        Assert.assertEquals(1, orbitCount(labelling));
+        Assert.assertEquals(48, labelling.getAutomorphismGroup().order());
+        testAgainstRefiner(cube());
+    }
+    
+    @Test
+    public void canonicalFormIsCanonical() {
+        BitsetLabeller labeller = new BitsetLabeller();
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            IntGraph g = randomGraph(8, random);
+            long[] rows = labeller.label(g).getCanonicalRows();
+            IntGraph canonical = new IntGraph();
+            for (int a = 0; a < rows.length; a++) {
+                for (int b = a + 1; b < rows.length; b++) {
+                    if ((rows[a] & (1L << b)) != 0) {
+                        canonical.makeEdge(a, b);
+                    }
+                }
+            }
+            Assert.assertTrue(labeller.isCanonical(canonical));
+        }
+    }
+    
+    @Test
+    public void randomAgainstRefiner() {
+        Random random = new Random(3);
+        for (int n = 8; n <= 12; n++) {
+            for (int i = 0; i < 20; i++) {
+                IntGraph g = randomGraph(n, random);
+                testAgainstRefiner(g);
+                testInvariance(g, random);
+            }
+        }
+    }
+    
+    @Test
+    public void timing() {
+        Random random = new Random(4);
+        for (int n = 8; n <= 12; n++) {
+            List<IntGraph> graphs = new ArrayList<IntGraph>();
+            for (int i = 0; i < 500; i++) {
+                graphs.add(randomGraph(n, random));
+            }
+            graphs.add(petersen());
+            graphs.add(cube());
+            long refinerTime = time(new RefinerLabeller(), graphs);
+            long nativeTime = time(new BitsetLabeller(), graphs);
+            System.out.println(n + "\t" + refinerTime + "ms\t" + nativeTime + "ms");
+        }
+    }
+    
+    private long time(CanonicalLabeller labeller, List<IntGraph> graphs) {
+        long start = System.currentTimeMillis();
+        for (IntGraph g : graphs) {
+            labeller.label(g);
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+}
@@ -0,0 +1,105 @@
+package canon;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StabiliserChainTest {
+    
+    private List<int[]> symmetricGenerators(int n) {
+        int[] cycle = new int[n];
+        int[] swap = new int[n];
+        for (int i = 0; i < n; i++) {
+            cycle[i] = (i + 1) % n;
+            swap[i] = i;
+        }
+        swap[0] = 1;
+        swap[1] = 0;
+        List<int[]> generators = new ArrayList<int[]>();
+        generators.add(cycle);
+        generators.add(swap);
+        return generators;
+    }
+    
+    /**
+     * The rotations and reflections of an n-cycle.
+     */
+    private List<int[]> dihedralGenerators(int n) {
+        int[] rotation = new int[n];
+        int[] reflection = new int[n];
+        for (int i = 0; i < n; i++) {
+            rotation[i] = (i + 1) % n;
+            reflection[i] = (n - i) % n;
+        }
+        List<int[]> generators = new ArrayList<int[]>();
+        generators.add(rotation);
+        generators.add(reflection);
+        return generators;
+    }
+    
+    @Test
+    public void symmetricOrder() {
+        StabiliserChain chain = new StabiliserChain(12, symmetricGenerators(12));
+        Assert.assertEquals(BigInteger.valueOf(479001600), chain.getOrder());
+        Assert.assertTrue(chain.isMinimal(new int[] { 0, 1, 2 }));
+        Assert.assertFalse(chain.isMinimal(new int[] { 0, 2, 4 }));
+        Assert.assertEquals(BigInteger.valueOf(6 * 362880), 
+                            chain.getSetStabiliser(new int[] { 3, 5, 7 }).getOrder());
+    }
+    
+    @Test
+    public void dihedralSubsets() {
+        StabiliserChain chain = new StabiliserChain(8, dihedralGenerators(8));
+        Assert.assertEquals(BigInteger.valueOf(16), chain.getOrder());
+        Assert.assertTrue(chain.isMinimal(new int[] { 0, 1, 3 }));
+        // 0, 2, 3 reflects onto 0, 1, 3
+        Assert.assertFalse(chain.isMinimal(new int[] { 0, 2, 3 }));
+        // a square in the octagon is fixed by 8 of the 16 symmetries
+        Assert.assertEquals(BigInteger.valueOf(8), 
+                            chain.getSetStabiliser(new int[] { 0, 2, 4, 6 }).getOrder());
+    }
+    
+    @Test
+    public void braceletCount() {
+        // there are 30 two-coloured bracelets with eight beads
+        StabiliserChain chain = new StabiliserChain(8, dihedralGenerators(8));
+        int minimalCount = 0;
+        for (long mask = 0; mask < 256; mask++) {
+            int[] subset = new int[Long.bitCount(mask)];
+            int index = 0;
+            for (int i = 0; i < 8; i++) {
+                if ((mask & (1L << i)) != 0) {
+                    subset[index++] = i;
+                }
+            }
+            Assert.assertEquals(chain.isMinimal(subset), chain.isMinimal(mask));
+            if (chain.isMinimal(mask)) {
+                minimalCount++;
+            }
+        }
+        Assert.assertEquals(30, minimalCount);
+    }
+    
+    @Test
+    public void dihedralPairs() {
+        int n = 8;
+        StabiliserChain chain = new StabiliserChain(n, dihedralGenerators(n));
+        int[] pairOrbits = chain.getPairOrbits();
+        int orbitCount = 0;
+        for (int code = 0; code < pairOrbits.length; code++) {
+            if (pairOrbits[code] == code) {
+                orbitCount++;
+            }
+        }
+        // one orbit for each distance round the cycle
+        Assert.assertEquals(4, orbitCount);
+        Assert.assertEquals(0 * n + 3, pairOrbits[2 * n + 7]);
+        
+        int[] orderedPairOrbits = chain.getOrderedPairOrbits();
+        Assert.assertEquals(0 * n + 1, orderedPairOrbits[5 * n + 4]);
+    }
+
+}
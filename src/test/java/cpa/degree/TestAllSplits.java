@@ -1,5 +1,6 @@
 package cpa.degree;
 
+import canon.Certificate;
 import graph.model.GraphFileReader;
 import graph.model.IntGraph;
 
@@ -75,7 +76,7 @@ public class TestAllSplits {
         IsomorphismHandler handler = new IsomorphismHandler();
         DegreeSequenceGenerator gen = new DegreeSequenceGenerator(handler, degSeq);
         gen.generate();
-        Map<String, List<IntGraph>> m = handler.getMap();
+        Map<Certificate, List<IntGraph>> m = handler.getMap();
         return m.size();
     }
     
@@ -1,9 +1,11 @@
 package cpa.degree;
 
+import canon.Certificate;
 import graph.model.IntGraph;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.junit.Test;
 
@@ -40,9 +42,9 @@ public class TestDegreeSequenceGenerator {
         IsomorphismHandler handler = new IsomorphismHandler();
         DegreeSequenceGenerator gen = new DegreeSequenceGenerator(handler, sequence);
         gen.generate();
-        Map<String, List<IntGraph>> m = handler.getMap();
+        Map<Certificate, List<IntGraph>> m = handler.getMap();
         int counter = 1;
-        for (String key : m.keySet()) {
+        for (Certificate key : m.keySet()) {
             IntGraph first = m.get(key).get(0); 
             System.out.println(counter + "\t" + first + "\t" + m.get(key).size());
             counter++;
@@ -100,6 +102,22 @@ public class TestDegreeSequenceGenerator {
         iso(new int[] { 5, 4, 4, 3, 3, 3, 2 }, 20);
     }
     
-    
+    @Test
+    public void countingModeMatchesHandler() {
+        int[] sequence = new int[] { 3, 3, 3, 2, 2, 2, 1 };
+        IsomorphismHandler handler = new IsomorphismHandler();
+        new DegreeSequenceGenerator(handler, sequence).generate();
+        LongAdder counter = new LongAdder();
+        DegreeSequenceGenerator counting = new DegreeSequenceGenerator(counter, sequence);
+        counting.generate();
+        System.out.println(counting.getCount());
+        // each of the 11 classes is counted once, however often it is reached
+        assertEquals(handler.getMap().size(), counting.getCount());
+        assertEquals(11, counting.getCount());
+        
+        // a shared counter sums over the generators
+        new DegreeSequenceGenerator(counter, sequence).generate();
+        assertEquals(22, counter.sum());
+    }
 
 }
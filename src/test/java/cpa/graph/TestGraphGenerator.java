@@ -1,5 +1,6 @@
 package cpa.graph;
 
+import canon.Certificate;
 import graph.model.IntGraph;
 
 import java.io.FileOutputStream;
@@ -45,12 +46,57 @@ public class TestGraphGenerator {
         }
     }
     
+    private void testShards(int n, int mod, int m) {
+        IsomorphismHandler handler = new IsomorphismHandler();
+        int total = 0;
+        for (int res = 0; res < mod; res++) {
+            CountingHandler counter = new CountingHandler();
+            GraphGenerator generator = new GraphGenerator(new TeeHandler(counter, handler), n, res, mod);
+            generator.generate();
+            System.out.println(res + "/" + mod + "\t" + counter.getCount());
+            total += counter.getCount();
+        }
+        assertEquals("Shard total failed for " + n, m, total);
+        assertEquals("Duplicates across shards for " + n, m, handler.getMap().size());
+    }
+    
+    private void testShardsFrom(int n, String gString, int mod) {
+        CountingHandler all = new CountingHandler();
+        new GraphGenerator(all, n).generateFrom(new IntGraph(gString));
+        int total = 0;
+        for (int res = 0; res < mod; res++) {
+            CountingHandler counter = new CountingHandler();
+            new GraphGenerator(counter, n, res, mod).generateFrom(new IntGraph(gString));
+            System.out.println(res + "/" + mod + "\t" + counter.getCount());
+            total += counter.getCount();
+        }
+        assertEquals("Shard total failed from " + gString, all.getCount(), total);
+    }
+    
+    private class TeeHandler implements GenerationHandler {
+        
+        private GenerationHandler a;
+        
+        private GenerationHandler b;
+        
+        public TeeHandler(GenerationHandler a, GenerationHandler b) {
+            this.a = a;
+            this.b = b;
+        }
+        
+        @Override
+        public void handle(IntGraph graph) {
+            a.handle(graph);
+            b.handle(graph);
+        }
+    }
+    
     private void testG(int n, String gString) {
         IsomorphismHandler handler = new IsomorphismHandler();
         GraphGenerator generator = new GraphGenerator(handler, n);
         generator.generateFrom(new IntGraph(gString));
-        Map<String, List<IntGraph>> map  = handler.getMap();
-        for (String key : map.keySet()) {
+        Map<Certificate, List<IntGraph>> map  = handler.getMap();
+        for (Certificate key : map.keySet()) {
             if (map.get(key).size() > 1) {
                 System.out.println("- " + key);
                 for (IntGraph h : map.get(key)) {
@@ -76,6 +122,26 @@ public class TestGraphGenerator {
         testNExpectM(7, 853);
     }
     
+    @Test
+    public void testShardsSevens() {
+        testShards(7, 3, 853);
+    }
+    
+    @Test
+    public void testShardsEights() {
+        testShards(8, 8, 11117);
+    }
+    
+    @Test
+    public void testShardsMoreThanSplitNodes() {
+        testShards(5, 64, 21);
+    }
+    
+    @Test
+    public void testShardsFromAboveSplitLevel() {
+        testShardsFrom(8, "0:1, 0:2, 1:2, 0:3, 1:3, 2:3, 0:4, 1:4, 2:4, 3:4, 0:5, 1:5, 2:5, 3:5, 4:5, 0:6", 3);
+    }
+    
     @Test
     public void testFours() {
         testN(4, false);
@@ -1,15 +1,33 @@
 package cubic;
 
+import canon.Certificate;
+import generate.RegularGraphGenerator;
+import generate.handler.GeneratorHandler;
 import generate.handler.IsomorphCountingHandler;
 import graph.model.Graph;
 import graph.model.IntGraph;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 public class CubicGeneratorTest {
     
+    private class CubicCheckingHandler implements GeneratorHandler {
+        
+        public void handle(IntGraph parent, IntGraph graph) {
+            for (int v = 0; v < graph.getVertexCount(); v++) {
+                Assert.assertEquals(3, graph.degree(v));
+            }
+        }
+        
+        public void finish() {}
+        
+    }
+    
     @Test
     public void k4ExtensionTest() {
         IntGraph prime = new IntGraph("0:1,0:2,0:3,1:2,1:3,2:3");
@@ -22,12 +40,15 @@ public class CubicGeneratorTest {
         IntGraph prism = new IntGraph("0:3,0:4,0:5,1:2,1:3,1:4,2:3,2:5,4:5");
         IsomorphCountingHandler handler = new IsomorphCountingHandler();
         CubicGenerator generator = new CubicGenerator(handler);
-        generator.generate(prism, 6);
+        generator.generate(prism, 8);
         List<Graph> unique = handler.getNonIsomorphicGraphs();
         System.out.println(handler.getTotalGraphCount() + "\t" + unique.size());
         for (Graph g : unique) {
             System.out.println(g);
         }
+        // three of the five connected cubic graphs on 8 vertices come from the prism
+        Assert.assertEquals(3, generator.getCount());
+        Assert.assertEquals(3, unique.size());
     }
     
     @Test
@@ -35,16 +56,73 @@ public class CubicGeneratorTest {
         IntGraph prism        = new IntGraph("0:3,0:4,0:5,1:2,1:3,1:4,2:3,2:5,4:5");
         IntGraph twistedPrism = new IntGraph("0:2,0:3,0:4,1:2,1:3,1:4,2:5,3:5,4:5");
         
+        // the handler is reset by each run, so the classes are gathered across both here
+        final Set<Certificate> certificates = new HashSet<Certificate>();
+        CubicGenerator generator = new CubicGenerator(new GeneratorHandler() {
+            
+            public void handle(IntGraph parent, IntGraph graph) {
+                certificates.add(Certificate.of(graph));
+            }
+            
+            public void finish() {}
+        });
+        generator.generate(prism, 10);
+        int fromPrism = generator.getCount();
+        generator.generate(twistedPrism, 10);
+        int fromTwistedPrism = generator.getCount();
+        System.out.println(fromPrism + "\t" + fromTwistedPrism + "\t" + certificates.size());
+        Assert.assertEquals(12, fromPrism);
+        Assert.assertEquals(5, fromTwistedPrism);
+        // no graph has both on its canonical path
+        Assert.assertEquals(17, certificates.size());
+    }
+
+    @Test
+    public void connectedCounts() {
+        int[] expected = {1, 2, 5, 19, 85, 509, 4060};
+        for (int n = 4; n <= 16; n += 2) {
+            CubicGenerator generator = new CubicGenerator(new CubicCheckingHandler());
+            long start = System.currentTimeMillis();
+            generator.generate(n);
+            long time = System.currentTimeMillis() - start;
+            System.out.println(n + "\t" + generator.getCount() + "\t" + generator.getLabellingCount() + "\t" + time + "ms");
+            Assert.assertEquals(expected[(n - 4) / 2], generator.getCount());
+        }
+    }
+
+    @Test
+    public void allCounts() {
+        int[] expected = {1, 2, 6, 21, 94, 540};
+        for (int n = 4; n <= 14; n += 2) {
+            CubicGenerator generator = new CubicGenerator(new CubicCheckingHandler(), false);
+            generator.generate(n);
+            Assert.assertEquals(expected[(n - 4) / 2], generator.getCount());
+        }
+    }
+
+    @Test
+    public void noDuplicatesFor12() {
         IsomorphCountingHandler handler = new IsomorphCountingHandler();
         CubicGenerator generator = new CubicGenerator(handler);
-        generator.generate(prism, 6);
-        generator.generate(twistedPrism, 6);
-        List<Graph> unique = handler.getNonIsomorphicGraphs();
-        System.out.println(handler.getTotalGraphCount() + "\t" + unique.size());
-        for (Graph g : unique) {
-            System.out.println(g);
-        }
+        generator.generate(12);
+        Assert.assertEquals(85, handler.getTotalGraphCount());
+        Assert.assertEquals(85, handler.getNonIsomorphicGraphs().size());
+    }
+
+    @Test
+    public void sameCountAsRegularGenerator() {
+        RegularGraphGenerator regular = new RegularGraphGenerator(new CubicCheckingHandler());
+        regular.generate(3, 14);
+        CubicGenerator generator = new CubicGenerator(new CubicCheckingHandler());
+        generator.generate(14);
+        Assert.assertEquals(regular.getCount(), generator.getCount());
+    }
+
+    @Test
+    public void parallelCount() {
+        CubicGenerator generator = new CubicGenerator(new CubicCheckingHandler());
+        generator.generateInParallel(16, 3);
+        Assert.assertEquals(4060, generator.getCount());
     }
 
-    
 }
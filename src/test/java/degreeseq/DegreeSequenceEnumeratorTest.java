@@ -0,0 +1,75 @@
+package degreeseq;
+
+import degreeseq.DegreeSequenceEnumerator.Method;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DegreeSequenceEnumeratorTest {
+    
+    private long enumerate(int n, boolean connectedOnly) {
+        return enumerate(Method.KIRALY, n, connectedOnly);
+    }
+    
+    private long enumerate(Method method, int n, boolean connectedOnly) {
+        DegreeSequenceEnumerator enumerator = new DegreeSequenceEnumerator(method, connectedOnly);
+        final long[] streamed = new long[1];
+        long total = enumerator.enumerate(n, new SequenceCountListener() {
+            
+            @Override
+            public void handle(int[] degreeSequence, int count) {
+                System.out.println(Arrays.toString(degreeSequence) + "\t" + count);
+                streamed[0] += count;
+            }
+            
+        });
+        Assert.assertEquals(total, streamed[0]);
+        return total;
+    }
+    
+    @Test
+    public void graphicalSequenceCounts() {
+        // OEIS A004251
+        int[] expected = { 1, 2, 4, 11, 31, 102, 342, 1213 };
+        GraphicalSequenceLister lister = new GraphicalSequenceLister();
+        for (int n = 1; n <= expected.length; n++) {
+            Assert.assertEquals(expected[n - 1], lister.list(n, 0).size());
+        }
+    }
+    
+    @Test
+    public void connectedCounts() {
+        Assert.assertEquals(2, enumerate(3, true));
+        Assert.assertEquals(6, enumerate(4, true));
+        Assert.assertEquals(21, enumerate(5, true));
+        Assert.assertEquals(112, enumerate(6, true));
+    }
+    
+    @Test
+    public void allCounts() {
+        Assert.assertEquals(4, enumerate(3, false));
+        Assert.assertEquals(11, enumerate(4, false));
+        Assert.assertEquals(34, enumerate(5, false));
+        Assert.assertEquals(156, enumerate(6, false));
+    }
+    
+    private void connectedCounts(Method method) {
+        Assert.assertEquals(6, enumerate(method, 4, true));
+        Assert.assertEquals(21, enumerate(method, 5, true));
+        Assert.assertEquals(112, enumerate(method, 6, true));
+        Assert.assertEquals(853, enumerate(method, 7, true));
+    }
+    
+    @Test
+    public void orbitSaturatingConnectedCounts() {
+        connectedCounts(Method.ORBIT_SATURATING);
+    }
+    
+    @Test
+    public void canonicalPathConnectedCounts() {
+        connectedCounts(Method.CANONICAL_PATH);
+    }
+    
+}
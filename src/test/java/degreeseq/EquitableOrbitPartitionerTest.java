@@ -0,0 +1,178 @@
+package degreeseq;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EquitableOrbitPartitionerTest {
+    
+    private boolean[][] toMatrix(IntGraph g, int n) {
+        boolean[][] adjacent = new boolean[n][n];
+        for (IntEdge e : g.edges) {
+            adjacent[e.a][e.b] = true;
+            adjacent[e.b][e.a] = true;
+        }
+        return adjacent;
+    }
+    
+    private int[] cellOf(int[][] cells, int n) {
+        int[] cellOf = new int[n];
+        int seen = 0;
+        for (int index = 0; index < cells.length; index++) {
+            for (int v : cells[index]) {
+                cellOf[v] = index;
+                seen++;
+            }
+        }
+        Assert.assertEquals(n, seen);
+        return cellOf;
+    }
+    
+    /**
+     * Check that each vertex in a cell has the same number of neighbours in every cell,
+     * and the same target degree.
+     */
+    private void assertEquitable(int[][] cells, IntGraph g, int[] degSeq) {
+        int n = degSeq.length;
+        boolean[][] adjacent = toMatrix(g, n);
+        int[] cellOf = cellOf(cells, n);
+        for (int[] cell : cells) {
+            for (int v : cell) {
+                Assert.assertEquals(degSeq[cell[0]], degSeq[v]);
+                int[] countsV = new int[cells.length];
+                int[] countsFirst = new int[cells.length];
+                for (int w = 0; w < n; w++) {
+                    if (adjacent[v][w]) countsV[cellOf[w]]++;
+                    if (adjacent[cell[0]][w]) countsFirst[cellOf[w]]++;
+                }
+                Assert.assertArrayEquals(countsFirst, countsV);
+            }
+        }
+    }
+    
+    /**
+     * Check that every automorphism that keeps the target degrees maps each cell to itself.
+     */
+    private void assertOrbitsInCells(int[][] cells, IntGraph g, int[] degSeq) {
+        int n = degSeq.length;
+        boolean[][] adjacent = toMatrix(g, n);
+        int[] cellOf = cellOf(cells, n);
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            p[i] = i;
+        }
+        do {
+            boolean automorphism = true;
+            for (int i = 0; i < n && automorphism; i++) {
+                automorphism = degSeq[i] == degSeq[p[i]];
+                for (int j = 0; j < n && automorphism; j++) {
+                    automorphism = adjacent[i][j] == adjacent[p[i]][p[j]];
+                }
+            }
+            if (automorphism) {
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(cellOf[i], cellOf[p[i]]);
+                }
+            }
+        } while (nextPermutation(p));
+    }
+    
+    private boolean nextPermutation(int[] p) {
+        int i = p.length - 2;
+        while (i >= 0 && p[i] >= p[i + 1]) i--;
+        if (i < 0) return false;
+        int j = p.length - 1;
+        while (p[j] <= p[i]) j--;
+        int t = p[i]; p[i] = p[j]; p[j] = t;
+        for (int a = i + 1, b = p.length - 1; a < b; a++, b--) {
+            t = p[a]; p[a] = p[b]; p[b] = t;
+        }
+        return true;
+    }
+    
+    @Test
+    public void cycleIsOneCell() {
+        IntGraph g = new IntGraph("0:1,1:2,2:3,3:4,4:5,0:5");
+        int[] degSeq = new int[] { 2, 2, 2, 2, 2, 2 };
+        int[][] cells = new EquitableOrbitPartitioner().getCells(g, degSeq);
+        System.out.println(Arrays.deepToString(cells));
+        Assert.assertEquals(1, cells.length);
+    }
+    
+    @Test
+    public void pathSplitsByDistanceFromEnds() {
+        IntGraph g = new IntGraph("0:1,1:2,2:3,3:4");
+        int[] degSeq = new int[] { 2, 2, 2, 2, 2 };
+        int[][] cells = new EquitableOrbitPartitioner().getCells(g, degSeq);
+        System.out.println(Arrays.deepToString(cells));
+        Assert.assertEquals("[[0, 4], [1, 3], [2]]", Arrays.deepToString(cells));
+    }
+    
+    @Test
+    public void randomGraphs() {
+        Random random = new Random(17);
+        EquitableOrbitPartitioner partitioner = new EquitableOrbitPartitioner();
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 3 + random.nextInt(5);
+            IntGraph g = new IntGraph();
+            int[] degSeq = new int[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (random.nextInt(3) == 0) {
+                        g.makeEdge(i, j);
+                    }
+                }
+            }
+            // target degrees that are only partly saturated
+            for (IntEdge e : g.edges) {
+                degSeq[e.a]++;
+                degSeq[e.b]++;
+            }
+            for (int i = 0; i < n; i++) {
+                degSeq[i] += random.nextInt(2);
+            }
+            int[][] cells = partitioner.getCells(g, degSeq);
+            assertEquitable(cells, g, degSeq);
+            assertOrbitsInCells(cells, g, degSeq);
+        }
+    }
+    
+    @Test
+    public void incrementalRefinement() {
+        Random random = new Random(5);
+        EquitableOrbitPartitioner partitioner = new EquitableOrbitPartitioner();
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 3 + random.nextInt(5);
+            int[] degSeq = new int[n];
+            Arrays.fill(degSeq, n - 1);
+            IntGraph g = new IntGraph();
+            int[][] cells = EquitableOrbitPartitioner.getDegreeCells(degSeq);
+            for (int step = 0; step < 3; step++) {
+                int parentSize = g.edges.size();
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        if (!g.hasEdge(i, j) && random.nextInt(4) == 0) {
+                            g.makeEdge(i, j);
+                        }
+                    }
+                }
+                cells = partitioner.refine(cells, g, parentSize);
+                assertEquitable(cells, g, degSeq);
+                
+                // the parent's cells can keep apart vertices the new edges made alike
+                int[] scratchCellOf = cellOf(new EquitableOrbitPartitioner().getCells(g, degSeq), n);
+                for (int[] cell : cells) {
+                    for (int v : cell) {
+                        Assert.assertEquals(scratchCellOf[cell[0]], scratchCellOf[v]);
+                    }
+                }
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,130 @@
+package degreeseq;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GraphicalityOracleTest {
+
+    /**
+     * The Havel-Hakimi test : join the largest degree to the next largest ones, and repeat.
+     */
+    private boolean isGraphicalByHavelHakimi(int[] degreeSequence) {
+        int[] d = degreeSequence.clone();
+        int n = d.length;
+        for (int i = 0; i < n; i++) {
+            if (d[i] < 0) {
+                return false;
+            }
+        }
+        while (true) {
+            Arrays.sort(d);
+            int largest = d[n - 1];
+            if (largest == 0) {
+                return true;
+            }
+            d[n - 1] = 0;
+            for (int k = 2; k <= largest + 1; k++) {
+                if (n - k < 0 || d[n - k] == 0) {
+                    return false;
+                }
+                d[n - k]--;
+            }
+        }
+    }
+
+    private void testAll(int n, int maxDegree) {
+        GraphicalityOracle oracle = new GraphicalityOracle();
+        int[] d = new int[n];
+        int graphicalCount = 0;
+        int total = 0;
+        while (true) {
+            oracle.set(d);
+            boolean expected = isGraphicalByHavelHakimi(d);
+            Assert.assertEquals(Arrays.toString(d), expected, oracle.isGraphical());
+            if (expected) {
+                graphicalCount++;
+            }
+            total++;
+            int i = 0;
+            while (i < n && d[i] == maxDegree) {
+                d[i] = 0;
+                i++;
+            }
+            if (i == n) {
+                break;
+            }
+            d[i]++;
+        }
+        System.out.println(n + "\t" + total + "\t" + graphicalCount);
+    }
+
+    @Test
+    public void allSequencesUpToSix() {
+        for (int n = 1; n <= 6; n++) {
+            testAll(n, n + 1);
+        }
+    }
+
+    @Test
+    public void knownSequences() {
+        GraphicalityOracle oracle = new GraphicalityOracle();
+        oracle.set(new int[] { 3, 3, 3, 1 });
+        Assert.assertFalse(oracle.isGraphical());
+        oracle.set(new int[] { 3, 2, 2, 1 });
+        Assert.assertTrue(oracle.isGraphical());
+        oracle.set(new int[] { 2, 2, 0 });
+        Assert.assertFalse(oracle.isGraphical());
+        oracle.set(new int[] { 1, 2, 2, 1, 2, 2 });
+        Assert.assertTrue(oracle.isGraphical());
+    }
+
+    @Test
+    public void incrementalUpdates() {
+        Random random = new Random(1);
+        int n = 12;
+        GraphicalityOracle oracle = new GraphicalityOracle(2);
+        GraphicalityOracle fresh = new GraphicalityOracle();
+        int[] d = new int[n];
+        for (int i = 0; i < n; i++) {
+            d[i] = random.nextInt(n);
+        }
+        oracle.set(d);
+        for (int step = 0; step < 10000; step++) {
+            int i = random.nextInt(n);
+            if (random.nextBoolean() && d[i] < n + 2) {
+                oracle.increment(d[i]);
+                d[i]++;
+            } else {
+                oracle.decrement(d[i]);
+                d[i]--;
+            }
+            fresh.set(d);
+            Assert.assertEquals(fresh.isGraphical(), oracle.isGraphical());
+            Assert.assertEquals(isGraphicalByHavelHakimi(d), oracle.isGraphical());
+        }
+    }
+
+    @Test
+    public void joinLargestAndUndo() {
+        GraphicalityOracle oracle = new GraphicalityOracle();
+        // 3, 3, 2, 2, 1, 1 with a new vertex of degree 2 joined to the two 3s
+        oracle.set(new int[] { 3, 3, 2, 2, 1, 1 });
+        Assert.assertEquals(2, oracle.joinLargest(2));
+        GraphicalityOracle expected = new GraphicalityOracle();
+        expected.set(new int[] { 2, 2, 2, 2, 1, 1 });
+        Assert.assertEquals(expected.getDegreeSum(), oracle.getDegreeSum());
+        Assert.assertEquals(expected.isGraphical(), oracle.isGraphical());
+        oracle.unjoinLargest();
+        Assert.assertEquals(12, oracle.getDegreeSum());
+
+        // only vertices of positive degree can be joined
+        oracle.set(new int[] { 1, 1, 0, 0 });
+        Assert.assertEquals(2, oracle.joinLargest(3));
+        oracle.unjoinLargest();
+        Assert.assertTrue(oracle.isGraphical());
+    }
+
+}
@@ -1,13 +1,16 @@
 package degreeseq;
 
+import generate.handler.GeneratorHandler;
 import generate.handler.IsomorphCountingHandler;
 import generate.handler.SystemOutHandler;
 import graph.model.Graph;
+import graph.model.IntGraph;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 public class KiralyHHGeneratorTest {
@@ -90,4 +93,27 @@ public class KiralyHHGeneratorTest {
     public void four_to_five_three_squared_two() {
         test(new int[] { 4, 4, 4, 4, 4, 3, 3, 2 });
     }
+    
+    @Test
+    public void largeStarTest() {
+        // the tree for the centre has 2^40 leaves, too many to build
+        int n = 41;
+        int[] degSeq = new int[n];
+        for (int i = 0; i < n - 1; i++) {
+            degSeq[i] = 1;
+        }
+        degSeq[n - 1] = n - 1;
+        final int[] count = new int[1];
+        KiralyHHGenerator generator = new KiralyHHGenerator(new GeneratorHandler() {
+            
+            public void handle(IntGraph parent, IntGraph graph) {
+                count[0]++;
+                System.out.println(graph);
+            }
+            
+            public void finish() {}
+        });
+        generator.generate(degSeq);
+        Assert.assertEquals(1, count[0]);
+    }
 }
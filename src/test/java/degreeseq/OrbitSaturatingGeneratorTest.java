@@ -1,9 +1,37 @@
 package degreeseq;
 
+import canon.Certificate;
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 public class OrbitSaturatingGeneratorTest {
     
+    /**
+     * Run the generator, printing the graphs, and count the classes among them.
+     */
+    private int countClasses(int[] degSeq) {
+        final Set<Certificate> certificates = new HashSet<Certificate>();
+        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator(new GeneratorHandler() {
+            
+            public void handle(IntGraph parent, IntGraph graph) {
+                System.out.println(graph);
+                certificates.add(Certificate.of(graph));
+            }
+            
+            public void finish() {}
+        });
+        generator.generate(degSeq);
+        return certificates.size();
+    }
+    
     @Test
     public void test_3ToThe4_2ToThe8() {
         int[] degSeq = new int[] { 3, 3, 3, 3, 2, 2, 2, 2, 2, 2, 2, 2 };
@@ -14,43 +42,37 @@ public class OrbitSaturatingGeneratorTest {
     @Test
     public void test_3ToThe8() {
         int[] degSeq = new int[] { 3, 3, 3, 3, 3, 3, 3, 3 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(5, countClasses(degSeq));
     }
     
     @Test
     public void test_3Squared_2ToThe6() {
         int[] degSeq = new int[] { 3, 3, 2, 2, 2, 2, 2, 2 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(10, countClasses(degSeq));
     }
     
     @Test
     public void test_3ToThe6() {
         int[] degSeq = new int[] { 3, 3, 3, 3, 3, 3 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(2, countClasses(degSeq));
     }
     
     @Test
     public void test_3To4_2To1_1To2() {
         int[] degSeq = new int[] { 3, 3, 3, 3, 2, 1, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(5, countClasses(degSeq));
     }
     
     @Test
     public void test_44_33_22_11() {
         int[] degSeq = new int[] { 4, 4, 3, 3, 2, 2, 1, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(54, countClasses(degSeq));
     }
     
     @Test
     public void test_4_3_22_1() {
         int[] degSeq = new int[] { 4, 3, 2, 2, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(1, countClasses(degSeq));
     }
     
     @Test
@@ -63,29 +85,54 @@ public class OrbitSaturatingGeneratorTest {
     @Test
     public void test_33_222_11() {
         int[] degSeq = new int[] { 3, 3, 2, 2, 2, 1, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(9, countClasses(degSeq));
     }
     
     @Test
     public void test_33_22_11() {
         int[] degSeq = new int[] { 3, 3, 2, 2, 1, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(4, countClasses(degSeq));
     }
     
     @Test
     public void test_3_22_1() {
         int[] degSeq = new int[] { 3, 2, 2, 1 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
-        generator.generate(degSeq);
+        Assert.assertEquals(1, countClasses(degSeq));
     }
     
     @Test
     public void test_2222() {
         int[] degSeq = new int[] { 2, 2, 2, 2 };
-        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator();
+        Assert.assertEquals(1, countClasses(degSeq));
+    }
+    
+    @Test
+    public void countingModeMatchesHandler() {
+        int[] degSeq = new int[] { 3, 3, 2, 2, 2, 1, 1 };
+        OrbitSaturatingGenerator counting = new OrbitSaturatingGenerator(new LongAdder());
+        counting.generate(degSeq);
+        System.out.println(counting.getCount());
+        // each of the 9 connected classes is counted once
+        Assert.assertEquals(countClasses(degSeq), counting.getCount());
+        Assert.assertEquals(9, counting.getCount());
+    }
+    
+    private long count(int[] degSeq, OrbitPartitioner partitioner) {
+        OrbitSaturatingGenerator generator = new OrbitSaturatingGenerator(new LongAdder());
+        generator.setPartitioner(partitioner);
         generator.generate(degSeq);
+        return generator.getCount();
+    }
+    
+    @Test
+    public void equitableGivesSameCountsAsSignature() {
+        for (int n = 4; n <= 7; n++) {
+            for (int[] degSeq : new GraphicalSequenceLister().list(n, 1)) {
+                long signature = count(degSeq, new SignatureOrbitPartitioner());
+                long equitable = count(degSeq, new EquitableOrbitPartitioner());
+                Assert.assertEquals(Arrays.toString(degSeq), signature, equitable);
+            }
+        }
     }
     
 }
@@ -0,0 +1,96 @@
+package degreeseq;
+
+import graph.model.IntGraph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SwitchChainSamplerTest {
+    
+    private String toKey(IntGraph g) {
+        Collections.sort(g.edges);
+        return g.getSortedEdgeString();
+    }
+    
+    private void assertDegrees(int[] degreeSequence, IntGraph g) {
+        int[] degrees = new int[degreeSequence.length];
+        for (int i = 0; i < g.edges.size(); i++) {
+            degrees[g.edges.get(i).a]++;
+            degrees[g.edges.get(i).b]++;
+        }
+        for (int v = 0; v < degrees.length; v++) {
+            Assert.assertEquals(degreeSequence[v], degrees[v]);
+        }
+    }
+    
+    @Test
+    public void uniformOverPerfectMatchings() {
+        // the 15 perfect matchings on 6 labelled vertices
+        int[] degreeSequence = { 1, 1, 1, 1, 1, 1 };
+        SwitchChainSampler sampler = new SwitchChainSampler(degreeSequence, 42);
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        int total = 15000;
+        for (IntGraph g : sampler.sample(total, 100, 10)) {
+            assertDegrees(degreeSequence, g);
+            String key = toKey(g);
+            counts.put(key, counts.containsKey(key)? counts.get(key) + 1 : 1);
+        }
+        for (String key : counts.keySet()) {
+            System.out.println(key + "\t" + counts.get(key));
+        }
+        Assert.assertEquals(15, counts.size());
+        for (int count : counts.values()) {
+            Assert.assertTrue(count > 800 && count < 1200);
+        }
+    }
+    
+    @Test
+    public void sameSeedSameGraphs() {
+        int[] degreeSequence = { 4, 3, 3, 3, 2, 2, 2, 1 };
+        List<IntGraph> a = new SwitchChainSampler(degreeSequence, 7).sample(20, 50, 5);
+        List<IntGraph> b = new SwitchChainSampler(degreeSequence, 7).sample(20, 50, 5);
+        for (int i = 0; i < a.size(); i++) {
+            assertDegrees(degreeSequence, a.get(i));
+            Assert.assertEquals(toKey(a.get(i)), toKey(b.get(i)));
+        }
+    }
+    
+    @Test
+    public void connectedOnly() {
+        // a tree, and two sequences with many disconnected graphs
+        int[][] sequences = { 
+                { 3, 2, 2, 1, 1, 1 }, { 2, 2, 2, 2, 2, 2, 2, 2 }, { 3, 3, 3, 3, 3, 3, 3, 3 } };
+        for (int[] degreeSequence : sequences) {
+            SwitchChainSampler sampler = new SwitchChainSampler(degreeSequence, 1, true);
+            for (IntGraph g : sampler.sample(200, 100, 5)) {
+                assertDegrees(degreeSequence, g);
+                Assert.assertTrue(g.isConnected());
+            }
+            System.out.println(sampler.getAcceptedCount() + "/" + sampler.getStepCount());
+        }
+    }
+    
+    @Test
+    public void parallelChains() {
+        int[] degreeSequence = { 3, 3, 3, 3, 2, 2, 2, 2 };
+        List<IntGraph> a = SwitchChainSampler.sampleInParallel(degreeSequence, false, 4, 10, 100, 10, 3);
+        List<IntGraph> b = SwitchChainSampler.sampleInParallel(degreeSequence, false, 4, 10, 100, 10, 3);
+        Assert.assertEquals(40, a.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertDegrees(degreeSequence, a.get(i));
+            Assert.assertEquals(toKey(a.get(i)), toKey(b.get(i)));
+        }
+    }
+    
+    @Test
+    public void hakimiHavelKeepsPositions() {
+        int[] degreeSequence = { 1, 3, 2, 2, 4, 1, 3 };
+        assertDegrees(degreeSequence, HakimiHavelGenerator.generate(degreeSequence));
+    }
+
+}
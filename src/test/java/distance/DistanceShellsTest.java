@@ -0,0 +1,137 @@
+package distance;
+
+import graph.model.IntEdge;
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DistanceShellsTest {
+    
+    private IntGraph randomGraph(int n, double p, Random random) {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() < p) {
+                    g.makeEdge(i, j);
+                }
+            }
+        }
+        return g;
+    }
+    
+    private int[][] floydWarshall(IntGraph g, int n) {
+        int[][] dist = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(dist[i], n + 1);
+            dist[i][i] = 0;
+        }
+        for (IntEdge e : g.edges) {
+            dist[e.a][e.b] = 1;
+            dist[e.b][e.a] = 1;
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (dist[i][k] + dist[k][j] < dist[i][j]) {
+                        dist[i][j] = dist[i][k] + dist[k][j];
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+    
+    /**
+     * Count the vertices at the same finite, non-zero distance from i and j.
+     */
+    private int[][] centralityFromDistances(int[][] dist, int n) {
+        int[][] cent = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                for (int k = 0; k < n; k++) {
+                    int d = dist[i][k];
+                    if (d > 0 && d <= n && d == dist[j][k]) {
+                        cent[i][j]++;
+                    }
+                }
+            }
+        }
+        return cent;
+    }
+    
+    private void test(int n, double p, long seed) {
+        IntGraph g = randomGraph(n, p, new Random(seed));
+        DistanceShells shells = new DistanceShells(g, n);
+        int[][] expected = floydWarshall(g, n);
+        int[][] dist = shells.getDistanceMatrix(n + 1);
+        for (int i = 0; i < n; i++) {
+            Assert.assertArrayEquals(expected[i], dist[i]);
+        }
+        int[][] expectedCent = centralityFromDistances(expected, n);
+        int[][] cent = shells.getCentralityMatrix();
+        for (int i = 0; i < n; i++) {
+            Assert.assertArrayEquals(expectedCent[i], cent[i]);
+        }
+    }
+    
+    @Test
+    public void smallRandomGraphs() {
+        for (int seed = 0; seed < 20; seed++) {
+            test(10, 0.3, seed);
+        }
+    }
+    
+    @Test
+    public void largeSparseGraphs() {
+        // more than one word per shell, and usually disconnected
+        for (int seed = 0; seed < 5; seed++) {
+            test(150, 0.015, seed);
+        }
+    }
+    
+    @Test
+    public void largeDenseGraphs() {
+        test(130, 0.1, 1);
+    }
+    
+    @Test
+    public void pathShells() {
+        IntGraph g = new IntGraph();
+        for (int i = 0; i < 69; i++) {
+            g.makeEdge(i, i + 1);
+        }
+        DistanceShells shells = new DistanceShells(g, 70);
+        Assert.assertEquals(69, shells.getShellCount(0));
+        Assert.assertEquals(35, shells.getShellCount(35));
+        Assert.assertTrue(shells.isInShell(0, 66, 66));
+        Assert.assertFalse(shells.isInShell(0, 65, 66));
+        // on a path, only the vertex halfway between two others is at the same distance
+        Assert.assertEquals(0, shells.getEquidistantCount(0, 69));
+        Assert.assertEquals(1, shells.getEquidistantCount(0, 68));
+        Assert.assertEquals(1, shells.getEquidistantCount(34, 36));
+    }
+    
+    @Test
+    public void batchMatchesSingle() {
+        Random random = new Random(7);
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        for (int i = 0; i < 300; i++) {
+            graphs.add(randomGraph(8, 0.5, random));
+        }
+        List<int[]> orsList = CentralityCalculator.getORS(graphs, new ForkJoinPool(4));
+        Assert.assertEquals(graphs.size(), orsList.size());
+        for (int i = 0; i < graphs.size(); i++) {
+            Assert.assertArrayEquals(CentralityCalculator.getORS(graphs.get(i)), orsList.get(i));
+        }
+        System.out.println(Arrays.toString(orsList.get(0)));
+    }
+    
+}
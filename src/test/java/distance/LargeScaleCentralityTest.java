@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
@@ -19,10 +20,14 @@ import util.LexIntArrComparator;
 public class LargeScaleCentralityTest {
     
     public void testFile(String filename) throws FileNotFoundException {
-        GraphFileReader gFile = new GraphFileReader(filename);
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        for (IntGraph g : new GraphFileReader(filename)) {
+            graphs.add(g);
+        }
+        List<int[]> orsList = CentralityCalculator.getORS(graphs, ForkJoinPool.commonPool());
         Map<int[], Graph> byORS = new HashMap<int[], Graph>();
-        for (IntGraph g : gFile) {
-            byORS.put(CentralityCalculator.getORS(g), g);
+        for (int i = 0; i < graphs.size(); i++) {
+            byORS.put(orsList.get(i), graphs.get(i));
         }
         List<int[]> keys = new ArrayList<int[]>(byORS.keySet());
         Collections.sort(keys, new LexIntArrComparator());
@@ -0,0 +1,66 @@
+package generate;
+
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegularGraphGeneratorTest {
+    
+    private class DegreeCheckingHandler implements GeneratorHandler {
+        
+        private int degree;
+        
+        public DegreeCheckingHandler(int degree) {
+            this.degree = degree;
+        }
+        
+        public void handle(IntGraph parent, IntGraph graph) {
+            for (int v = 0; v < graph.getVertexCount(); v++) {
+                Assert.assertEquals(degree, graph.degree(v));
+            }
+        }
+        
+        public void finish() {}
+        
+    }
+    
+    public void testCounts(int degree, boolean connectedOnly, int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            int n = degree + 1 + i;
+            RegularGraphGenerator generator = 
+                new RegularGraphGenerator(new DegreeCheckingHandler(degree), connectedOnly);
+            long start = System.currentTimeMillis();
+            generator.generate(degree, n);
+            long time = System.currentTimeMillis() - start;
+            System.out.println(degree + "\t" + n + "\t" + generator.getCount() + "\t" + time + "ms");
+            Assert.assertEquals(counts[i], generator.getCount());
+        }
+    }
+    
+    @Test
+    public void connectedCubic() {
+        // n = 4 to 16
+        testCounts(3, true, new int[] { 1, 0, 2, 0, 5, 0, 19, 0, 85, 0, 509, 0, 4060 });
+    }
+    
+    @Test
+    public void cubic() {
+        // n = 4 to 12, including disconnected
+        testCounts(3, false, new int[] { 1, 0, 2, 0, 6, 0, 21, 0, 94 });
+    }
+    
+    @Test
+    public void connectedQuartic() {
+        // n = 5 to 12
+        testCounts(4, true, new int[] { 1, 1, 2, 6, 16, 59, 265, 1544 });
+    }
+    
+    @Test
+    public void cycles() {
+        // the only connected 2-regular graph is the cycle
+        testCounts(2, true, new int[] { 1, 1, 1, 1, 1, 1 });
+    }
+
+}
@@ -0,0 +1,182 @@
+package generate.handler;
+
+import graph.model.IntGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PipelineHandlerTest {
+    
+    private class RecordingHandler implements GeneratorHandler {
+        
+        private List<IntGraph> graphs = new ArrayList<IntGraph>();
+        
+        private int finishCount;
+        
+        private int countAtFinish;
+        
+        public void handle(IntGraph parent, IntGraph graph) {
+            graphs.add(graph);
+        }
+        
+        public void finish() {
+            finishCount++;
+            countAtFinish = graphs.size();
+        }
+        
+    }
+    
+    private List<IntGraph> makeGraphs(int count) {
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        for (int i = 0; i < count; i++) {
+            graphs.add(new IntGraph("0:1"));
+        }
+        return graphs;
+    }
+    
+    @Test
+    public void singleWorkerKeepsOrder() {
+        RecordingHandler recorder = new RecordingHandler();
+        PipelineHandler pipeline = new PipelineHandler(recorder, 64, 4, 1);
+        List<IntGraph> graphs = makeGraphs(10007);
+        for (IntGraph g : graphs) {
+            pipeline.handle(null, g);
+        }
+        pipeline.finish();
+        Assert.assertEquals(1, recorder.finishCount);
+        Assert.assertEquals(graphs.size(), recorder.countAtFinish);
+        for (int i = 0; i < graphs.size(); i++) {
+            Assert.assertSame(graphs.get(i), recorder.graphs.get(i));
+        }
+        pipeline.close();
+    }
+    
+    @Test
+    public void manyWorkersDrainOnFinish() {
+        TimingHandler timer = new TimingHandler();
+        PipelineHandler pipeline = new PipelineHandler(new SynchronizedHandler(timer), 100, 2, 4);
+        for (IntGraph g : makeGraphs(5050)) {
+            pipeline.handle(null, g);
+        }
+        pipeline.finish();
+        Assert.assertEquals(5050, timer.getCount());
+        pipeline.close();
+    }
+    
+    @Test
+    public void reusedAfterFinish() {
+        RecordingHandler recorder = new RecordingHandler();
+        PipelineHandler pipeline = new PipelineHandler(recorder, 10, 1, 1);
+        for (IntGraph g : makeGraphs(25)) {
+            pipeline.handle(null, g);
+        }
+        pipeline.finish();
+        for (IntGraph g : makeGraphs(5)) {
+            pipeline.handle(null, g);
+        }
+        pipeline.finish();
+        Assert.assertEquals(2, recorder.finishCount);
+        Assert.assertEquals(30, recorder.countAtFinish);
+        pipeline.close();
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void failureReachesGenerator() {
+        PipelineHandler pipeline = new PipelineHandler(new GeneratorHandler() {
+            public void handle(IntGraph parent, IntGraph graph) {
+                throw new IllegalArgumentException("bad graph");
+            }
+            public void finish() {}
+        }, 10, 1, 1);
+        try {
+            for (IntGraph g : makeGraphs(5)) {
+                pipeline.handle(null, g);
+            }
+            pipeline.finish();
+        } finally {
+            pipeline.close();
+        }
+    }
+    
+    @Test
+    public void failureWaitsForWorkersAndStopsThem() {
+        final int[] finishCount = new int[1];
+        final int[] inside = new int[1];
+        PipelineHandler pipeline = new PipelineHandler(new GeneratorHandler() {
+            public void handle(IntGraph parent, IntGraph graph) {
+                synchronized (inside) {
+                    inside[0]++;
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (inside) {
+                    inside[0]--;
+                }
+                if (parent != null) {
+                    throw new IllegalArgumentException("bad graph");
+                }
+            }
+            public void finish() {
+                finishCount[0]++;
+            }
+        }, 5, 8, 4);
+        IntGraph bad = new IntGraph("0:1");
+        List<IntGraph> graphs = makeGraphs(200);
+        boolean thrown = false;
+        try {
+            for (int i = 0; i < graphs.size(); i++) {
+                pipeline.handle((i == 7)? bad : null, graphs.get(i));
+            }
+            pipeline.finish();
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        Assert.assertTrue(thrown);
+        synchronized (inside) {
+            Assert.assertEquals(0, inside[0]);
+        }
+        Assert.assertEquals(0, finishCount[0]);
+        // the workers were stopped on the way out, and the failure stays
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            Assert.assertFalse(thread.getName().startsWith("pipeline-") && thread.isAlive());
+        }
+        try {
+            pipeline.handle(null, graphs.get(0));
+            pipeline.finish();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void errorInHandlerFailsRatherThanHangs() {
+        PipelineHandler pipeline = new PipelineHandler(new GeneratorHandler() {
+            public void handle(IntGraph parent, IntGraph graph) {
+                if (parent != null) {
+                    throw new AssertionError("bad graph");
+                }
+            }
+            public void finish() {}
+        }, 2, 4, 2);
+        IntGraph bad = new IntGraph("0:1");
+        List<IntGraph> graphs = makeGraphs(50);
+        try {
+            for (int i = 0; i < graphs.size(); i++) {
+                pipeline.handle((i == 3)? bad : null, graphs.get(i));
+            }
+            pipeline.finish();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof AssertionError);
+            System.out.println(e.getMessage() + " : " + e.getCause().getMessage());
+        }
+    }
+    
+}
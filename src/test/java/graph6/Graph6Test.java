@@ -0,0 +1,141 @@
+package graph6;
+
+import generate.handler.GeneratorHandler;
+import graph.model.IntGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Graph6Test {
+    
+    // the examples from the nauty formats description
+    
+    @Test
+    public void graph6Example() {
+        IntGraph g = Graph6Codec.fromString("DQc");
+        Assert.assertEquals(5, g.getVertexCount());
+        Assert.assertEquals("0:2,0:4,1:3,3:4", g.getSortedEdgeString());
+        Assert.assertEquals("DQc", Graph6Codec.toString(g, Graph6Format.GRAPH6));
+    }
+    
+    @Test
+    public void sparse6Example() {
+        IntGraph g = Graph6Codec.fromString(":Fa@x^");
+        Assert.assertEquals(7, g.getVertexCount());
+        Assert.assertEquals("0:1,0:2,1:2,5:6", g.getSortedEdgeString());
+        Assert.assertEquals(":Fa@x^", Graph6Codec.toString(g, Graph6Format.SPARSE6));
+    }
+    
+    @Test
+    public void sparse6PaddingSixteen() {
+        // n = 16 and the last edge to vertex 14 leaves 4 bits of padding : less than 
+        // an entry of k + 1 = 5 bits, so nauty pads with 1 bits only
+        IntGraph g = new IntGraph("0:1,0:14,1:14");
+        g.makeIsolatedVertex();
+        Assert.assertEquals(":O`w?^", Graph6Codec.toString(g, Graph6Format.SPARSE6));
+        IntGraph h = Graph6Codec.fromString(":O`w?^");
+        Assert.assertEquals(16, h.getVertexCount());
+        Assert.assertEquals("0:1,0:14,1:14", h.getSortedEdgeString());
+    }
+    
+    @Test
+    public void digraph6Example() {
+        IntGraph g = Graph6Codec.fromString("&DI?AO?");
+        Assert.assertEquals("0:2,0:4,1:3,3:4", g.getSortedEdgeString());
+    }
+    
+    @Test
+    public void isolatedVertices() {
+        IntGraph g = new IntGraph("0:1");
+        g.makeIsolatedVertex();
+        g.makeIsolatedVertex();
+        for (Graph6Format format : Graph6Format.values()) {
+            IntGraph h = Graph6Codec.fromString(Graph6Codec.toString(g, format));
+            Assert.assertEquals(4, h.getVertexCount());
+            Assert.assertEquals("0:1", h.getSortedEdgeString());
+        }
+    }
+    
+    @Test
+    public void largeGraph() {
+        // a path on 100 vertices needs the four byte size
+        IntGraph path = new IntGraph();
+        for (int i = 0; i < 99; i++) {
+            path.makeEdge(i, i + 1);
+        }
+        for (Graph6Format format : Graph6Format.values()) {
+            IntGraph h = Graph6Codec.fromString(Graph6Codec.toString(path, format));
+            Assert.assertEquals(100, h.getVertexCount());
+            Assert.assertEquals(path.getSortedEdgeString(), h.getSortedEdgeString());
+        }
+    }
+    
+    private List<IntGraph> cycles(int max) {
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        for (int n = 3; n <= max; n++) {
+            IntGraph cycle = new IntGraph();
+            for (int i = 0; i < n; i++) {
+                cycle.makeEdge(Math.min(i, (i + 1) % n), Math.max(i, (i + 1) % n));
+            }
+            graphs.add(cycle);
+        }
+        return graphs;
+    }
+    
+    private File writeFile(List<IntGraph> graphs, Graph6Format format) throws IOException {
+        File file = File.createTempFile("graphs", ".g6");
+        file.deleteOnExit();
+        GeneratorHandler handler = new Graph6OutputHandler(new FileOutputStream(file), format, true);
+        for (IntGraph g : graphs) {
+            handler.handle(null, g);
+        }
+        handler.finish();
+        return file;
+    }
+    
+    @Test
+    public void writeAndRead() throws IOException {
+        List<IntGraph> graphs = cycles(40);
+        for (Graph6Format format : Graph6Format.values()) {
+            File file = writeFile(graphs, format);
+            List<IntGraph> read = Graph6Reader.readAll(file.getPath());
+            Assert.assertEquals(graphs.size(), read.size());
+            for (int i = 0; i < graphs.size(); i++) {
+                Assert.assertEquals(graphs.get(i).getSortedEdgeString(), read.get(i).getSortedEdgeString());
+            }
+        }
+    }
+    
+    @Test
+    public void smallWindows() throws IOException {
+        List<IntGraph> graphs = cycles(40);
+        File file = writeFile(graphs, Graph6Format.SPARSE6);
+        // a window of 64 bytes has to move on several times, part way through lines
+        Graph6Reader reader = new Graph6Reader(file, 64);
+        int index = 0;
+        for (IntGraph g : reader) {
+            Assert.assertEquals(graphs.get(index).getSortedEdgeString(), g.getSortedEdgeString());
+            index++;
+        }
+        reader.close();
+        Assert.assertEquals(graphs.size(), index);
+    }
+    
+    @Test
+    public void headerWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Graph6OutputHandler handler = new Graph6OutputHandler(out, Graph6Format.GRAPH6, true);
+        handler.handle(null, new IntGraph("0:2,0:4,1:3,3:4"));
+        handler.finish();
+        Assert.assertEquals(">>graph6<<DQc\n", out.toString());
+        Assert.assertEquals(1, handler.getCount());
+    }
+
+}
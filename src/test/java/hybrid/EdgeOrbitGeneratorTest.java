@@ -0,0 +1,79 @@
+package hybrid;
+
+import generate.handler.GeneratorHandler;
+import generate.handler.IsomorphCountingHandler;
+import graph.model.Graph;
+import graph.model.IntGraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EdgeOrbitGeneratorTest {
+    
+    public IsomorphCountingHandler generate(int n, int maxDegree) {
+        IsomorphCountingHandler handler = new IsomorphCountingHandler();
+        EdgeOrbitGenerator generator = new EdgeOrbitGenerator(handler, maxDegree);
+        generator.generate(n);
+        // the handler clears itself on the next graph after finish, so is still readable
+        System.out.println(n + "\t" + maxDegree + "\t" + handler.getTotalGraphCount());
+        return handler;
+    }
+    
+    @Test
+    public void connectedCounts() {
+        // connected graphs on 2 to 7 vertices
+        int[] expected = { 1, 2, 6, 21, 112, 853 };
+        for (int n = 2; n < 2 + expected.length; n++) {
+            IsomorphCountingHandler handler = generate(n, 0);
+            Assert.assertEquals(expected[n - 2], handler.getTotalGraphCount());
+            Assert.assertEquals(expected[n - 2], handler.getNonIsomorphicGraphs().size());
+        }
+    }
+    
+    @Test
+    public void degreeLimited() {
+        for (int maxDegree = 2; maxDegree <= 4; maxDegree++) {
+            int expected = 0;
+            for (Graph g : generate(7, 0).getNonIsomorphicGraphs()) {
+                if (maxDegree((IntGraph) g) <= maxDegree) {
+                    expected++;
+                }
+            }
+            IsomorphCountingHandler handler = generate(7, maxDegree);
+            Assert.assertEquals(expected, handler.getTotalGraphCount());
+            Assert.assertEquals(expected, handler.getNonIsomorphicGraphs().size());
+        }
+    }
+    
+    @Test
+    public void sameAsHybrid() {
+        final IsomorphCountingHandler hybridSevens = new IsomorphCountingHandler();
+        HybridGenerator hybrid = new HybridGenerator(new GeneratorHandler() {
+            public void handle(IntGraph parent, IntGraph graph) {
+                if (graph.getVertexCount() == 7) {
+                    hybridSevens.handle(parent, graph);
+                }
+            }
+            public void finish() {}
+        });
+        long start = System.currentTimeMillis();
+        hybrid.generate(new IntGraph("0:1"), 7);
+        long hybridTime = System.currentTimeMillis() - start;
+        
+        start = System.currentTimeMillis();
+        IsomorphCountingHandler edgeOrbitSevens = generate(7, 0);
+        long edgeOrbitTime = System.currentTimeMillis() - start;
+        System.out.println("Hybrid " + hybridTime + "ms, edge orbit " + edgeOrbitTime + "ms");
+        Assert.assertEquals(
+                hybridSevens.getSignatureMap().keySet(), edgeOrbitSevens.getSignatureMap().keySet());
+    }
+    
+    private int maxDegree(IntGraph g) {
+        int max = 0;
+        for (int v = 0; v < g.getVertexCount(); v++) {
+            max = Math.max(max, g.degree(v));
+        }
+        return max;
+    }
+
+}
@@ -1,10 +1,13 @@
 package hybrid;
 
 import generate.handler.FileOutputHandler;
+import generate.handler.GeneratorHandler;
+import generate.handler.IsomorphCountingHandler;
 import generate.handler.SystemOutHandler;
 import generate.handler.TreeHandler;
 import graph.model.IntGraph;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 public class HybridGeneratorTest {
@@ -58,5 +61,29 @@ public class HybridGeneratorTest {
 		HybridGenerator generator = new HybridGenerator(new FileOutputHandler("output/hybrid/eight_3.txt", 3, 8));
 		generator.generate(initial, 8);
 	}
+	
+	@Test
+	public void connectedCounts() {
+		// connected graphs on 2 to 7 vertices
+		int[] expected = { 1, 2, 6, 21, 112, 853 };
+		for (int n = 2; n < 2 + expected.length; n++) {
+			final IsomorphCountingHandler isomorphs = new IsomorphCountingHandler();
+			final int size = n;
+			HybridGenerator generator = new HybridGenerator(new GeneratorHandler() {
+				public void handle(IntGraph parent, IntGraph graph) {
+					if (graph.getVertexCount() == size) {
+						isomorphs.handle(parent, graph);
+					}
+				}
+				public void finish() {}
+			});
+			generator.generate(new IntGraph("0:1"), n);
+			System.out.println(n + "\t" + isomorphs.getTotalGraphCount() 
+					+ "\t" + generator.getLabellingCount() + " labellings for " 
+					+ generator.getChildCount() + " children");
+			Assert.assertEquals(expected[n - 2], isomorphs.getTotalGraphCount());
+			Assert.assertEquals(expected[n - 2], isomorphs.getNonIsomorphicGraphs().size());
+		}
+	}
 
 }
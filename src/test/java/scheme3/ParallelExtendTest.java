@@ -0,0 +1,53 @@
+package scheme3;
+
+import generate.handler.TimingHandler;
+import graph.model.IntGraph;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelExtendTest {
+    
+    public void compareCounts(int n, boolean doFilter, int splitDepth) {
+        TimingHandler sequentialHandler = new TimingHandler();
+        GraphGenerator sequential = new GraphGenerator(sequentialHandler, true, false, doFilter);
+        sequential.extend(new IntGraph("0:1"), n);
+        sequentialHandler.finish();
+        
+        TimingHandler parallelHandler = new TimingHandler();
+        GraphGenerator parallel = new GraphGenerator(parallelHandler, true, false, doFilter);
+        ForkJoinPool pool = new ForkJoinPool();
+        parallel.extendInParallel(new IntGraph("0:1"), n, splitDepth, pool);
+        pool.shutdown();
+        parallelHandler.finish();
+        
+        System.out.println(n + "\t" + sequentialHandler.getCount() 
+                + "\t" + sequentialHandler.getElapsedTime() + "ms"
+                + "\t" + parallelHandler.getCount() 
+                + "\t" + parallelHandler.getElapsedTime() + "ms");
+        Assert.assertEquals(sequentialHandler.getCount(), parallelHandler.getCount());
+    }
+    
+    @Test
+    public void sixesFiltered() {
+        compareCounts(6, true, 2);
+    }
+    
+    @Test
+    public void sevensSymmetry() {
+        compareCounts(7, false, 2);
+    }
+    
+    @Test
+    public void eightsSplitAtThree() {
+        compareCounts(8, true, 3);
+    }
+    
+    @Test
+    public void eightsSplitAtRoot() {
+        compareCounts(8, true, 0);
+    }
+
+}
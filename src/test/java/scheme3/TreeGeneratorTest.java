@@ -2,6 +2,7 @@ package scheme3;
 
 import graph.model.IntGraph;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 public class TreeGeneratorTest {
@@ -82,5 +83,12 @@ public class TreeGeneratorTest {
 		TreeGenerator generator = new TreeGenerator();
 		generator.orderlyGenerationMcKay(initial, 14);
 	}
+	
+	@Test
+	public void tenVertexTreeCount() {
+		TreeGenerator generator = new TreeGenerator();
+		generator.orderlyGenerationMcKay(new IntGraph("0:1"), 10);
+		Assert.assertEquals(106, generator.getCount());
+	}
 
 }
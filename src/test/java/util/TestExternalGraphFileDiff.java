@@ -0,0 +1,168 @@
+package util;
+
+import canon.Certificate;
+import graph.model.IntGraph;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestExternalGraphFileDiff {
+    
+    private class CollectingListener implements ExternalGraphFileDiff.Listener {
+        
+        public Set<Certificate> onlyInA = new HashSet<Certificate>();
+        
+        public Set<Certificate> onlyInB = new HashSet<Certificate>();
+        
+        public Map<Certificate, Integer> duplicatesInA = new HashMap<Certificate, Integer>();
+        
+        public Map<Certificate, Integer> duplicatesInB = new HashMap<Certificate, Integer>();
+
+        @Override
+        public void onlyInA(Certificate certificate, long graphA) {
+            onlyInA.add(certificate);
+        }
+
+        @Override
+        public void onlyInB(Certificate certificate, long graphB) {
+            onlyInB.add(certificate);
+        }
+
+        @Override
+        public void duplicateInA(Certificate certificate, long[] graphsA) {
+            duplicatesInA.put(certificate, graphsA.length);
+        }
+
+        @Override
+        public void duplicateInB(Certificate certificate, long[] graphsB) {
+            duplicatesInB.put(certificate, graphsB.length);
+        }
+        
+    }
+    
+    private List<IntGraph> randomGraphs(int count, int n, long seed) {
+        Random random = new Random(seed);
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        while (graphs.size() < count) {
+            IntGraph g = new IntGraph();
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (random.nextBoolean()) {
+                        g.makeEdge(i, j);
+                    }
+                }
+            }
+            // the file format has no isolated vertices
+            if (g.getVertexCount() == n && g.degreeSequence(true)[n - 1] > 0) {
+                graphs.add(g);
+            }
+        }
+        return graphs;
+    }
+    
+    private File writeFile(List<IntGraph> graphs) throws IOException {
+        File file = File.createTempFile("graphs", ".txt");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        for (IntGraph g : graphs) {
+            writer.write(g + "\n");
+        }
+        writer.close();
+        return file;
+    }
+    
+    private Map<Certificate, Integer> count(List<IntGraph> graphs) {
+        Map<Certificate, Integer> counts = new HashMap<Certificate, Integer>();
+        for (IntGraph g : graphs) {
+            Certificate certificate = Certificate.of(g);
+            Integer count = counts.get(certificate);
+            counts.put(certificate, (count == null)? 1 : count + 1);
+        }
+        return counts;
+    }
+    
+    private void test(int runSize, int fanIn) throws IOException {
+        // each file has graphs the other does not, on six or seven vertices
+        List<IntGraph> graphsA = randomGraphs(200, 5, 1);
+        graphsA.addAll(randomGraphs(30, 6, 3));
+        List<IntGraph> graphsB = randomGraphs(25, 5, 2);
+        graphsB.addAll(randomGraphs(10, 7, 4));
+        Map<Certificate, Integer> countsA = count(graphsA);
+        Map<Certificate, Integer> countsB = count(graphsB);
+        
+        File tempDirectory = File.createTempFile("runs", "");
+        tempDirectory.delete();
+        tempDirectory.mkdir();
+        ExternalGraphFileDiff diff = 
+                new ExternalGraphFileDiff(tempDirectory, runSize, fanIn, new ForkJoinPool(4));
+        CollectingListener listener = new CollectingListener();
+        diff.diff(writeFile(graphsA).getPath(), writeFile(graphsB).getPath(), listener);
+        Assert.assertEquals(0, tempDirectory.list().length);
+        tempDirectory.delete();
+        
+        Set<Certificate> expectedOnlyInA = new HashSet<Certificate>(countsA.keySet());
+        expectedOnlyInA.removeAll(countsB.keySet());
+        Set<Certificate> expectedOnlyInB = new HashSet<Certificate>(countsB.keySet());
+        expectedOnlyInB.removeAll(countsA.keySet());
+        Assert.assertEquals(expectedOnlyInA, listener.onlyInA);
+        Assert.assertEquals(expectedOnlyInB, listener.onlyInB);
+        for (Certificate certificate : countsA.keySet()) {
+            if (countsA.get(certificate) > 1) {
+                Assert.assertEquals(countsA.get(certificate), listener.duplicatesInA.get(certificate));
+            }
+        }
+        for (Certificate certificate : countsB.keySet()) {
+            if (countsB.get(certificate) > 1) {
+                Assert.assertEquals(countsB.get(certificate), listener.duplicatesInB.get(certificate));
+            }
+        }
+        Assert.assertEquals(listener.duplicatesInA.size(), diff.getDuplicateInACount());
+        Assert.assertEquals(listener.duplicatesInB.size(), diff.getDuplicateInBCount());
+        System.out.println(countsA.size() + " in A, " + countsB.size() + " in B, " 
+                + diff.getOnlyInACount() + " only in A, " + diff.getOnlyInBCount() + " only in B");
+    }
+    
+    @Test
+    public void oneRun() throws IOException {
+        test(1000, 64);
+    }
+    
+    @Test
+    public void manyRunsMergedInPasses() throws IOException {
+        test(7, 2);
+    }
+    
+    @Test
+    public void duplicatesInOneFile() throws IOException {
+        List<IntGraph> graphs = new ArrayList<IntGraph>();
+        graphs.add(new IntGraph("0:1,1:2,2:3"));
+        graphs.add(new IntGraph("0:1,0:2,0:3"));
+        graphs.add(new IntGraph("0:2,2:1,1:3"));
+        graphs.add(new IntGraph("0:1,1:2,2:3,0:3"));
+        graphs.add(new IntGraph("3:0,3:1,3:2"));
+        graphs.add(new IntGraph("1:3,3:0,0:2"));
+        ExternalGraphFileDiff diff = new ExternalGraphFileDiff(
+                new File(System.getProperty("java.io.tmpdir")), 2, 2, ForkJoinPool.commonPool());
+        CollectingListener listener = new CollectingListener();
+        diff.checkForDuplicates(writeFile(graphs).getPath(), listener);
+        Assert.assertEquals(2, diff.getDuplicateInACount());
+        Assert.assertEquals(Integer.valueOf(3), listener.duplicatesInA.get(Certificate.of(graphs.get(0))));
+        Assert.assertEquals(Integer.valueOf(2), listener.duplicatesInA.get(Certificate.of(graphs.get(1))));
+        Assert.assertEquals(0, diff.getOnlyInACount());
+        Assert.assertTrue(listener.onlyInA.isEmpty());
+        Assert.assertEquals(0, diff.getOnlyInBCount());
+    }
+    
+}
@@ -0,0 +1,160 @@
+package util;
+
+import canon.CanonicalLabellers;
+import graph.model.IntGraph;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGraphFileIndex {
+    
+    /**
+     * The eleven graphs on four vertices, as edge lists.
+     */
+    private static final String[] FOURS = {
+        "[]", "[0:1]", "[0:1, 2:3]", "[0:1, 1:2]", "[0:1, 0:2, 0:3]", "[0:1, 1:2, 2:3]", 
+        "[0:1, 0:2, 1:2]", "[0:1, 1:2, 2:3, 0:3]", "[0:1, 0:2, 1:2, 0:3]", 
+        "[0:1, 0:2, 0:3, 1:2, 1:3]", "[0:1, 0:2, 0:3, 1:2, 1:3, 2:3]"
+    };
+    
+    /**
+     * Write the graphs to a file, with a blank line after the path on three vertices.
+     */
+    private File writeFile(String... lines) throws IOException {
+        File file = File.createTempFile("graphs", ".txt");
+        file.deleteOnExit();
+        GraphFileIndex.getIndexFile(file.getPath()).deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        for (String line : lines) {
+            writer.write(line + "\n");
+            if (line.equals("[0:1, 1:2]")) {
+                writer.write("\r\n");
+            }
+        }
+        writer.close();
+        return file;
+    }
+    
+    @Test
+    public void findByCertificate() throws IOException {
+        // skip the empty graph, as a line has no isolated vertices
+        File file = writeFile(Arrays.copyOfRange(FOURS, 1, FOURS.length));
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        Assert.assertEquals(10, index.getGraphCount());
+        Assert.assertTrue(GraphFileIndex.isCurrent(file.getPath()));
+        
+        IntGraph found = index.get(new IntGraph("1:3,2:3,0:3"));
+        Assert.assertNotNull(found);
+        Assert.assertEquals(3, found.getEdgeCount());
+        Assert.assertEquals(3, found.degreeSequence(true)[0]);
+        
+        IntGraph path = index.get(new IntGraph("0:3,3:1,1:2"));
+        Assert.assertNotNull(path);
+        Assert.assertEquals(3, path.getEdgeCount());
+        Assert.assertEquals(2, path.degreeSequence(true)[0]);
+        
+        // on five vertices, so not in the file
+        Assert.assertNull(index.get(new IntGraph("0:1,1:2,2:3,3:4")));
+        index.close();
+    }
+    
+    @Test
+    public void findByDegreeSequence() throws IOException {
+        File file = writeFile(Arrays.copyOfRange(FOURS, 1, FOURS.length));
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        List<IntGraph> hits = index.get(new int[] { 2, 2, 2, 2 });
+        Assert.assertEquals(1, hits.size());
+        hits = index.get(new int[] { 2, 2, 1, 1 });
+        Assert.assertEquals(1, hits.size());
+        hits = index.get(new int[] { 3, 1, 1, 1 });
+        Assert.assertEquals(1, hits.size());
+        hits = index.get(new int[] { 1, 1, 1, 1 });
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals(0, index.get(new int[] { 3, 3, 3, 3, 3, 3 }).size());
+        index.close();
+    }
+    
+    @Test
+    public void repeatsInFileOrder() throws IOException {
+        File file = writeFile("[0:1, 1:2]", "[0:1, 0:2]", "[0:2, 1:2]", "[0:1, 0:2, 1:2]");
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        List<IntGraph> hits = index.get(new int[] { 2, 1, 1 });
+        Assert.assertEquals(3, hits.size());
+        Assert.assertTrue(hits.get(0).hasEdge(1, 2));
+        Assert.assertFalse(hits.get(1).hasEdge(1, 2));
+        Assert.assertTrue(hits.get(2).hasEdge(1, 2));
+        index.close();
+    }
+    
+    @Test
+    public void rebuildsWhenChanged() throws IOException {
+        File file = writeFile("[0:1, 1:2]");
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        Assert.assertNull(index.get(new IntGraph("0:1,1:2,0:2")));
+        index.close();
+        
+        FileWriter writer = new FileWriter(file, true);
+        writer.write("[0:1, 1:2, 0:2]\n");
+        writer.close();
+        Assert.assertFalse(GraphFileIndex.isCurrent(file.getPath()));
+        
+        index = GraphFileIndex.open(file.getPath());
+        Assert.assertEquals(2, index.getGraphCount());
+        Assert.assertNotNull(index.get(new IntGraph("0:1,1:2,0:2")));
+        index.close();
+    }
+    
+    @Test
+    public void rebuildsWhenSameLengthAndTime() throws IOException {
+        File file = writeFile("[0:1, 1:2]");
+        GraphFileIndex.open(file.getPath()).close();
+        long modified = file.lastModified();
+        
+        // the same length and modification time, but another graph
+        FileWriter writer = new FileWriter(file);
+        writer.write("[0:1, 0:2]\n\r\n");
+        writer.close();
+        file.setLastModified(modified);
+        Assert.assertEquals(modified, file.lastModified());
+        Assert.assertFalse(GraphFileIndex.isCurrent(file.getPath()));
+        
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        Assert.assertEquals(1, index.get(new int[] { 2, 1, 1 }).size());
+        Assert.assertTrue(index.get(new int[] { 2, 1, 1 }).get(0).hasEdge(0, 2));
+        index.close();
+    }
+    
+    @Test
+    public void rebuildsWhenEngineChanged() throws IOException {
+        File file = writeFile("[0:1, 1:2]");
+        GraphFileIndex.open(file.getPath()).close();
+        Assert.assertTrue(GraphFileIndex.isCurrent(file.getPath()));
+        
+        CanonicalLabellers.Engine engine = CanonicalLabellers.getEngine();
+        CanonicalLabellers.Engine other = (engine == CanonicalLabellers.Engine.NATIVE)?
+                CanonicalLabellers.Engine.REFINER : CanonicalLabellers.Engine.NATIVE;
+        try {
+            CanonicalLabellers.setEngine(other);
+            Assert.assertFalse(GraphFileIndex.isCurrent(file.getPath()));
+        } finally {
+            CanonicalLabellers.setEngine(engine);
+        }
+        Assert.assertTrue(GraphFileIndex.isCurrent(file.getPath()));
+    }
+    
+    @Test
+    public void searchUsesIndex() throws IOException {
+        File file = writeFile(Arrays.copyOfRange(FOURS, 1, FOURS.length));
+        GraphFileIndex index = GraphFileIndex.open(file.getPath());
+        Assert.assertNotNull(GraphFileSearch.get(new IntGraph("0:1,1:2,2:3,0:3,0:2,1:3"), index));
+        Assert.assertEquals(1, GraphFileSearch.get(new int[] { 3, 3, 2, 2 }, index).size());
+        index.close();
+    }
+    
+}